@@ -0,0 +1,25 @@
+package com.example.integrationservice.kafka;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/kafkalag}: lag and consumption rate per consumer group as of the last poll.
+ */
+@Component
+@Endpoint(id = "kafkalag")
+public class ConsumerLagEndpoint {
+    private final ConsumerLagMonitor consumerLagMonitor;
+
+    public ConsumerLagEndpoint(ConsumerLagMonitor consumerLagMonitor) {
+        this.consumerLagMonitor = consumerLagMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, ConsumerLagMonitor.GroupLag> lag() {
+        return consumerLagMonitor.snapshot();
+    }
+}
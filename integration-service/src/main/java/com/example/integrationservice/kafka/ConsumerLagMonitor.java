@@ -0,0 +1,153 @@
+package com.example.integrationservice.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads committed and end offsets of the configured consumer groups from the brokers and publishes
+ * integration.kafka.consumer.lag{group,topic,partition}, integration.kafka.consumer.lag.total{group} and
+ * integration.kafka.consumer.rate{group} (committed records per second between polls).
+ */
+@Slf4j
+@Component
+public class ConsumerLagMonitor {
+    private final KafkaAdmin kafkaAdmin;
+    private final List<String> groups;
+    private final Duration timeout;
+    private final MultiGauge partitionLag;
+    private final MultiGauge totalLag;
+    private final MultiGauge consumptionRate;
+    private final Map<String, GroupLag> snapshot = new ConcurrentHashMap<>();
+    private AdminClient adminClient;
+
+    public ConsumerLagMonitor(
+            KafkaAdmin kafkaAdmin,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.lag.groups:ai-mapping-group}") List<String> groups,
+            @Value("${kafka.lag.timeout:PT10S}") Duration timeout
+    ) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.groups = groups;
+        this.timeout = timeout;
+        this.partitionLag = MultiGauge.builder("integration.kafka.consumer.lag").baseUnit("records")
+                .register(meterRegistry);
+        this.totalLag = MultiGauge.builder("integration.kafka.consumer.lag.total").baseUnit("records")
+                .register(meterRegistry);
+        this.consumptionRate = MultiGauge.builder("integration.kafka.consumer.rate").baseUnit("records/s")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.lag.interval:PT15S}")
+    public void refresh() {
+        for (String group : groups) {
+            try {
+                snapshot.put(group, measure(group, snapshot.get(group)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Could not read lag of consumer group {}: {}", group, e.toString());
+            }
+        }
+        publish();
+    }
+
+    public Map<String, GroupLag> snapshot() {
+        return new TreeMap<>(snapshot);
+    }
+
+    private GroupLag measure(String group, GroupLag previous) throws Exception {
+        AdminClient admin = adminClient();
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+                .partitionsToOffsetAndMetadata()
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        committed.forEach((partition, offset) -> {
+            if (offset != null) {
+                latest.put(partition, OffsetSpec.latest());
+            }
+        });
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin.listOffsets(latest).all()
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        Map<String, Long> partitions = new TreeMap<>();
+        long total = 0;
+        long position = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end : ends.entrySet()) {
+            long offset = committed.get(end.getKey()).offset();
+            long lag = Math.max(0, end.getValue().offset() - offset);
+            partitions.put(end.getKey().toString(), lag);
+            total += lag;
+            position += offset;
+        }
+        Instant now = Instant.now();
+        double rate = 0;
+        if (previous != null) {
+            double seconds = Duration.between(previous.updatedAt(), now).toMillis() / 1000.0;
+            rate = seconds > 0 ? Math.max(0, position - previous.committedOffsets()) / seconds : 0;
+        }
+        return new GroupLag(total, rate, partitions, position, now);
+    }
+
+    private void publish() {
+        List<MultiGauge.Row<?>> partitionRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> totalRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> rateRows = new ArrayList<>();
+        snapshot.forEach((group, lag) -> {
+            lag.partitions().forEach((partition, value) -> {
+                int split = partition.lastIndexOf('-');
+                partitionRows.add(MultiGauge.Row.of(Tags.of("group", group, "topic", partition.substring(0, split),
+                        "partition", partition.substring(split + 1)), value));
+            });
+            totalRows.add(MultiGauge.Row.of(Tags.of("group", group), lag.total()));
+            rateRows.add(MultiGauge.Row.of(Tags.of("group", group), lag.recordsPerSecond()));
+        });
+        partitionLag.register(partitionRows, true);
+        totalLag.register(totalRows, true);
+        consumptionRate.register(rateRows, true);
+    }
+
+    private synchronized AdminClient adminClient() {
+        if (adminClient == null) {
+            Map<String, Object> config = new HashMap<>(kafkaAdmin.getConfigurationProperties());
+            config.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+            config.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+            adminClient = AdminClient.create(config);
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (adminClient != null) {
+            adminClient.close(timeout);
+        }
+    }
+
+    public record GroupLag(long total, double recordsPerSecond, Map<String, Long> partitions,
+                           long committedOffsets, Instant updatedAt) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.integrationservice.kafka;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@code POST /actuator/deadletters/product-events-dlt} moves dead-lettered product events back. Served on
+ * {@code management.server.port} only, which is not routed from outside the cluster.
+ */
+@Component
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+    private final DeadLetterReplayer deadLetterReplayer;
+
+    public DeadLetterEndpoint(DeadLetterReplayer deadLetterReplayer) {
+        this.deadLetterReplayer = deadLetterReplayer;
+    }
+
+    @WriteOperation
+    public Map<String, Object> replay(@Selector String topic) throws InterruptedException, ExecutionException {
+        try {
+            return Map.of("topic", topic, "replayed", deadLetterReplayer.replay(topic));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.integrationservice.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Moves records from a dead-letter topic back to the topic they first failed on. Offsets of the replay group
+ * are committed after every republished record is acknowledged, so each replay only moves new dead letters.
+ */
+@Slf4j
+@Service
+public class DeadLetterReplayer {
+    private static final String DLT_SUFFIX = "-dlt";
+    private static final String GROUP_ID = "integration-dlt-replay";
+    private static final String DLT_HEADER_PREFIX = KafkaHeaders.PREFIX + "dlt-";
+    private static final String RETRY_HEADER_PREFIX = "retry_topic-";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public DeadLetterReplayer(ConsumerFactory<String, String> consumerFactory,
+                              KafkaTemplate<String, String> kafkaTemplate) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public int replay(String deadLetterTopic) throws InterruptedException, ExecutionException {
+        if (!deadLetterTopic.endsWith(DLT_SUFFIX)) {
+            throw new IllegalArgumentException("Not a dead-letter topic: " + deadLetterTopic);
+        }
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = consumerFactory.createConsumer(GROUP_ID, GROUP_ID, null, overrides)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(deadLetterTopic)) {
+                partitions.add(new TopicPartition(deadLetterTopic, info.partition()));
+            }
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> replayed = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                long end = endOffsets.get(partition);
+                consumer.assign(List.of(partition));
+                while (consumer.position(partition) < end) {
+                    for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                        if (record.offset() >= end) {
+                            break;
+                        }
+                        sends.add(kafkaTemplate.send(republish(record)));
+                    }
+                }
+                replayed.put(partition, new OffsetAndMetadata(end));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+            consumer.commitSync(replayed);
+            log.info("Moved {} records from {} back to their original topics", sends.size(), deadLetterTopic);
+            return sends.size();
+        }
+    }
+
+    /**
+     * Each retry hop appends an original-topic header, so the first one names the listener's own topic.
+     */
+    private static ProducerRecord<String, String> republish(ConsumerRecord<String, String> record) {
+        Iterator<Header> originalTopics = record.headers().headers(KafkaHeaders.DLT_ORIGINAL_TOPIC).iterator();
+        if (!originalTopics.hasNext()) {
+            throw new IllegalStateException("Record at offset " + record.offset() + " of " + record.topic()
+                    + " has no original topic");
+        }
+        ProducerRecord<String, String> republished = new ProducerRecord<>(
+                new String(originalTopics.next().value(), StandardCharsets.UTF_8), record.key(), record.value());
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(DLT_HEADER_PREFIX) && !header.key().startsWith(RETRY_HEADER_PREFIX)) {
+                republished.headers().add(header);
+            }
+        }
+        return republished;
+    }
+}
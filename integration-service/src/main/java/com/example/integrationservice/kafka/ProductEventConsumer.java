@@ -3,35 +3,78 @@ package com.example.integrationservice.kafka;
 import com.example.integrationservice.dto.MappingRequestDto;
 import com.example.integrationservice.dto.MappingResponseDto;
 import com.example.integrationservice.service.AiMappingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
+@Lazy(false)
 public class ProductEventConsumer {
+    private static final String MAPPED_TOPIC = "product-integration-mapped";
+    private static final String ERRORS_TOPIC = "product-integration-errors";
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+
     private final AiMappingService aiMappingService;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final Timer deserializeTime;
+    private final Timer aiTime;
+    private final Timer totalTime;
 
     public ProductEventConsumer(
             AiMappingService aiMappingService,
             KafkaTemplate<String, String> kafkaTemplate,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
     ) {
         this.aiMappingService = aiMappingService;
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
+        this.deserializeTime = processingTimer(meterRegistry, "deserialize");
+        this.aiTime = processingTimer(meterRegistry, "ai");
+        this.totalTime = processingTimer(meterRegistry, "total");
     }
 
+    /**
+     * Exceptions go to the retry topics (product-events-retry-0, -1, ...) and then to product-events-dlt instead
+     * of blocking the partition; messages that are not valid JSON skip the retries. Ollama failures and failed
+     * publishes of the mapped record are exceptions too.
+     */
+    @RetryableTopic(
+            attempts = "${kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${kafka.retry.initial-delay-ms:1000}",
+                    multiplierExpression = "${kafka.retry.multiplier:4}",
+                    maxDelayExpression = "${kafka.retry.max-delay-ms:60000}"
+            ),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            exclude = JsonProcessingException.class,
+            traversingCauses = "true",
+            kafkaTemplate = "kafkaTemplate"
+    )
     @KafkaListener(
             topics = "product-events",
             groupId = "ai-mapping-group",
@@ -40,33 +83,53 @@ public class ProductEventConsumer {
     public void consumeProductEvent(
             @Payload String message,
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic
-    ) {
-        try {
-            log.info("Received product event from topic: {}", topic);
-            log.debug("Event message: {}", message);
-
-            Map<String, Object> sourceData = objectMapper.readValue(message, Map.class);
-
-            MappingRequestDto mappingRequest = MappingRequestDto.builder()
-                    .sourceData(sourceData)
-                    .sourceSchema(getProductSourceSchema())
-                    .targetSchema(getIntegrationTargetSchema())
-                    .mappingRules(getDefaultMappingRules())
-                    .build();
-
-            MappingResponseDto response = aiMappingService.mapData(mappingRequest);
-
-            if ("SUCCESS".equals(response.getStatus())) {
-                log.info("Successfully mapped product data with id: {}", response.getMappingId());
-                publishMappedData(response.getMappedData());
-            } else {
-                log.error("Mapping failed: {}", response.getErrorMessage());
-                publishMappingError(response);
-            }
-
-        } catch (Exception e) {
-            log.error("Error processing product event", e);
-        }
+    ) throws JsonProcessingException {
+        long started = System.nanoTime();
+        log.info("Received product event from topic: {}", topic);
+        log.debug("Event message: {}", message);
+
+        Map<String, Object> sourceData = objectMapper.readValue(message, Map.class);
+        deserializeTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        MappingRequestDto mappingRequest = MappingRequestDto.builder()
+                .sourceData(sourceData)
+                .sourceSchema(getProductSourceSchema())
+                .targetSchema(getIntegrationTargetSchema())
+                .mappingRules(getDefaultMappingRules())
+                .build();
+
+        long mappingStarted = System.nanoTime();
+        MappingResponseDto response = aiMappingService.mapOrThrow(mappingRequest);
+        aiTime.record(System.nanoTime() - mappingStarted, TimeUnit.NANOSECONDS);
+
+        log.info("Successfully mapped product data with id: {}", response.getMappingId());
+        publish(MAPPED_TOPIC, response.getMappedData());
+        totalTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    @DltHandler
+    public void handleDeadLetter(
+            @Payload String message,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+            @Header(KafkaHeaders.OFFSET) long offset,
+            @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) byte[] error
+    ) throws JsonProcessingException {
+        String errorMessage = error == null ? null : new String(error, StandardCharsets.UTF_8);
+        log.error("Dead-lettered product event on {} at offset {}: {}", topic, offset, errorMessage);
+
+        Map<String, Object> errorData = new HashMap<>();
+        errorData.put("source_topic", topic);
+        errorData.put("source_offset", offset);
+        errorData.put("error_message", errorMessage);
+        errorData.put("status", "FAILED");
+        publish(ERRORS_TOPIC, errorData);
+    }
+
+    private static Timer processingTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("integration.kafka.consumer.processing")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     private String getProductSourceSchema() {
@@ -111,28 +174,19 @@ public class ProductEventConsumer {
                 """;
     }
 
-    private void publishMappedData(Map<String, Object> mappedData) {
-        try {
-            String message = objectMapper.writeValueAsString(mappedData);
-            kafkaTemplate.send("product-integration-mapped", message);
-            log.info("Published mapped product data to Kafka");
-        } catch (Exception e) {
-            log.error("Error publishing mapped data", e);
-        }
-    }
-
-    private void publishMappingError(MappingResponseDto response) {
+    /**
+     * Waits for the broker so a failed send fails the record instead of being lost after it is committed.
+     */
+    private void publish(String topic, Map<String, Object> data) throws JsonProcessingException {
+        String message = objectMapper.writeValueAsString(data);
         try {
-            Map<String, Object> errorData = new HashMap<>();
-            errorData.put("mapping_id", response.getMappingId());
-            errorData.put("error_message", response.getErrorMessage());
-            errorData.put("status", "FAILED");
-
-            String message = objectMapper.writeValueAsString(errorData);
-            kafkaTemplate.send("product-integration-errors", message);
-            log.info("Published mapping error to Kafka");
-        } catch (Exception e) {
-            log.error("Error publishing mapping error", e);
+            kafkaTemplate.send(topic, message).get(SEND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while publishing to " + topic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Failed to publish to " + topic, e);
         }
+        log.info("Published to {}", topic);
     }
 }
@@ -2,6 +2,7 @@ package com.example.integrationservice.service;
 
 import com.example.integrationservice.dto.MappingRequestDto;
 import com.example.integrationservice.dto.MappingResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -41,26 +42,7 @@ public class AiMappingService {
         String mappingId = UUID.randomUUID().toString();
 
         try {
-            log.info("Starting AI mapping with id: {}", mappingId);
-
-            String prompt = buildMappingPrompt(request);
-            String aiResponse = callOllamaApi(prompt);
-
-            log.info("AI mapping response: {}", aiResponse);
-
-            Map<String, Object> mappedData = parseMappedData(aiResponse, request);
-
-            long executionTime = System.currentTimeMillis() - startTime;
-
-            return MappingResponseDto.builder()
-                    .mappingId(mappingId)
-                    .status("SUCCESS")
-                    .mappedData(mappedData)
-                    .transformationDetails(aiResponse)
-                    .processedAt(LocalDateTime.now())
-                    .executionTimeMs(executionTime)
-                    .build();
-
+            return map(request, mappingId, startTime);
         } catch (Exception e) {
             long executionTime = System.currentTimeMillis() - startTime;
             log.error("Error during AI mapping", e);
@@ -75,7 +57,38 @@ public class AiMappingService {
         }
     }
 
-    private String callOllamaApi(String prompt) throws Exception {
+    /**
+     * Like {@link #mapData} but Ollama and HTTP failures propagate instead of becoming a FAILED response,
+     * so a caller that can retry (the Kafka listener) sees them.
+     */
+    public MappingResponseDto mapOrThrow(MappingRequestDto request) throws JsonProcessingException {
+        return map(request, UUID.randomUUID().toString(), System.currentTimeMillis());
+    }
+
+    private MappingResponseDto map(MappingRequestDto request, String mappingId, long startTime)
+            throws JsonProcessingException {
+        log.info("Starting AI mapping with id: {}", mappingId);
+
+        String prompt = buildMappingPrompt(request);
+        String aiResponse = callOllamaApi(prompt);
+
+        log.info("AI mapping response: {}", aiResponse);
+
+        Map<String, Object> mappedData = parseMappedData(aiResponse, request);
+
+        long executionTime = System.currentTimeMillis() - startTime;
+
+        return MappingResponseDto.builder()
+                .mappingId(mappingId)
+                .status("SUCCESS")
+                .mappedData(mappedData)
+                .transformationDetails(aiResponse)
+                .processedAt(LocalDateTime.now())
+                .executionTimeMs(executionTime)
+                .build();
+    }
+
+    private String callOllamaApi(String prompt) {
         String url = ollamaHost + "/api/generate";
 
         Map<String, Object> requestBody = new HashMap<>();
@@ -99,7 +112,7 @@ public class AiMappingService {
         throw new RuntimeException("Invalid response from Ollama API");
     }
 
-    private String buildMappingPrompt(MappingRequestDto request) throws Exception {
+    private String buildMappingPrompt(MappingRequestDto request) throws JsonProcessingException {
         return String.format(
                 "You are a data mapping expert. Map the following source data to the target schema.\n\n" +
                 "SOURCE SCHEMA:\n%s\n\n" +
@@ -0,0 +1,71 @@
+package com.example.integrationservice.kafka;
+
+import com.example.integrationservice.dto.MappingRequestDto;
+import com.example.integrationservice.dto.MappingResponseDto;
+import com.example.integrationservice.service.AiMappingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProductEventConsumerTest {
+
+    private static final String EVENT = "{\"id\":1,\"name\":\"Apple\"}";
+
+    private AiMappingService aiMappingService;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private ProductEventConsumer consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        aiMappingService = mock(AiMappingService.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        consumer = new ProductEventConsumer(aiMappingService, kafkaTemplate, new ObjectMapper(),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testMappingFailurePropagatesToTheRetryTopics() throws Exception {
+        when(aiMappingService.mapOrThrow(any(MappingRequestDto.class)))
+                .thenThrow(new ResourceAccessException("Ollama is down"));
+
+        assertThrows(ResourceAccessException.class, () -> consumer.consumeProductEvent(EVENT, "product-events"));
+        verify(kafkaTemplate, never()).send(anyString(), anyString());
+    }
+
+    @Test
+    void testPublishFailurePropagatesToTheRetryTopics() throws Exception {
+        when(aiMappingService.mapOrThrow(any(MappingRequestDto.class))).thenReturn(MappingResponseDto.builder()
+                .mappingId("m-1")
+                .status("SUCCESS")
+                .mappedData(Map.of("product_name", "Apple"))
+                .build());
+        when(kafkaTemplate.send(eq("product-integration-mapped"), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        assertThrows(KafkaException.class, () -> consumer.consumeProductEvent(EVENT, "product-events"));
+    }
+
+    @Test
+    void testDeadLetterIsPublishedAsMappingError() throws Exception {
+        when(kafkaTemplate.send(eq("product-integration-errors"), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        consumer.handleDeadLetter(EVENT, "product-events-dlt", 7L, "Ollama is down".getBytes());
+
+        verify(kafkaTemplate).send(eq("product-integration-errors"), contains("Ollama is down"));
+    }
+}
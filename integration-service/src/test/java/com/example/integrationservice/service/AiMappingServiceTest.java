@@ -0,0 +1,53 @@
+package com.example.integrationservice.service;
+
+import com.example.integrationservice.dto.MappingRequestDto;
+import com.example.integrationservice.dto.MappingResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AiMappingServiceTest {
+
+    private RestTemplate restTemplate;
+    private AiMappingService aiMappingService;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        aiMappingService = new AiMappingService(new ObjectMapper(), restTemplate, "http://ollama:11434", "mistral");
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+    }
+
+    @Test
+    void testMapDataReportsFailure() {
+        MappingResponseDto response = aiMappingService.mapData(request());
+
+        assertEquals("FAILED", response.getStatus());
+        assertEquals("Connection refused", response.getErrorMessage());
+    }
+
+    @Test
+    void testMapOrThrowPropagatesFailure() {
+        assertThrows(ResourceAccessException.class, () -> aiMappingService.mapOrThrow(request()));
+    }
+
+    private MappingRequestDto request() {
+        return MappingRequestDto.builder()
+                .sourceData(Map.of("name", "Apple"))
+                .sourceSchema("{}")
+                .targetSchema("{}")
+                .mappingRules("")
+                .build();
+    }
+}
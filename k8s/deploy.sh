@@ -36,6 +36,10 @@ echo ""
 echo "📋 Resources deployed:"
 kubectl get all -n product-service
 
+echo ""
+echo "📈 The HPA scales on product_work_pressure, which needs prometheus-adapter with k8s/prometheus-adapter-rules.yaml."
+echo "   Until then it falls back to CPU and memory."
+
 echo ""
 echo "🔗 Port forwarding to access the application locally:"
 echo "kubectl port-forward -n product-service svc/product-service 8080:8080"
@@ -0,0 +1,136 @@
+package com.example.productservice.concurrency;
+
+import com.example.productservice.constant.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Gradient-style adaptive concurrency limit. Latencies are averaged per window; comparing that short-term
+ * average with a slow moving long-term one tells whether requests are queueing (short above long), and the
+ * limit shrinks by that ratio. Otherwise it grows by roughly its square root while the limit is actually
+ * being used. Requests over the limit are rejected immediately rather than queued for a connection.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_RTT_WEIGHT = 0.02;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder rttCount = new LongAdder();
+    private final AtomicLong nextUpdateNanos;
+    private volatile double limit;
+    private volatile double longRtt;
+    private final Counter rejected;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(@Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+                                      @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                                      @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+                                      @Value("${app.concurrency-limit.tolerance:1.5}") double tolerance,
+                                      @Value("${app.concurrency-limit.window:PT0.1S}") Duration window,
+                                      MeterRegistry meterRegistry) {
+        this(initialLimit, minLimit, maxLimit, tolerance, window, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, Duration window,
+                               MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.nextUpdateNanos = new AtomicLong(nanoClock.getAsLong() + windowNanos);
+        this.rejected = Counter.builder(AppConstants.Metrics.CONCURRENCY_REJECTED).register(meterRegistry);
+        Gauge.builder(AppConstants.Metrics.CONCURRENCY_LIMIT, this, AdaptiveConcurrencyLimiter::getLimit)
+            .register(meterRegistry);
+        Gauge.builder(AppConstants.Metrics.CONCURRENCY_IN_FLIGHT, inFlight, AtomicInteger::get)
+            .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a request admitted by {@link #tryAcquire()}. Failed requests should pass a negative latency: they
+     * free their slot but say nothing about how loaded the database is.
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (latencyNanos >= 0) {
+            rttSum.add(latencyNanos);
+            rttCount.increment();
+        }
+        long now = nanoClock.getAsLong();
+        long due = nextUpdateNanos.get();
+        if (now - due >= 0 && nextUpdateNanos.compareAndSet(due, now + windowNanos)) {
+            updateLimit();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void updateLimit() {
+        long count = rttCount.sumThenReset();
+        long sum = rttSum.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (count == 0) {
+            return;
+        }
+        double shortRtt = (double) sum / count;
+        double previousLongRtt = longRtt;
+        // The baseline rises slowly and falls quickly, so sustained queueing is not mistaken for the norm
+        double weight = shortRtt > previousLongRtt ? LONG_RTT_WEIGHT : LONG_RTT_WEIGHT * 10;
+        double currentLongRtt = previousLongRtt == 0 ? shortRtt
+            : previousLongRtt * (1 - weight) + shortRtt * weight;
+        // After a sustained latency drop the long average lags far behind; pull it down so growth resumes
+        if (currentLongRtt / shortRtt > 2) {
+            currentLongRtt *= 0.9;
+        }
+        longRtt = currentLongRtt;
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * currentLongRtt / shortRtt));
+        // Only grow a limit that was actually reached; an idle service says nothing about capacity
+        double headroom = peak >= current / 2 ? Math.sqrt(current) : 0;
+        double target = current * gradient + headroom;
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.productservice.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose concurrent identical calls (same tenant, method and arguments) may share a
+ * single execution. The result is handed to every waiting caller, so it must not be mutated, and it must never
+ * be a JPA entity: entities belong to the persistence context of the thread that loaded them.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
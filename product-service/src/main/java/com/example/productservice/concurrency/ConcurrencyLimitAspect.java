@@ -0,0 +1,49 @@
+package com.example.productservice.concurrency;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.exception.ServiceOverloadedException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Applies the adaptive limit to {@link Sheddable} reads made while serving an HTTP request. Writes, Kafka and
+ * scheduled work are never shed. Ordered inside single-flight, so only the caller that actually queries
+ * takes a slot, and outside the transaction, so a shed request never takes a connection.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitAspect {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitAspect(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Around("@annotation(com.example.productservice.concurrency.Sheddable)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return joinPoint.proceed();
+        }
+        if (!limiter.tryAcquire()) {
+            throw new ServiceOverloadedException(AppConstants.Validation.SERVICE_OVERLOADED);
+        }
+        long start = System.nanoTime();
+        long latency = -1;
+        try {
+            Object result = joinPoint.proceed();
+            latency = System.nanoTime() - start;
+            return result;
+        } finally {
+            limiter.release(latency);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.productservice.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read whose HTTP calls may be rejected with 503 when the adaptive concurrency limit is reached. Only
+ * reads qualify: a client retries them safely, while a shed write or stock change would fail a business
+ * operation just to protect latency.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sheddable {
+}
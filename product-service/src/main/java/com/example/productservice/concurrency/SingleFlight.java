@@ -0,0 +1,70 @@
+package com.example.productservice.concurrency;
+
+import com.example.productservice.constant.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses concurrent calls with the same key into one execution whose result, or exception, every caller
+ * receives. Only in-flight calls are shared; nothing is kept once the call completes.
+ */
+@Component
+public class SingleFlight {
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder(AppConstants.Metrics.SINGLE_FLIGHT_CALLS)
+            .tag(AppConstants.Metrics.TAG_ROLE, AppConstants.Metrics.ROLE_LEADER)
+            .register(meterRegistry);
+        this.followers = Counter.builder(AppConstants.Metrics.SINGLE_FLIGHT_CALLS)
+            .tag(AppConstants.Metrics.TAG_ROLE, AppConstants.Metrics.ROLE_FOLLOWER)
+            .register(meterRegistry);
+    }
+
+    public Object execute(Object key, Call call) throws Throwable {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            followers.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try {
+            Object result = call.call();
+            flight.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> flight) throws Throwable {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        Object call() throws Throwable;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.productservice.concurrency;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductFilterDTO;
+import com.example.productservice.security.TenantProvider;
+import com.example.productservice.service.CatalogVersionTracker;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Coalesces {@link Coalesced} calls per tenant. Runs outside the transaction interceptor so callers waiting on
+ * another caller's query hold no connection. The key includes the tenant's catalog version, so a request that
+ * starts after a committed write never joins a query that began before it.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+@ConditionalOnProperty(name = "app.single-flight.enabled", havingValue = "true", matchIfMissing = true)
+public class SingleFlightAspect {
+
+    private final SingleFlight singleFlight;
+    private final CatalogVersionTracker catalogVersionTracker;
+
+    public SingleFlightAspect(SingleFlight singleFlight, CatalogVersionTracker catalogVersionTracker) {
+        this.singleFlight = singleFlight;
+        this.catalogVersionTracker = catalogVersionTracker;
+    }
+
+    @Around("@annotation(com.example.productservice.concurrency.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        String tenantId = TenantProvider.getTenantIdOrNull();
+        if (tenantId == null) {
+            return joinPoint.proceed();
+        }
+        FlightKey key = new FlightKey(tenantId, catalogVersionTracker.currentVersion(tenantId),
+            joinPoint.getSignature().toLongString(),
+            Arrays.stream(joinPoint.getArgs()).map(SingleFlightAspect::normalize).toList());
+        return singleFlight.execute(key, joinPoint::proceed);
+    }
+
+    /**
+     * Filters that select the same rows in the same order share a key: search is matched case-insensitively,
+     * blank text filters are ignored and the count mode is decided by the caller.
+     */
+    static Object normalize(Object arg) {
+        if (!(arg instanceof ProductFilterDTO filter)) {
+            return arg;
+        }
+        return ProductFilterDTO.builder()
+            .search(blankToNull(filter.getSearch()) == null ? null : filter.getSearch().toLowerCase(Locale.ROOT))
+            .category(blankToNull(filter.getCategory()))
+            .minPrice(filter.getMinPrice())
+            .maxPrice(filter.getMaxPrice())
+            .minStock(filter.getMinStock())
+            .maxStock(filter.getMaxStock())
+            .sortBy(filter.getSortBy() != null ? filter.getSortBy() : AppConstants.Search.SORT_BY_NAME)
+            .sortOrder(AppConstants.Search.SORT_DESC.equalsIgnoreCase(filter.getSortOrder())
+                ? AppConstants.Search.SORT_DESC : AppConstants.Search.SORT_ASC)
+            .page(filter.getPage())
+            .size(filter.getSize())
+            .countMode(null)
+            .build();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private record FlightKey(String tenantId, long catalogVersion, String method, List<Object> args) {
+    }
+}
@@ -21,6 +21,20 @@ public final class AppConstants {
         public static final String TOPIC_PRODUCTS_LEGACY = "products";
         public static final String GROUP_ID_COMBINED = "product-combined-group";
         public static final String GROUP_ID_DEFAULT = "product-group";
+        public static final String GROUP_ID_CATALOG_VERSION = "product-catalog-version";
+        public static final String GROUP_ID_REPLAY = "product-replay";
+        public static final String GROUP_ID_DLT_REPLAY = "product-dlt-replay";
+        public static final String DLT_SUFFIX = "-dlt";
+        public static final String PRODUCER_PROFILE_DEFAULT = "default";
+        public static final String PRODUCER_PROFILE_THROUGHPUT = "throughput";
+        public static final String HEADER_SCHEMA = "product-event-schema";
+        public static final String HEADER_EVENT_ID = "product-event-id";
+        public static final String HEADER_SOURCE = "product-event-source";
+        public static final String SOURCE_PRODUCT_SERVICE = "product-service";
+        public static final String SCHEMA_JSON_V1 = "product.v1+json";
+        public static final String SCHEMA_SMILE_V1 = "product.v1+smile";
+        public static final String ENCODING_JSON = "json";
+        public static final String ENCODING_SMILE = "smile";
 
         private Kafka() {
             throw new AssertionError("Cannot instantiate utility class");
@@ -31,6 +45,12 @@ public final class AppConstants {
         public static final String BASE_PATH = "/api/products";
         public static final String PATH_BY_ID = "/{id:[0-9]+}";
         public static final String PATH_HISTORY = "/{id:[0-9]+}/history";
+        public static final String PATH_AS_OF = "/{id:[0-9]+}/as-of";
+        public static final String PATH_CHANGES = "/changes";
+        public static final String PATH_STREAM = "/stream";
+        public static final String PATH_STOCK_INCREMENT = "/{id:[0-9]+}/stock/increment";
+        public static final String PATH_STOCK_DECREMENT = "/{id:[0-9]+}/stock/decrement";
+        public static final String PATH_STOCK_RESERVE = "/{id:[0-9]+}/stock/reserve";
 
         private API() {
             throw new AssertionError("Cannot instantiate utility class");
@@ -47,6 +67,11 @@ public final class AppConstants {
         public static final String ENDPOINT_NOT_FOUND = "ENDPOINT_NOT_FOUND";
         public static final String INVALID_ARGUMENT = "INVALID_ARGUMENT";
         public static final String INTERNAL_SERVER_ERROR = "INTERNAL_SERVER_ERROR";
+        public static final String VERSION_CONFLICT = "VERSION_CONFLICT";
+        public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+        public static final String RATE_LIMITED = "RATE_LIMITED";
+        public static final String CONCURRENCY_LIMITED = "CONCURRENCY_LIMITED";
+        public static final String SERVICE_OVERLOADED = "SERVICE_OVERLOADED";
 
         private ErrorCode() {
             throw new AssertionError("Cannot instantiate utility class");
@@ -61,6 +86,13 @@ public final class AppConstants {
         public static final String PRODUCT_PRICE_POSITIVE = "Price must be greater than 0";
         public static final String STOCK_QUANTITY_REQUIRED = "Stock quantity is required";
         public static final String STOCK_QUANTITY_NON_NEGATIVE = "Stock quantity cannot be negative";
+        public static final String PRODUCT_VERSION_CONFLICT = "Product %d was modified concurrently; reload it and retry";
+        public static final String QUANTITY_REQUIRED = "Quantity is required";
+        public static final String QUANTITY_POSITIVE = "Quantity must be greater than 0";
+        public static final String INSUFFICIENT_STOCK = "Insufficient stock for product %d";
+        public static final String RATE_LIMITED = "Request rate limit exceeded for tenant; retry later";
+        public static final String CONCURRENCY_LIMITED = "Too many concurrent requests for tenant; retry later";
+        public static final String SERVICE_OVERLOADED = "Service is at capacity; retry later";
 
         private Validation() {
             throw new AssertionError("Cannot instantiate utility class");
@@ -72,20 +104,166 @@ public final class AppConstants {
         public static final String HANDLING_CREATED = "Handling CREATED event for product id={}";
         public static final String HANDLING_UPDATED = "Handling UPDATED event for product id={}";
         public static final String HANDLING_DELETED = "Handling DELETED event for product id={}";
-        public static final String MESSAGE_SENT = "Message sent to topic '{}': {}";
-        public static final String MESSAGE_SEND_FAILED = "Failed to send message to topic '{}': {}";
+        public static final String MESSAGE_SENT = "Message sent to topic '{}': product id={}, schema={}, {} bytes";
+        public static final String MESSAGE_SEND_FAILED = "Failed to send message to topic '{}': product id={}";
         public static final String HISTORY_SAVED = "History saved: id={}";
         public static final String ERROR_KAFKA_DESERIALIZE = "Error deserializing Kafka message from topic '{}'";
-        public static final String ERROR_PROCESSING_KAFKA = "Error processing Kafka message";
-        public static final String ERROR_SERIALIZING = "Error serializing product to JSON";
+        public static final String KAFKA_UPDATE_CONFLICT_RETRY = "Version conflict applying event for product id={}, retry {}/{}";
+        public static final String KAFKA_UPDATE_CONFLICT_GAVE_UP = "Handing event for product id={} to the retry topics after {} version conflicts";
+        public static final String KAFKA_DEAD_LETTER = "Dead-lettered event on '{}' at offset {} ({} bytes): {}";
+        public static final String PARTITION_LOOKUP_FAILED = "Could not read partitions of '{}' ({}), attempt {}/{}";
+        public static final String KAFKA_LAG_FAILED = "Could not read lag of consumer group '{}': {}";
+        public static final String DLT_REPLAYED = "Moved {} records from '{}' back to their original topics";
+        public static final String CREATED_EVENT_SKIPPED = "Skipping CREATED event for product id={}: the product already exists";
+        public static final String STALE_EVENT_SKIPPED = "Skipping stale UPDATED event for product id={}: event version {} < current {}";
+        public static final String ERROR_SERIALIZING = "Error serializing product event";
         public static final String KAFKA_MESSAGE_RECEIVED = "Kafka message received from topic '{}': {}";
+        public static final String KAFKA_DUPLICATE_SKIPPED = "Skipping duplicate event at {}-{}@{}";
         public static final String UNKNOWN_EVENT_TYPE = "Unknown event type: {}";
+        public static final String COUNT_ESTIMATE_FAILED = "Could not estimate search count for tenant '{}'";
+        public static final String STOCK_FLUSH_FAILED = "Failed to settle stock lease of {} units for product id={}; keeping it for the next flush";
+        public static final String STOCK_DROPPED = "Dropping {} unspent leased units and {} buffered increments of deleted product id={}";
+        public static final String STOCK_SHORTFALL = "Product id={} spent {} leased units against a stock of {}; settling it at zero";
+        public static final String STOCK_LEASES_WRITTEN_OFF = "Wrote off {} expired stock leases as spent";
+        public static final String HISTORY_RETENTION_DONE = "History retention for tenant '{}': {} rows archived, {} rows compacted";
+        public static final String HISTORY_RETENTION_FAILED = "History retention failed for tenant '{}'";
+        public static final String HISTORY_RETENTION_SKIPPED = "History retention is running on another instance; skipping";
+        public static final String REPLAY_STARTED = "Replaying topic '{}' from {} into staging: {} partitions, {} readers";
+        public static final String REPLAY_SKIPPED_EVENT = "Replay skipping undecodable event at {}@{}";
+        public static final String REPLAY_FINISHED = "Replay of '{}' finished: {}";
+        public static final String REPLAY_TOPIC_INCOMPLETE = "Refusing to replace all products from '%s': it must "
+            + "start at offset 0 on every partition and use cleanup.policy=compact or retention.ms=-1 "
+            + "(cleanup.policy=%s, retention.ms=%s)";
+        public static final String REPLAY_PROMOTED = "Promoted staging table: {} products updated, {} inserted, {} deleted";
 
         private Logger() {
             throw new AssertionError("Cannot instantiate utility class");
         }
     }
 
+    public static final class Metrics {
+        public static final String KAFKA_SEND_LATENCY = "product.kafka.send.latency";
+        public static final String KAFKA_SEND_PAYLOAD_SIZE = "product.kafka.send.payload.size";
+        public static final String API_LATENCY = "product.api.latency";
+        public static final String SERVICE_LATENCY = "product.service.latency";
+        public static final String TAG_TOPIC = "topic";
+        public static final String TAG_ENDPOINT = "endpoint";
+        public static final String TAG_METHOD = "method";
+        public static final String TAG_TENANT = "tenant";
+        public static final String TAG_RESULT = "result";
+        public static final String RESULT_SUCCESS = "success";
+        public static final String RESULT_FAILURE = "failure";
+        public static final String TENANT_OTHER = "other";
+        public static final String TENANT_NONE = "none";
+        public static final String DATASOURCE_ROUTE = "product.datasource.route";
+        public static final String TAG_POOL = "pool";
+        public static final String STREAM_SUBSCRIBERS = "product.stream.subscribers";
+        public static final String STREAM_DROPPED_EVENTS = "product.stream.dropped.events";
+        public static final String STOCK_RESERVATIONS = "product.stock.reservations";
+        public static final String STOCK_LEASES = "product.stock.leases";
+        public static final String TAG_SOURCE = "source";
+        public static final String SOURCE_LOCAL = "local";
+        public static final String SOURCE_LEASE = "lease";
+        public static final String SINGLE_FLIGHT_CALLS = "product.singleflight.calls";
+        public static final String TAG_ROLE = "role";
+        public static final String ROLE_LEADER = "leader";
+        public static final String ROLE_FOLLOWER = "follower";
+        public static final String TENANT_QUOTA_REQUESTS = "product.tenant.quota.requests";
+        public static final String RESULT_ADMITTED = "admitted";
+        public static final String RESULT_RATE_LIMITED = "rate_limited";
+        public static final String RESULT_CONCURRENCY_LIMITED = "concurrency_limited";
+        public static final String CONCURRENCY_LIMIT = "product.concurrency.limit";
+        public static final String CONCURRENCY_IN_FLIGHT = "product.concurrency.inflight";
+        public static final String CONCURRENCY_REJECTED = "product.concurrency.rejected";
+        public static final String HISTORY_RETENTION_ROWS = "product.history.retention.rows";
+        public static final String TAG_ACTION = "action";
+        public static final String ACTION_ARCHIVED = "archived";
+        public static final String ACTION_COMPACTED = "compacted";
+        public static final String KAFKA_CONSUMER_DUPLICATES = "product.kafka.consumer.duplicates";
+        public static final String TAG_REASON = "reason";
+        public static final String REASON_OFFSET = "offset";
+        public static final String REASON_EVENT_ID = "event_id";
+        public static final String KAFKA_CONSUMER_LAG = "product.kafka.consumer.lag";
+        public static final String KAFKA_CONSUMER_LAG_TOTAL = "product.kafka.consumer.lag.total";
+        public static final String KAFKA_CONSUMER_RATE = "product.kafka.consumer.rate";
+        public static final String KAFKA_CONSUMER_PROCESSING = "product.kafka.consumer.processing";
+        public static final String TAG_GROUP = "group";
+        public static final String TAG_PARTITION = "partition";
+        public static final String TAG_PHASE = "phase";
+        public static final String PHASE_DESERIALIZE = "deserialize";
+        public static final String PHASE_DB = "db";
+        public static final String PHASE_TOTAL = "total";
+        public static final String WORK_PRESSURE = "product.work.pressure";
+        public static final String WORK_PRESSURE_COMPONENT = "product.work.pressure.component";
+        public static final String SOURCE_KAFKA_LAG = "kafka_lag";
+        public static final String SOURCE_DB_POOL = "db_pool";
+        public static final String SOURCE_REQUESTS = "requests";
+        public static final String HIKARI_PENDING = "hikaricp.connections.pending";
+        public static final String HIKARI_MAX = "hikaricp.connections.max";
+
+        private Metrics() {
+            throw new AssertionError("Cannot instantiate utility class");
+        }
+    }
+
+    public static final class Cache {
+        public static final String PRODUCT_REGION = "product";
+        public static final String CURRENT_PRODUCTS_QUERY_REGION = "product-current-query";
+        // Query space of the single-row stock updates; it names no entity table, so Hibernate evicts nothing
+        public static final String STOCK_QUERY_SPACE = "product_stock";
+
+        private Cache() {
+            throw new AssertionError("Cannot instantiate utility class");
+        }
+    }
+
+    public static final class DataSource {
+        public static final String PRIMARY = "primary";
+        public static final String REPLICA = "replica";
+
+        private DataSource() {
+            throw new AssertionError("Cannot instantiate utility class");
+        }
+    }
+
+    public static final class Sync {
+        public static final String PARAM_SINCE = "since";
+        public static final String PARAM_SIZE = "size";
+        public static final int DEFAULT_SIZE = 100;
+        public static final int MAX_SIZE = 500;
+        public static final String INVALID_WATERMARK = "Invalid sync watermark";
+        public static final String INVALID_SIZE = "Sync page size must be between 1 and " + MAX_SIZE;
+
+        private Sync() {
+            throw new AssertionError("Cannot instantiate utility class");
+        }
+    }
+
+    public static final class History {
+        public static final String PARAM_BEFORE = "before";
+        public static final String PARAM_SIZE = "size";
+        public static final String PARAM_AT = "at";
+        public static final int DEFAULT_SIZE = 50;
+        public static final int MAX_SIZE = 500;
+        public static final String INVALID_CURSOR = "Invalid history cursor";
+        public static final String INVALID_SIZE = "History page size must be between 1 and " + MAX_SIZE;
+
+        private History() {
+            throw new AssertionError("Cannot instantiate utility class");
+        }
+    }
+
+    public static final class Stream {
+        public static final String EVENT_RESYNC = "RESYNC";
+        public static final String RESYNC_REASON_OVERFLOW = "buffer-overflow";
+        public static final String COMMENT_CONNECTED = "connected";
+        public static final String COMMENT_HEARTBEAT = "heartbeat";
+
+        private Stream() {
+            throw new AssertionError("Cannot instantiate utility class");
+        }
+    }
+
     public static final class Search {
         public static final String PARAM_SEARCH = "search";
         public static final String PARAM_CATEGORY = "category";
@@ -97,6 +275,7 @@ public final class AppConstants {
         public static final String PARAM_SORT_ORDER = "order";
         public static final String PARAM_PAGE = "page";
         public static final String PARAM_SIZE = "size";
+        public static final String PARAM_COUNT_MODE = "countMode";
 
         public static final String SORT_BY_NAME = "name";
         public static final String SORT_BY_PRICE = "price";
@@ -106,6 +285,10 @@ public final class AppConstants {
         public static final String SORT_ASC = "asc";
         public static final String SORT_DESC = "desc";
 
+        public static final String COUNT_MODE_EXACT = "exact";
+        public static final String COUNT_MODE_ESTIMATED = "estimated";
+        public static final String COUNT_MODE_NONE = "none";
+
         public static final int DEFAULT_PAGE = 0;
         public static final int DEFAULT_SIZE = 20;
         public static final int MAX_SIZE = 100;
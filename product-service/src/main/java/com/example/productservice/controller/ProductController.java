@@ -2,20 +2,35 @@ package com.example.productservice.controller;
 
 import com.example.productservice.constant.AppConstants;
 import com.example.productservice.dto.PageResponseDTO;
+import com.example.productservice.dto.ProductChangesResponseDTO;
 import com.example.productservice.dto.ProductFilterDTO;
 import com.example.productservice.dto.ProductRequestDTO;
 import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.dto.StockAdjustmentDTO;
 import com.example.productservice.mapper.PageMapper;
 import com.example.productservice.mapper.ProductMapper;
-import com.example.productservice.model.Product;
+import com.example.productservice.security.TenantProvider;
+import com.example.productservice.service.CatalogVersionTracker;
 import com.example.productservice.service.ProductService;
+import com.example.productservice.service.SyncWatermark;
+import com.example.productservice.stock.StockReservationService;
+import com.example.productservice.stream.ProductStreamRegistry;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 @RestController
 @RequestMapping(AppConstants.API.BASE_PATH)
@@ -23,44 +38,94 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductMapper productMapper;
+    private final ProductStreamRegistry productStreamRegistry;
+    private final StockReservationService stockReservationService;
+    private final CatalogVersionTracker catalogVersionTracker;
 
-    public ProductController(ProductService productService, ProductMapper productMapper) {
+    public ProductController(ProductService productService, ProductMapper productMapper,
+                             ProductStreamRegistry productStreamRegistry,
+                             StockReservationService stockReservationService,
+                             CatalogVersionTracker catalogVersionTracker) {
         this.productService = productService;
         this.productMapper = productMapper;
+        this.productStreamRegistry = productStreamRegistry;
+        this.stockReservationService = stockReservationService;
+        this.catalogVersionTracker = catalogVersionTracker;
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductResponseDTO>> getAllProducts() {
-        List<ProductResponseDTO> products = productService.getAllProducts()
-            .stream()
-            .map(productMapper::productToProductResponseDTO)
-            .toList();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductResponseDTO>> getAllProducts(WebRequest webRequest) {
+        String etag = catalogVersionTracker.etag(TenantProvider.getCurrentTenantId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(productService.getAllProducts());
     }
 
     @GetMapping(AppConstants.API.PATH_BY_ID)
-    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
-        var product = productService.getProductById(id);
-        return ResponseEntity.ok(productMapper.productToProductResponseDTO(product));
+    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = catalogVersionTracker.etag(TenantProvider.getCurrentTenantId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(productService.getProductResponseById(id));
     }
 
     @GetMapping(AppConstants.API.PATH_HISTORY)
-    public ResponseEntity<List<ProductResponseDTO>> getProductHistory(@PathVariable Long id) {
-        List<ProductResponseDTO> history = productService.getProductHistory(id)
-            .stream()
-            .map(productMapper::productToProductResponseDTO)
-            .toList();
-        return ResponseEntity.ok(history);
+    public ResponseEntity<List<ProductResponseDTO>> getProductHistory(
+            @PathVariable Long id,
+            @RequestParam(name = AppConstants.History.PARAM_BEFORE, required = false) String before,
+            @RequestParam(name = AppConstants.History.PARAM_SIZE,
+                          defaultValue = "" + AppConstants.History.DEFAULT_SIZE) int size) {
+        Slice<ProductResponseDTO> history = productService.getProductHistory(id, before, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (history.hasNext()) {
+            ProductResponseDTO last = history.getContent().get(history.getNumberOfElements() - 1);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam(AppConstants.History.PARAM_BEFORE,
+                    new SyncWatermark(last.getEventTime(), last.getId()).encode())
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(history.getContent());
+    }
+
+    @GetMapping(AppConstants.API.PATH_AS_OF)
+    public ResponseEntity<ProductResponseDTO> getProductAsOf(
+            @PathVariable Long id,
+            @RequestParam(AppConstants.History.PARAM_AT) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime at) {
+        return ResponseEntity.ok(productService.getProductAsOf(id, at));
     }
 
     @GetMapping("/search")
     public ResponseEntity<PageResponseDTO<ProductResponseDTO>> searchProducts(
-            @Valid ProductFilterDTO filter) {
-        Page<Product> products = productService.searchAndFilterProducts(filter);
-        PageResponseDTO<ProductResponseDTO> response = PageMapper.toPageResponseDTO(
-            products.map(productMapper::productToProductResponseDTO)
-        );
-        return ResponseEntity.ok(response);
+            @Valid ProductFilterDTO filter, WebRequest webRequest) {
+        String etag = catalogVersionTracker.etag(TenantProvider.getCurrentTenantId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        if (!AppConstants.Search.COUNT_MODE_EXACT.equals(filter.getCountMode())) {
+            Slice<ProductResponseDTO> slice = productService.searchProductsWithoutCount(filter);
+            LongSupplier estimatedTotal = AppConstants.Search.COUNT_MODE_ESTIMATED.equals(filter.getCountMode())
+                ? () -> productService.estimateSearchTotal(filter) : null;
+            return ResponseEntity.ok().eTag(etag).body(PageMapper.toSliceResponseDTO(slice, estimatedTotal));
+        }
+        Page<ProductResponseDTO> products = productService.searchAndFilterProducts(filter);
+        return ResponseEntity.ok().eTag(etag).body(PageMapper.toPageResponseDTO(products));
+    }
+
+    @GetMapping(AppConstants.API.PATH_CHANGES)
+    public ResponseEntity<ProductChangesResponseDTO> getProductChanges(
+            @RequestParam(name = AppConstants.Sync.PARAM_SINCE, required = false) String since,
+            @RequestParam(name = AppConstants.Sync.PARAM_SIZE,
+                          defaultValue = "" + AppConstants.Sync.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(productService.getProductChanges(since, size));
+    }
+
+    @GetMapping(value = AppConstants.API.PATH_STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductChanges() {
+        return productStreamRegistry.subscribe(TenantProvider.getCurrentTenantId());
     }
 
     @PostMapping
@@ -84,4 +149,25 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping(AppConstants.API.PATH_STOCK_INCREMENT)
+    public ResponseEntity<Void> incrementStock(@PathVariable Long id,
+                                               @Valid @RequestBody StockAdjustmentDTO adjustment) {
+        stockReservationService.increment(id, adjustment.getQuantity());
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping(AppConstants.API.PATH_STOCK_DECREMENT)
+    public ResponseEntity<Void> decrementStock(@PathVariable Long id,
+                                               @Valid @RequestBody StockAdjustmentDTO adjustment) {
+        stockReservationService.decrement(id, adjustment.getQuantity());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(AppConstants.API.PATH_STOCK_RESERVE)
+    public ResponseEntity<Void> reserveStock(@PathVariable Long id,
+                                             @Valid @RequestBody StockAdjustmentDTO adjustment) {
+        stockReservationService.reserve(id, adjustment.getQuantity());
+        return ResponseEntity.noContent().build();
+    }
 }
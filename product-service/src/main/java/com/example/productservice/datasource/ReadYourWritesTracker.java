@@ -0,0 +1,40 @@
+package com.example.productservice.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each tenant last committed a write so its reads can stay on the primary until the
+ * replica has had time to catch up. A zero window disables pinning.
+ */
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(String tenantId) {
+        if (tenantId != null && windowNanos > 0) {
+            lastWriteNanos.put(tenantId, System.nanoTime());
+        }
+    }
+
+    public boolean isPinnedToPrimary(String tenantId) {
+        if (tenantId == null || windowNanos <= 0) {
+            return false;
+        }
+        Long writtenAt = lastWriteNanos.get(tenantId);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < windowNanos) {
+            return true;
+        }
+        lastWriteNanos.remove(tenantId, writtenAt);
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.productservice.datasource;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.security.TenantProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary. Tenants that committed
+ * a write within the read-your-writes window keep reading from the primary.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the read-only flag is set before a connection is chosen.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReplicaRoutingDataSource(ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.primaryRoutes = routeCounter(meterRegistry, AppConstants.DataSource.PRIMARY);
+        this.replicaRoutes = routeCounter(meterRegistry, AppConstants.DataSource.REPLICA);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String tenantId = TenantProvider.getTenantIdOrNull();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWritesTracker.isPinnedToPrimary(tenantId)) {
+            replicaRoutes.increment();
+            return AppConstants.DataSource.REPLICA;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWritesTracker.recordWrite(tenantId);
+                }
+            });
+        }
+        primaryRoutes.increment();
+        return AppConstants.DataSource.PRIMARY;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder(AppConstants.Metrics.DATASOURCE_ROUTE)
+            .tag(AppConstants.Metrics.TAG_POOL, pool)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangeDTO {
+
+    private Long productId;
+    private String changeType;
+    private LocalDateTime changedAt;
+    private ProductResponseDTO product;
+}
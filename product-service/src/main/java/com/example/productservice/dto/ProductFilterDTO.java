@@ -48,4 +48,8 @@ public class ProductFilterDTO {
     @Max(value = 100, message = "Page size must not exceed 100")
     @Builder.Default
     private Integer size = AppConstants.Search.DEFAULT_SIZE;
+
+    @Pattern(regexp = "^(exact|estimated|none)$", message = "Count mode must be one of: exact, estimated, none")
+    @Builder.Default
+    private String countMode = AppConstants.Search.COUNT_MODE_EXACT;
 }
@@ -33,4 +33,7 @@ public class ProductRequestDTO {
     @NotNull(message = AppConstants.Validation.STOCK_QUANTITY_REQUIRED)
     @PositiveOrZero(message = AppConstants.Validation.STOCK_QUANTITY_NON_NEGATIVE)
     private Integer stockQuantity;
+
+    // Version the client last read; when present, an update against a newer row is rejected with 409
+    private Long version;
 }
@@ -22,4 +22,5 @@ public class ProductResponseDTO {
     private String eventType;
     private LocalDateTime eventTime;
     private Long originalProductId;
+    private Long version;
 }
@@ -0,0 +1,20 @@
+package com.example.productservice.dto;
+
+import com.example.productservice.constant.AppConstants;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAdjustmentDTO {
+
+    @NotNull(message = AppConstants.Validation.QUANTITY_REQUIRED)
+    @Positive(message = AppConstants.Validation.QUANTITY_POSITIVE)
+    private Integer quantity;
+}
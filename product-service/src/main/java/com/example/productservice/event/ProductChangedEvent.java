@@ -0,0 +1,13 @@
+package com.example.productservice.event;
+
+import com.example.productservice.dto.ProductChangeDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    private final String tenantId;
+    private final ProductChangeDTO change;
+}
@@ -0,0 +1,15 @@
+package com.example.productservice.event;
+
+import com.example.productservice.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A product event to send to the products topic once the transaction that wrote it has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductMessageEvent {
+
+    private final Product product;
+}
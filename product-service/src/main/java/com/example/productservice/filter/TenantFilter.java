@@ -10,6 +10,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -23,10 +24,13 @@ public class TenantFilter implements Filter {
 
     private final TenantValidator tenantValidator;
     private final ObjectMapper objectMapper;
+    private final TenantQuotaLimiter tenantQuotaLimiter;
 
-    public TenantFilter(TenantValidator tenantValidator, ObjectMapper objectMapper) {
+    public TenantFilter(TenantValidator tenantValidator, ObjectMapper objectMapper,
+                        TenantQuotaLimiter tenantQuotaLimiter) {
         this.tenantValidator = tenantValidator;
         this.objectMapper = objectMapper;
+        this.tenantQuotaLimiter = tenantQuotaLimiter;
     }
 
     @Override
@@ -52,9 +56,21 @@ public class TenantFilter implements Filter {
 
         try {
             tenantValidator.validateTenantId(tenantId);
-            TenantContext.setTenantId(tenantId);
-            logger.debug("Set tenant context for tenant: {}", tenantId);
-            chain.doFilter(request, response);
+            TenantQuotaLimiter.Decision decision = tenantQuotaLimiter.tryAcquire(tenantId);
+            if (!decision.admitted()) {
+                logger.debug("Quota exceeded for tenant {}: {}", tenantId, decision.errorCode());
+                httpResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+                sendErrorResponse(httpResponse, HttpStatus.TOO_MANY_REQUESTS, decision.errorCode(),
+                        decision.message(), requestUri);
+                return;
+            }
+            try {
+                TenantContext.setTenantId(tenantId);
+                logger.debug("Set tenant context for tenant: {}", tenantId);
+                chain.doFilter(request, response);
+            } finally {
+                tenantQuotaLimiter.release(tenantId);
+            }
         } catch (IllegalArgumentException ex) {
             logger.warn("Invalid tenant ID format: {}", tenantId);
             sendErrorResponse(httpResponse, HttpStatus.BAD_REQUEST, "INVALID_TENANT_ID",
@@ -66,6 +82,7 @@ public class TenantFilter implements Filter {
 
     private boolean shouldSkipTenantValidation(String requestUri) {
         return requestUri.equals("/") ||
+               requestUri.startsWith("/actuator/") ||
                requestUri.equals("/index.html") ||
                requestUri.startsWith("/static/") ||
                requestUri.startsWith("/css/") ||
@@ -0,0 +1,177 @@
+package com.example.productservice.filter;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.metrics.TenantTagResolver;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-tenant request rate and in-flight limits of this instance. The rate limit is a token bucket kept as a
+ * single theoretical-arrival timestamp (GCRA) and the in-flight limit a counter; both are advanced with CAS, so
+ * admitting a request never takes a lock. Buckets live in a bounded cache that drops idle tenants. Counters are
+ * kept per tenant tag, which {@link TenantTagResolver} caps to the top tenants, and removed when a tenant leaves
+ * that set.
+ */
+@Component
+public class TenantQuotaLimiter {
+
+    private final TenantQuotaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TenantTagResolver tenantTagResolver;
+    private final LongSupplier nanoClock;
+    private final Cache<String, TenantQuota> quotas;
+    private final Map<String, Map<String, Counter>> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TenantQuotaLimiter(TenantQuotaProperties properties, MeterRegistry meterRegistry,
+                              TenantTagResolver tenantTagResolver) {
+        this(properties, meterRegistry, tenantTagResolver, System::nanoTime);
+    }
+
+    TenantQuotaLimiter(TenantQuotaProperties properties, MeterRegistry meterRegistry,
+                       TenantTagResolver tenantTagResolver, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.tenantTagResolver = tenantTagResolver;
+        this.nanoClock = nanoClock;
+        this.quotas = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxTenants())
+            .expireAfterAccess(properties.getIdleTimeout())
+            .ticker(nanoClock::getAsLong)
+            .build();
+        tenantTagResolver.onRankingChange(this::removeUntrackedCounters);
+    }
+
+    /**
+     * Admits the request or says how long to wait. An admitted request must be {@link #release released}.
+     */
+    public Decision tryAcquire(String tenantId) {
+        if (!properties.isEnabled()) {
+            return Decision.ADMITTED;
+        }
+        long now = nanoClock.getAsLong();
+        TenantQuota quota = quotas.get(tenantId, id -> new TenantQuota(properties.limitsFor(id), now));
+
+        if (!quota.tryEnter()) {
+            record(tenantId, AppConstants.Metrics.RESULT_CONCURRENCY_LIMITED);
+            return new Decision(false, AppConstants.ErrorCode.CONCURRENCY_LIMITED,
+                AppConstants.Validation.CONCURRENCY_LIMITED, 1);
+        }
+        long waitNanos = quota.tryTakeToken(now);
+        if (waitNanos > 0) {
+            quota.exit();
+            record(tenantId, AppConstants.Metrics.RESULT_RATE_LIMITED);
+            return new Decision(false, AppConstants.ErrorCode.RATE_LIMITED, AppConstants.Validation.RATE_LIMITED,
+                Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+        }
+        record(tenantId, AppConstants.Metrics.RESULT_ADMITTED);
+        return Decision.ADMITTED;
+    }
+
+    public void release(String tenantId) {
+        TenantQuota quota = quotas.getIfPresent(tenantId);
+        if (quota != null) {
+            quota.exit();
+        }
+    }
+
+    void removeUntrackedCounters(Set<String> trackedTenants) {
+        counters.keySet().removeIf(tenant -> {
+            if (trackedTenants.contains(tenant) || AppConstants.Metrics.TENANT_OTHER.equals(tenant)
+                    || AppConstants.Metrics.TENANT_NONE.equals(tenant)) {
+                return false;
+            }
+            meterRegistry.find(AppConstants.Metrics.TENANT_QUOTA_REQUESTS)
+                .tag(AppConstants.Metrics.TAG_TENANT, tenant)
+                .meters()
+                .forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private void record(String tenantId, String result) {
+        String tenant = tenantTagResolver.resolve(tenantId);
+        counters.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(result, r -> Counter.builder(AppConstants.Metrics.TENANT_QUOTA_REQUESTS)
+                .tag(AppConstants.Metrics.TAG_TENANT, tenant)
+                .tag(AppConstants.Metrics.TAG_RESULT, r)
+                .register(meterRegistry))
+            .increment();
+    }
+
+    public record Decision(boolean admitted, String errorCode, String message, long retryAfterSeconds) {
+        static final Decision ADMITTED = new Decision(true, null, null, 0);
+    }
+
+    static final class TenantQuota {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final int maxConcurrent;
+        private final AtomicLong theoreticalArrival;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        TenantQuota(TenantQuotaProperties.Limits limits, long now) {
+            this.intervalNanos = limits.getRequestsPerSecond() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / limits.getRequestsPerSecond()) : 0;
+            this.toleranceNanos = intervalNanos * (Math.max(1, limits.getBurst()) - 1);
+            this.maxConcurrent = limits.getMaxConcurrent();
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        /**
+         * Returns 0 when a token was taken, otherwise the nanoseconds until one is available.
+         */
+        long tryTakeToken(long now) {
+            if (intervalNanos == 0) {
+                return 0;
+            }
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long start = arrival - now > 0 ? arrival : now;
+                long waitNanos = start - toleranceNanos - now;
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean tryEnter() {
+            if (maxConcurrent <= 0) {
+                return true;
+            }
+            while (true) {
+                int current = inFlight.get();
+                if (current >= maxConcurrent) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Never goes below zero: a request that outlived its tenant's idle timeout releases into a fresh bucket.
+         */
+        void exit() {
+            if (maxConcurrent > 0) {
+                inFlight.updateAndGet(count -> count > 0 ? count - 1 : 0);
+            }
+        }
+    }
+}
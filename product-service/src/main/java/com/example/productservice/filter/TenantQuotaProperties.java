@@ -0,0 +1,43 @@
+package com.example.productservice.filter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request quotas per tenant. Tenants listed under {@code app.tenant-quota.tenants.<id>} get their own limits;
+ * everyone else shares the shape of {@code defaults} (each tenant still has its own bucket). A limit of 0 or
+ * less disables that check.
+ * <p>
+ * Limits are enforced per instance, so a tenant spread over N replicas gets up to N times these numbers. Buckets
+ * of tenants idle for {@code idle-timeout} are dropped, and at most {@code max-tenants} are kept.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.tenant-quota")
+public class TenantQuotaProperties {
+
+    private boolean enabled = true;
+    private long maxTenants = 10_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Limits defaults = new Limits();
+    private Map<String, Limits> tenants = new HashMap<>();
+
+    public Limits limitsFor(String tenantId) {
+        return tenants.getOrDefault(tenantId, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Limits {
+        private double requestsPerSecond = 200;
+        private int burst = 400;
+        private int maxConcurrent = 50;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.productservice.history;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * History rows moved out of the product table by {@link HistoryRetentionJob}, kept as append-only segment
+ * files under {@code app.history.archive.directory/<tenant>}. Segments are opened lazily per tenant and stay
+ * mapped, indexed by the products they hold; a read merges only the segments that hold the product.
+ * The directory is shared by all instances, and only the one running retention appends to it. Every read
+ * checks the tenant directory's modification time and opens segments written since the last look, so the
+ * cached segment list never outlives a write made elsewhere. Modification times are coarse, so a listing taken
+ * within {@link #SETTLE_MILLIS} of the last change is repeated on the next read.
+ * Each append merges the segments of fewer than {@code merge-below-blocks} blocks into one, so a product's
+ * rows do not end up spread over a segment per retention batch. Segments that leave the listing are closed.
+ * Reads are skipped entirely while {@code app.history.archive.enabled} (by default the retention switch) is off.
+ */
+@Component
+public class HistoryArchive {
+
+    static final Comparator<ProductResponseDTO> SEGMENT_ORDER = Comparator
+        .comparing(ProductResponseDTO::getOriginalProductId)
+        .thenComparing(ProductResponseDTO::getEventTime)
+        .thenComparing(ProductResponseDTO::getId);
+
+    private static final Comparator<ProductResponseDTO> NEWEST_FIRST = Comparator
+        .comparing(ProductResponseDTO::getEventTime)
+        .thenComparing(ProductResponseDTO::getId)
+        .reversed();
+
+    private static final Listing EMPTY = new Listing(null, 0, Map.of(), Map.of(), List.of());
+
+    private final Path directory;
+    private final int blockSize;
+    private final int mergeBelowBlocks;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private static final long SETTLE_MILLIS = 2_000;
+
+    private final Map<String, Listing> segments = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public HistoryArchive(@Value("${app.history.archive.directory:data/history-archive}") Path directory,
+                          @Value("${app.history.archive.block-size:256}") int blockSize,
+                          @Value("${app.history.archive.merge-below-blocks:64}") int mergeBelowBlocks,
+                          @Value("${app.history.archive.enabled:${app.history.retention.enabled:false}}")
+                          boolean enabled,
+                          ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.blockSize = blockSize;
+        this.mergeBelowBlocks = mergeBelowBlocks;
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes {@code rows} as one new segment. Returns once the segment is durable and visible to reads.
+     */
+    public void append(String tenantId, List<ProductResponseDTO> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<ProductResponseDTO> sorted = new ArrayList<>(rows);
+        sorted.sort(SEGMENT_ORDER);
+        List<Listing> replaced = new ArrayList<>();
+        Listing current = segments.compute(tenantId, (tenant, existing) -> {
+            try {
+                Path tenantDirectory = Files.createDirectories(tenantDirectory(tenant));
+                HistorySegment.write(tenantDirectory, nextSegmentName(), sorted, blockSize, objectMapper);
+                Listing appended = list(tenantDirectory, existing);
+                replaced.add(existing);
+                replaced.add(appended);
+                return mergeSmallSegments(tenantDirectory, appended);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        replaced.forEach(previous -> closeEvicted(previous, current));
+    }
+
+    /**
+     * Every archived row of the product, newest first. A row archived twice (a retention run that failed
+     * after writing its segment) is returned once.
+     */
+    public List<ProductResponseDTO> history(String tenantId, Long productId) {
+        if (!enabled) {
+            return List.of();
+        }
+        while (true) {
+            List<HistorySegment> candidates = segments(tenantId).candidates(productId);
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            List<ProductResponseDTO> history = read(candidates, productId);
+            if (history != null) {
+                return history;
+            }
+        }
+    }
+
+    /**
+     * Whether any row of the product is archived, answered from the product index without reading a segment.
+     */
+    public boolean contains(String tenantId, Long productId) {
+        if (!enabled) {
+            return false;
+        }
+        Listing listing = segments(tenantId);
+        return listing.byProduct().containsKey(productId)
+            || (!listing.unindexed().isEmpty() && !history(tenantId, productId).isEmpty());
+    }
+
+    /**
+     * Reads {@code productId} from {@code candidates}; null when one of them was closed in the meantime and the
+     * read has to start over from the current listing.
+     */
+    private List<ProductResponseDTO> read(List<HistorySegment> candidates, Long productId) {
+        List<HistorySegment> acquired = new ArrayList<>(candidates.size());
+        try {
+            for (HistorySegment segment : candidates) {
+                if (!segment.acquire()) {
+                    return null;
+                }
+                acquired.add(segment);
+            }
+            Map<Long, ProductResponseDTO> rows = new LinkedHashMap<>();
+            for (HistorySegment segment : acquired) {
+                for (ProductResponseDTO row : segment.read(productId, objectMapper)) {
+                    rows.putIfAbsent(row.getId(), row);
+                }
+            }
+            List<ProductResponseDTO> history = new ArrayList<>(rows.values());
+            history.sort(NEWEST_FIRST);
+            return history;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            acquired.forEach(HistorySegment::release);
+        }
+    }
+
+    private Listing segments(String tenantId) {
+        Path tenantDirectory = tenantDirectory(tenantId);
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(tenantDirectory);
+        } catch (NoSuchFileException e) {
+            return EMPTY;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Listing cached = segments.get(tenantId);
+        if (cached != null && cached.isCurrent(modified)) {
+            return cached;
+        }
+        List<Listing> replaced = new ArrayList<>(1);
+        Listing current = segments.compute(tenantId, (tenant, existing) -> {
+            try {
+                replaced.add(existing);
+                return list(tenantDirectory, existing);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        replaced.forEach(previous -> closeEvicted(previous, current));
+        return current;
+    }
+
+    /**
+     * Rewrites the small segments of {@code listing} as one and deletes them. The merged segment is visible
+     * before the others go, so a concurrent read sees the rows once or twice, never not at all.
+     */
+    private Listing mergeSmallSegments(Path tenantDirectory, Listing listing) throws IOException {
+        List<HistorySegment> small = listing.segments().values().stream()
+            .filter(segment -> segment.blockCount() < mergeBelowBlocks)
+            .toList();
+        if (small.size() < 2) {
+            return listing;
+        }
+        Map<Long, ProductResponseDTO> rows = new LinkedHashMap<>();
+        for (HistorySegment segment : small) {
+            for (ProductResponseDTO row : segment.readAll(objectMapper)) {
+                rows.putIfAbsent(row.getId(), row);
+            }
+        }
+        List<ProductResponseDTO> merged = new ArrayList<>(rows.values());
+        merged.sort(SEGMENT_ORDER);
+        HistorySegment.write(tenantDirectory, nextSegmentName(), merged, blockSize, objectMapper);
+        for (HistorySegment segment : small) {
+            segment.delete();
+        }
+        return list(tenantDirectory, listing);
+    }
+
+    private String nextSegmentName() {
+        return String.format("%013d-%06d", System.currentTimeMillis(), sequence.incrementAndGet());
+    }
+
+    /**
+     * Lists the segments in {@code tenantDirectory}, reusing the ones {@code previous} already opened. A segment
+     * deleted by a merge on another instance while it is being listed is skipped.
+     */
+    private static Listing list(Path tenantDirectory, Listing previous) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(tenantDirectory);
+        long listedAt = System.currentTimeMillis();
+        Map<Path, HistorySegment> opened = previous != null ? previous.segments() : Map.of();
+        Map<Path, HistorySegment> listed = new LinkedHashMap<>();
+        Map<Long, List<HistorySegment>> byProduct = new HashMap<>();
+        List<HistorySegment> unindexed = new ArrayList<>();
+        try (DirectoryStream<Path> indexes = Files.newDirectoryStream(tenantDirectory,
+                "*" + HistorySegment.INDEX_SUFFIX)) {
+            for (Path index : indexes) {
+                HistorySegment segment = opened.get(index);
+                if (segment == null) {
+                    try {
+                        segment = HistorySegment.open(index);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                }
+                listed.put(index, segment);
+                if (segment.productIds() == null) {
+                    unindexed.add(segment);
+                    continue;
+                }
+                for (long productId : segment.productIds()) {
+                    byProduct.computeIfAbsent(productId, id -> new ArrayList<>(1)).add(segment);
+                }
+            }
+        }
+        return new Listing(modified, listedAt, Collections.unmodifiableMap(listed), byProduct,
+            List.copyOf(unindexed));
+    }
+
+    private static void closeEvicted(Listing previous, Listing current) {
+        if (previous == null) {
+            return;
+        }
+        previous.segments().forEach((index, segment) -> {
+            if (current.segments().get(index) != segment) {
+                segment.close();
+            }
+        });
+    }
+
+    private Path tenantDirectory(String tenantId) {
+        return directory.resolve(URLEncoder.encode(tenantId, StandardCharsets.UTF_8));
+    }
+
+    private record Listing(FileTime modified, long listedAt, Map<Path, HistorySegment> segments,
+                           Map<Long, List<HistorySegment>> byProduct, List<HistorySegment> unindexed) {
+
+        boolean isCurrent(FileTime directoryModified) {
+            return modified.equals(directoryModified) && listedAt - modified.toMillis() > SETTLE_MILLIS;
+        }
+
+        List<HistorySegment> candidates(Long productId) {
+            List<HistorySegment> indexed = byProduct.getOrDefault(productId, List.of());
+            if (unindexed.isEmpty()) {
+                return indexed;
+            }
+            List<HistorySegment> candidates = new ArrayList<>(indexed);
+            candidates.addAll(unindexed);
+            return candidates;
+        }
+    }
+}
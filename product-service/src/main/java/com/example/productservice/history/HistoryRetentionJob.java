@@ -0,0 +1,172 @@
+package com.example.productservice.history;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.repository.JobLock;
+import com.example.productservice.repository.ProductChangeRow;
+import com.example.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies each tenant's {@link HistoryRetentionProperties.Policy} to the history rows in the product table:
+ * <ul>
+ *   <li>rows older than {@code archive-after} are appended to the {@link HistoryArchive} and then deleted;</li>
+ *   <li>rows older than {@code compact-after} keep only the first row per product and snapshot interval.
+ *       A history row holds the state a change replaced, so the first row of an interval is the state at its
+ *       start and as-of reads stay exact at interval boundaries.</li>
+ * </ul>
+ * The archive directory has to be storage every instance mounts (a ReadWriteMany volume in {@code k8s/}).
+ * Every instance schedules the job, but a {@link JobLock} lets only one of them run it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.history.retention.enabled", havingValue = "true")
+public class HistoryRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryRetentionJob.class);
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String LOCK_NAME = "history-retention";
+
+    private final ProductRepository productRepository;
+    private final HistoryArchive historyArchive;
+    private final HistoryRetentionProperties properties;
+    private final JobLock jobLock;
+    private final Counter archivedRows;
+    private final Counter compactedRows;
+
+    public HistoryRetentionJob(ProductRepository productRepository, HistoryArchive historyArchive,
+                               HistoryRetentionProperties properties, JobLock jobLock,
+                               MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.historyArchive = historyArchive;
+        this.properties = properties;
+        this.jobLock = jobLock;
+        this.archivedRows = rowCounter(meterRegistry, AppConstants.Metrics.ACTION_ARCHIVED);
+        this.compactedRows = rowCounter(meterRegistry, AppConstants.Metrics.ACTION_COMPACTED);
+    }
+
+    @Scheduled(cron = "${app.history.retention.cron:0 30 3 * * *}")
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!jobLock.tryLock(LOCK_NAME, now, properties.getLockAtMostFor())) {
+            logger.info(AppConstants.Logger.HISTORY_RETENTION_SKIPPED);
+            return;
+        }
+        try {
+            run(now);
+        } finally {
+            jobLock.unlock(LOCK_NAME, now, properties.getLockAtLeastFor());
+        }
+    }
+
+    void run(LocalDateTime now) {
+        for (String tenantId : productRepository.findTenantsWithHistory()) {
+            HistoryRetentionProperties.Policy policy = properties.policyFor(tenantId);
+            try {
+                LocalDateTime archiveBefore = isEnabled(policy.getArchiveAfter())
+                    ? now.minus(policy.getArchiveAfter()) : BEGINNING;
+                int archived = archive(tenantId, archiveBefore);
+                int compacted = 0;
+                if (isEnabled(policy.getCompactAfter()) && isEnabled(policy.getSnapshotInterval())) {
+                    compacted = compact(tenantId, archiveBefore, now.minus(policy.getCompactAfter()),
+                        policy.getSnapshotInterval());
+                }
+                logger.info(AppConstants.Logger.HISTORY_RETENTION_DONE, tenantId, archived, compacted);
+            } catch (RuntimeException e) {
+                logger.error(AppConstants.Logger.HISTORY_RETENTION_FAILED, tenantId, e);
+            }
+        }
+    }
+
+    /**
+     * Each batch is written to a segment before its rows are deleted, so a failure in between leaves the rows
+     * in both places rather than in neither; reads drop the duplicates.
+     */
+    private int archive(String tenantId, LocalDateTime before) {
+        if (!before.isAfter(BEGINNING)) {
+            return 0;
+        }
+        int total = 0;
+        List<ProductResponseDTO> batch;
+        do {
+            batch = productRepository.findHistoryOlderThan(tenantId, before,
+                PageRequest.of(0, properties.getBatchSize()));
+            historyArchive.append(tenantId, batch);
+            delete(batch.stream().map(ProductResponseDTO::getId).toList());
+            archivedRows.increment(batch.size());
+            total += batch.size();
+        } while (batch.size() == properties.getBatchSize());
+        return total;
+    }
+
+    private int compact(String tenantId, LocalDateTime from, LocalDateTime to, Duration interval) {
+        long intervalSeconds = interval.toSeconds();
+        Long afterProductId = 0L;
+        LocalDateTime afterTime = BEGINNING;
+        Long afterId = 0L;
+        Long keptProductId = null;
+        long keptBucket = 0;
+        int total = 0;
+        List<ProductChangeRow> batch;
+        do {
+            batch = productRepository.findHistoryRowsBetween(tenantId, from, to, afterProductId, afterTime, afterId,
+                PageRequest.of(0, properties.getBatchSize()));
+            List<Long> superseded = new ArrayList<>();
+            for (ProductChangeRow row : batch) {
+                long bucket = Math.floorDiv(row.getEventTime().toEpochSecond(ZoneOffset.UTC), intervalSeconds);
+                if (row.getOriginalProductId().equals(keptProductId) && bucket == keptBucket) {
+                    superseded.add(row.getId());
+                } else {
+                    keptProductId = row.getOriginalProductId();
+                    keptBucket = bucket;
+                }
+            }
+            if (!batch.isEmpty()) {
+                ProductChangeRow last = batch.get(batch.size() - 1);
+                afterProductId = last.getOriginalProductId();
+                afterTime = last.getEventTime();
+                afterId = last.getId();
+            }
+            delete(superseded);
+            compactedRows.increment(superseded.size());
+            total += superseded.size();
+        } while (batch.size() == properties.getBatchSize());
+        return total;
+    }
+
+    /**
+     * Delta rows that use a deleted row as their base get its fields copied in first. A live write can pick
+     * one of these rows as its base in between, so rows that are still referenced stay in the table (an
+     * archived one is then read from both places and deduplicated) and go on a later run; the foreign key on
+     * history_base_id backs this up.
+     */
+    private void delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        productRepository.materializeHistoryDeltas(ids);
+        productRepository.deleteUnreferencedHistory(ids);
+    }
+
+    private static boolean isEnabled(Duration duration) {
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder(AppConstants.Metrics.HISTORY_RETENTION_ROWS)
+            .tag(AppConstants.Metrics.TAG_ACTION, action)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.productservice.history;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How long history rows stay in the product table. Tenants listed under
+ * {@code app.history.retention.tenants.<id>} get their own policy; everyone else uses {@code defaults}.
+ * A zero duration disables that step.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.history.retention")
+public class HistoryRetentionProperties {
+
+    private boolean enabled = false;
+    private int batchSize = 5_000;
+    /** Other instances skip the job until the holder finishes or this has passed since it started. */
+    private Duration lockAtMostFor = Duration.ofHours(6);
+    /** Keeps the lock after a quick run so an instance whose clock lags behind does not run the same slot. */
+    private Duration lockAtLeastFor = Duration.ofMinutes(5);
+    private Policy defaults = new Policy();
+    private Map<String, Policy> tenants = new HashMap<>();
+
+    public Policy policyFor(String tenantId) {
+        return tenants.getOrDefault(tenantId, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        /** Rows older than this are thinned to one snapshot per product and interval. */
+        private Duration compactAfter = Duration.ofDays(30);
+        private Duration snapshotInterval = Duration.ofDays(1);
+        /** Rows older than this move to the archive. */
+        private Duration archiveAfter = Duration.ofDays(365);
+    }
+}
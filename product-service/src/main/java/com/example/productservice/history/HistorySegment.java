@@ -0,0 +1,309 @@
+package com.example.productservice.history;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import sun.misc.Unsafe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable archive file of a tenant's history rows, sorted by (originalProductId, eventTime, id) and
+ * stored as independently deflated blocks of JSON lines. The sparse index file next to it holds the product
+ * range and position of every block and the ids of all products in the segment, so a lookup inflates only the
+ * blocks that can contain the product and reads them straight from a read-only memory mapping.
+ * The data file is written and renamed before the index, so a segment without an index is an unfinished
+ * write and is never opened. Indexes written before the product ids were added are still read; their
+ * {@link #productIds()} is null.
+ * The mapping is reference counted: readers {@link #acquire()} it, and the last {@link #release()} after
+ * {@link #close()} unmaps it, so a segment dropped from the archive gives its mapping back right away.
+ */
+final class HistorySegment implements Closeable {
+
+    static final String DATA_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int INDEX_MAGIC = 0x48534731;
+    private static final int INDEX_MAGIC_PRODUCT_IDS = 0x48534732;
+    private static final Unsafe UNSAFE = unsafe();
+
+    private final Path indexFile;
+    private final Path dataFile;
+    private final List<Block> blocks;
+    private final long[] productIds;
+    private final MappedByteBuffer data;
+    // One reference is the archive's own, dropped by close(); the mapping goes with the last one
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private HistorySegment(Path indexFile, Path dataFile, List<Block> blocks, long[] productIds,
+                           MappedByteBuffer data) {
+        this.indexFile = indexFile;
+        this.dataFile = dataFile;
+        this.blocks = blocks;
+        this.productIds = productIds;
+        this.data = data;
+    }
+
+    /**
+     * Writes {@code rows}, which must already be in segment order, as a new segment named {@code name}.
+     */
+    static void write(Path directory, String name, List<ProductResponseDTO> rows, int blockSize,
+                      ObjectMapper objectMapper) throws IOException {
+        Path dataFile = directory.resolve(name + DATA_SUFFIX);
+        Path indexFile = directory.resolve(name + INDEX_SUFFIX);
+        Path dataTemp = directory.resolve(name + DATA_SUFFIX + TEMP_SUFFIX);
+        Path indexTemp = directory.resolve(name + INDEX_SUFFIX + TEMP_SUFFIX);
+
+        List<Block> blocks = new ArrayList<>();
+        long[] productIds = rows.stream().mapToLong(ProductResponseDTO::getOriginalProductId).distinct().toArray();
+        Deflater deflater = new Deflater();
+        try (FileChannel channel = FileChannel.open(dataTemp, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (int from = 0; from < rows.size(); from += blockSize) {
+                List<ProductResponseDTO> blockRows = rows.subList(from, Math.min(from + blockSize, rows.size()));
+                byte[] compressed = deflate(deflater, encode(blockRows, objectMapper));
+                channel.write(ByteBuffer.wrap(compressed));
+                blocks.add(new Block(blockRows.get(0).getOriginalProductId(),
+                    blockRows.get(blockRows.size() - 1).getOriginalProductId(), offset, compressed.length));
+                offset += compressed.length;
+            }
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+
+        try (OutputStream file = Files.newOutputStream(indexTemp, StandardOpenOption.CREATE_NEW);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(INDEX_MAGIC_PRODUCT_IDS);
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                out.writeLong(block.firstProductId());
+                out.writeLong(block.lastProductId());
+                out.writeLong(block.offset());
+                out.writeInt(block.length());
+            }
+            out.writeInt(productIds.length);
+            for (long productId : productIds) {
+                out.writeLong(productId);
+            }
+        }
+
+        Files.move(dataTemp, dataFile, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(indexTemp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static HistorySegment open(Path indexFile) throws IOException {
+        String indexName = indexFile.getFileName().toString();
+        Path dataFile = indexFile.resolveSibling(
+            indexName.substring(0, indexName.length() - INDEX_SUFFIX.length()) + DATA_SUFFIX);
+
+        List<Block> blocks = new ArrayList<>();
+        long[] productIds = null;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(indexFile))) {
+            int magic = in.readInt();
+            if (magic != INDEX_MAGIC && magic != INDEX_MAGIC_PRODUCT_IDS) {
+                throw new IOException("Not a history segment index: " + indexFile);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(in.readLong(), in.readLong(), in.readLong(), in.readInt()));
+            }
+            if (magic == INDEX_MAGIC_PRODUCT_IDS) {
+                productIds = new long[in.readInt()];
+                for (int i = 0; i < productIds.length; i++) {
+                    productIds[i] = in.readLong();
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            return new HistorySegment(indexFile, dataFile, List.copyOf(blocks), productIds,
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Ids of the products in this segment in ascending order, or null for a segment written without them.
+     */
+    long[] productIds() {
+        return productIds;
+    }
+
+    int blockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Takes a reference to the mapping; false once the segment has been closed and may already be unmapped.
+     */
+    boolean acquire() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0 && UNSAFE != null) {
+            UNSAFE.invokeCleaner(data);
+        }
+    }
+
+    /**
+     * Drops the archive's reference; the mapping is unmapped once no reader holds it. Safe to call twice.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    /**
+     * Removes the files, the index first so that no listing opens the segment in between. Readers that still
+     * hold it keep reading the mapping.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(dataFile);
+    }
+
+    /**
+     * Every row in this segment, in segment order.
+     */
+    List<ProductResponseDTO> readAll(ObjectMapper objectMapper) throws IOException {
+        List<ProductResponseDTO> rows = new ArrayList<>();
+        for (Block block : blocks) {
+            rows.addAll(decode(inflate(block), objectMapper));
+        }
+        return rows;
+    }
+
+    /**
+     * Every row of {@code productId} in this segment, oldest first.
+     */
+    List<ProductResponseDTO> read(long productId, ObjectMapper objectMapper) throws IOException {
+        List<ProductResponseDTO> rows = new ArrayList<>();
+        for (int i = firstBlockEndingAtOrAfter(productId); i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (block.firstProductId() > productId) {
+                break;
+            }
+            for (ProductResponseDTO row : decode(inflate(block), objectMapper)) {
+                if (row.getOriginalProductId() == productId) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private int firstBlockEndingAtOrAfter(long productId) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).lastProductId() < productId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private byte[] inflate(Block block) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice((int) block.offset(), block.length()));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(block.length() * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IOException("Truncated block at offset " + block.offset() + " in " + dataFile);
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block at offset " + block.offset() + " in " + dataFile, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] encode(List<ProductResponseDTO> rows, ObjectMapper objectMapper) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ProductResponseDTO row : rows) {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    private static List<ProductResponseDTO> decode(byte[] lines, ObjectMapper objectMapper) throws IOException {
+        List<ProductResponseDTO> rows = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i] == '\n') {
+                rows.add(objectMapper.readValue(lines, start, i - start, ProductResponseDTO.class));
+                start = i + 1;
+            }
+        }
+        return rows;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Unmapping has no public API before the foreign memory API leaves preview; without it, mappings are
+     * left to the garbage collector.
+     */
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private record Block(long firstProductId, long lastProductId, long offset, int length) {
+    }
+}
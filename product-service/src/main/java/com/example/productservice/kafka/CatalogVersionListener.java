@@ -0,0 +1,114 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductChangeDTO;
+import com.example.productservice.mapper.ProductMapper;
+import com.example.productservice.model.Product;
+import com.example.productservice.service.CatalogVersionTracker;
+import com.example.productservice.stream.ProductStreamRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Bumps catalog versions, evicts the product from the second-level cache and feeds the tenant's change stream
+ * for writes made on any pod. Only this service's own events count: they are sent after their write has
+ * committed, and events from other producers come back as such once ProductConsumer has applied them.
+ * Every pod has to see every product event, so the listener assigns itself all partitions of the topic instead
+ * of sharing them through a consumer group, and starts at their end on every start: nothing before that matters
+ * to counters that start at zero or to a cache that starts empty. All pods use the same group id for the offsets
+ * the container commits, so restarts leave no consumer groups behind.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.catalog-version.enabled"}, havingValue = "true",
+                       matchIfMissing = true)
+@Lazy(false)
+public class CatalogVersionListener implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersionListener.class);
+    private final ProductEventCodec productEventCodec;
+    private final CatalogVersionTracker catalogVersionTracker;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ProductStreamRegistry productStreamRegistry;
+    private final ProductMapper productMapper;
+
+    public CatalogVersionListener(ProductEventCodec productEventCodec, CatalogVersionTracker catalogVersionTracker,
+                                  EntityManagerFactory entityManagerFactory,
+                                  ProductStreamRegistry productStreamRegistry, ProductMapper productMapper) {
+        this.productEventCodec = productEventCodec;
+        this.catalogVersionTracker = catalogVersionTracker;
+        this.entityManagerFactory = entityManagerFactory;
+        this.productStreamRegistry = productStreamRegistry;
+        this.productMapper = productMapper;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments,
+                                     ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+
+    @KafkaListener(groupId = AppConstants.Kafka.GROUP_ID_CATALOG_VERSION,
+                   topicPartitions = @TopicPartition(topic = AppConstants.Kafka.TOPIC_PRODUCTS,
+                       partitions = "#{@topicPartitionLookup.partitions('" + AppConstants.Kafka.TOPIC_PRODUCTS + "')}"))
+    public void onProductEvent(byte[] message,
+                               @Header(name = AppConstants.Kafka.HEADER_SCHEMA, required = false) byte[] schema,
+                               @Header(name = AppConstants.Kafka.HEADER_SOURCE, required = false) byte[] source) {
+        if (source == null
+                || !AppConstants.Kafka.SOURCE_PRODUCT_SERVICE.equals(new String(source, StandardCharsets.UTF_8))) {
+            return;
+        }
+        try {
+            String schemaId = schema == null ? null : new String(schema, StandardCharsets.UTF_8);
+            Product productEvent = productEventCodec.decode(message, schemaId);
+            catalogVersionTracker.bump(productEvent.getTenantId());
+            Long productId = productEvent.getOriginalProductId() != null
+                ? productEvent.getOriginalProductId() : productEvent.getId();
+            if (productId != null) {
+                Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+                cache.evictEntityData(Product.class, productId);
+                cache.evictQueryRegion(AppConstants.Cache.CURRENT_PRODUCTS_QUERY_REGION);
+                if (productEvent.getTenantId() != null) {
+                    productStreamRegistry.publish(productEvent.getTenantId(), toChange(productId, productEvent));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn(AppConstants.Logger.ERROR_KAFKA_DESERIALIZE, AppConstants.Kafka.TOPIC_PRODUCTS, e);
+        }
+    }
+
+    /**
+     * Current rows keep the event type they were created with, so an update of this service arrives as a
+     * CREATED event with a version past the first.
+     */
+    private ProductChangeDTO toChange(Long productId, Product productEvent) {
+        String changeType;
+        if (AppConstants.Event.TYPE_DELETED.equals(productEvent.getEventType())) {
+            changeType = AppConstants.Event.TYPE_DELETED;
+        } else if (AppConstants.Event.TYPE_UPDATED.equals(productEvent.getEventType())
+                || (productEvent.getVersion() != null && productEvent.getVersion() > 0)) {
+            changeType = AppConstants.Event.TYPE_UPDATED;
+        } else {
+            changeType = AppConstants.Event.TYPE_CREATED;
+        }
+        return ProductChangeDTO.builder()
+            .productId(productId)
+            .changeType(changeType)
+            .changedAt(LocalDateTime.now())
+            .product(AppConstants.Event.TYPE_DELETED.equals(changeType) ? null
+                : productMapper.productToProductResponseDTO(productEvent))
+            .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.productservice.kafka;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/kafkalag}: total and per-partition lag and the consumption rate of each monitored group,
+ * as of the last {@link ConsumerLagMonitor} poll.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.lag.enabled"}, havingValue = "true",
+                       matchIfMissing = true)
+@Endpoint(id = "kafkalag")
+public class ConsumerLagEndpoint {
+
+    private final ConsumerLagMonitor consumerLagMonitor;
+
+    public ConsumerLagEndpoint(ConsumerLagMonitor consumerLagMonitor) {
+        this.consumerLagMonitor = consumerLagMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, ConsumerLagMonitor.GroupLag> lag() {
+        return consumerLagMonitor.snapshot();
+    }
+}
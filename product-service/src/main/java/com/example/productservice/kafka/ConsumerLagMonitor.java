@@ -0,0 +1,189 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the committed offsets of the configured consumer groups against the partition end offsets and
+ * publishes the difference. The numbers come from the brokers, so every instance reports the lag of the whole
+ * group, not just of the partitions it owns, and an autoscaler can read it from any pod.
+ * <ul>
+ *   <li>{@code product.kafka.consumer.lag{group,topic,partition}} and {@code product.kafka.consumer.lag.total}</li>
+ *   <li>{@code product.kafka.consumer.rate{group}}: committed records per second since the previous poll</li>
+ * </ul>
+ * Partitions the group never committed are not counted.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.lag.enabled"}, havingValue = "true",
+                       matchIfMissing = true)
+public class ConsumerLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+
+    private final KafkaAdmin kafkaAdmin;
+    private final List<String> groups;
+    private final Duration timeout;
+    private final MultiGauge partitionLag;
+    private final MultiGauge totalLag;
+    private final MultiGauge consumptionRate;
+    private final Map<String, GroupLag> snapshot = new ConcurrentHashMap<>();
+    private AdminClient adminClient;
+
+    public ConsumerLagMonitor(KafkaAdmin kafkaAdmin, MeterRegistry meterRegistry,
+                              @Value("${app.kafka.lag.groups:" + AppConstants.Kafka.GROUP_ID_COMBINED + "}")
+                              List<String> groups,
+                              @Value("${app.kafka.lag.timeout:PT10S}") Duration timeout) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.groups = groups;
+        this.timeout = timeout;
+        this.partitionLag = MultiGauge.builder(AppConstants.Metrics.KAFKA_CONSUMER_LAG)
+            .baseUnit("records")
+            .register(meterRegistry);
+        this.totalLag = MultiGauge.builder(AppConstants.Metrics.KAFKA_CONSUMER_LAG_TOTAL)
+            .baseUnit("records")
+            .register(meterRegistry);
+        this.consumptionRate = MultiGauge.builder(AppConstants.Metrics.KAFKA_CONSUMER_RATE)
+            .baseUnit("records/s")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.lag.interval:PT15S}")
+    public void refresh() {
+        for (String group : groups) {
+            try {
+                snapshot.put(group, measure(group, snapshot.get(group)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn(AppConstants.Logger.KAFKA_LAG_FAILED, group, e.toString());
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Latest lag per group; empty until the first poll succeeds.
+     */
+    public Map<String, GroupLag> snapshot() {
+        return new TreeMap<>(snapshot);
+    }
+
+    /**
+     * Summed lag of {@code partitions} in {@code group}; partitions without a reading count as zero.
+     */
+    public long lagOf(String group, Collection<TopicPartition> partitions) {
+        GroupLag lag = snapshot.get(group);
+        if (lag == null) {
+            return 0;
+        }
+        long total = 0;
+        for (TopicPartition partition : partitions) {
+            total += lag.partitions().getOrDefault(partition.toString(), 0L);
+        }
+        return total;
+    }
+
+    private GroupLag measure(String group, GroupLag previous) throws Exception {
+        AdminClient admin = adminClient();
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+            .partitionsToOffsetAndMetadata()
+            .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        committed.forEach((partition, offset) -> {
+            if (offset != null) {
+                latest.put(partition, OffsetSpec.latest());
+            }
+        });
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin.listOffsets(latest).all()
+            .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        Map<String, Long> partitions = new TreeMap<>();
+        long total = 0;
+        long position = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end : ends.entrySet()) {
+            long offset = committed.get(end.getKey()).offset();
+            long lag = Math.max(0, end.getValue().offset() - offset);
+            partitions.put(end.getKey().toString(), lag);
+            total += lag;
+            position += offset;
+        }
+        Instant now = Instant.now();
+        double rate = 0;
+        if (previous != null) {
+            double seconds = Duration.between(previous.updatedAt(), now).toMillis() / 1000.0;
+            rate = seconds > 0 ? Math.max(0, position - previous.committedOffsets()) / seconds : 0;
+        }
+        return new GroupLag(total, rate, partitions, position, now);
+    }
+
+    private void publish() {
+        List<MultiGauge.Row<?>> partitionRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> totalRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> rateRows = new ArrayList<>();
+        snapshot.forEach((group, lag) -> {
+            lag.partitions().forEach((partition, value) -> {
+                int split = partition.lastIndexOf('-');
+                partitionRows.add(MultiGauge.Row.of(Tags.of(AppConstants.Metrics.TAG_GROUP, group,
+                    AppConstants.Metrics.TAG_TOPIC, partition.substring(0, split),
+                    AppConstants.Metrics.TAG_PARTITION, partition.substring(split + 1)), value));
+            });
+            totalRows.add(MultiGauge.Row.of(Tags.of(AppConstants.Metrics.TAG_GROUP, group), lag.total()));
+            rateRows.add(MultiGauge.Row.of(Tags.of(AppConstants.Metrics.TAG_GROUP, group), lag.recordsPerSecond()));
+        });
+        partitionLag.register(partitionRows, true);
+        totalLag.register(totalRows, true);
+        consumptionRate.register(rateRows, true);
+    }
+
+    private synchronized AdminClient adminClient() {
+        if (adminClient == null) {
+            Map<String, Object> config = new HashMap<>(kafkaAdmin.getConfigurationProperties());
+            config.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+            config.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+            adminClient = AdminClient.create(config);
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (adminClient != null) {
+            adminClient.close(timeout);
+        }
+    }
+
+    /**
+     * {@code partitions} maps {@code topic-partition} to its lag.
+     */
+    public record GroupLag(long total, double recordsPerSecond, Map<String, Long> partitions,
+                           long committedOffsets, Instant updatedAt) {
+    }
+}
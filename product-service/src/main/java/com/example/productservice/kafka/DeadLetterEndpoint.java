@@ -0,0 +1,37 @@
+package com.example.productservice.kafka;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@code POST /actuator/deadletters/{topic}} moves the records of a dead-letter topic back to their original
+ * topic, e.g. once the bug that made them fail is fixed. Like all of actuator it is only served on
+ * {@code management.server.port}, which is not routed from outside the cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+
+    private final DeadLetterReplayer deadLetterReplayer;
+
+    public DeadLetterEndpoint(DeadLetterReplayer deadLetterReplayer) {
+        this.deadLetterReplayer = deadLetterReplayer;
+    }
+
+    @WriteOperation
+    public Map<String, Object> replay(@Selector String topic) throws InterruptedException, ExecutionException {
+        try {
+            return Map.of("topic", topic, "replayed", deadLetterReplayer.replay(topic));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Moves records from a dead-letter topic back to the topic they originally failed on, where they go through
+ * the listener and its retry topics again. Only records added since the last replay are moved: the replay
+ * group's offsets are committed once every republished record is acknowledged. A replay that fails in between
+ * republishes some records twice, which the consumer's event-id dedupe absorbs.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadLetterReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+    private static final String DLT_HEADER_PREFIX = KafkaHeaders.PREFIX + "dlt-";
+    private static final String RETRY_HEADER_PREFIX = "retry_topic-";
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final Duration pollTimeout;
+
+    public DeadLetterReplayer(ConsumerFactory<String, byte[]> consumerFactory,
+                              KafkaTemplate<String, byte[]> kafkaTemplate,
+                              @Value("${app.kafka.dlt-replay.poll-timeout:PT1S}") Duration pollTimeout) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.pollTimeout = pollTimeout;
+    }
+
+    /**
+     * Republishes the records of {@code deadLetterTopic} that were not replayed yet and returns how many.
+     */
+    public int replay(String deadLetterTopic) throws InterruptedException, ExecutionException {
+        if (!deadLetterTopic.endsWith(AppConstants.Kafka.DLT_SUFFIX)) {
+            throw new IllegalArgumentException("Not a dead-letter topic: " + deadLetterTopic);
+        }
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(
+                AppConstants.Kafka.GROUP_ID_DLT_REPLAY, AppConstants.Kafka.GROUP_ID_DLT_REPLAY, null, overrides)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(deadLetterTopic)) {
+                partitions.add(new TopicPartition(deadLetterTopic, info.partition()));
+            }
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> replayed = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                long end = endOffsets.get(partition);
+                consumer.assign(List.of(partition));
+                while (consumer.position(partition) < end) {
+                    for (ConsumerRecord<String, byte[]> record : consumer.poll(pollTimeout)) {
+                        if (record.offset() >= end) {
+                            break;
+                        }
+                        sends.add(kafkaTemplate.send(republish(record)));
+                    }
+                }
+                replayed.put(partition, new OffsetAndMetadata(end));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+            consumer.commitSync(replayed);
+            logger.info(AppConstants.Logger.DLT_REPLAYED, sends.size(), deadLetterTopic);
+            return sends.size();
+        }
+    }
+
+    /**
+     * Same key, value and headers as the failed record, minus what the retry topics added. Every hop through
+     * a retry topic appends its own original-topic header, so the first one names the main topic.
+     */
+    private static ProducerRecord<String, byte[]> republish(ConsumerRecord<String, byte[]> record) {
+        Iterator<Header> originalTopics = record.headers().headers(KafkaHeaders.DLT_ORIGINAL_TOPIC).iterator();
+        Header originalTopic = originalTopics.hasNext() ? originalTopics.next() : null;
+        if (originalTopic == null) {
+            throw new IllegalStateException("Record at offset " + record.offset() + " of " + record.topic()
+                + " has no original topic");
+        }
+        ProducerRecord<String, byte[]> republished = new ProducerRecord<>(
+            new String(originalTopic.value(), StandardCharsets.UTF_8), record.key(), record.value());
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(DLT_HEADER_PREFIX) && !header.key().startsWith(RETRY_HEADER_PREFIX)) {
+                republished.headers().add(header);
+            }
+        }
+        return republished;
+    }
+}
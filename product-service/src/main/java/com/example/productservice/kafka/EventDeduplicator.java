@@ -0,0 +1,104 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which product events this instance already applied, so redeliveries after a rebalance or a failed
+ * commit are skipped without a database lookup:
+ * <ul>
+ *   <li>a per-partition watermark of the highest applied offset catches records that come back at the offsets
+ *       they were first read at;</li>
+ *   <li>the last {@code dedupe-window} event ids catch the same event arriving at another offset, e.g. when a
+ *       producer resends it.</li>
+ * </ul>
+ * Both live in memory only. A restart or a partition that moves to another instance starts without them, and
+ * the version check in the service remains the fallback.
+ * A partition's watermark is dropped whenever the partition is assigned, because the consumer may then start
+ * below it on purpose: an offset reset, a rewound group or a recreated topic. Redeliveries after a rebalance
+ * are left to the event ids.
+ */
+@Component
+public class EventDeduplicator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Map<String, Long> watermarks = new ConcurrentHashMap<>();
+    private final RecentEventIds recentEventIds;
+    private final Counter offsetDuplicates;
+    private final Counter eventIdDuplicates;
+
+    public EventDeduplicator(@Value("${app.kafka.consumer.dedupe-window:100000}") int window,
+                             MeterRegistry meterRegistry) {
+        this.recentEventIds = new RecentEventIds(window);
+        this.offsetDuplicates = duplicateCounter(meterRegistry, AppConstants.Metrics.REASON_OFFSET);
+        this.eventIdDuplicates = duplicateCounter(meterRegistry, AppConstants.Metrics.REASON_EVENT_ID);
+    }
+
+    /**
+     * True when the record at {@code offset} or its event id was already applied. {@code eventId} may be null
+     * for events from producers that do not set one.
+     */
+    public boolean isDuplicate(String topic, int partition, long offset, byte[] eventId) {
+        Long watermark = watermarks.get(partitionKey(topic, partition));
+        if (watermark != null && offset <= watermark) {
+            offsetDuplicates.increment();
+            return true;
+        }
+        if (eventId != null) {
+            boolean seen;
+            synchronized (recentEventIds) {
+                seen = recentEventIds.contains(hash(eventId));
+            }
+            if (seen) {
+                eventIdDuplicates.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void markApplied(String topic, int partition, long offset, byte[] eventId) {
+        watermarks.merge(partitionKey(topic, partition), offset, Math::max);
+        if (eventId != null) {
+            synchronized (recentEventIds) {
+                recentEventIds.add(hash(eventId));
+            }
+        }
+    }
+
+    public void forgetOffsets(Collection<TopicPartition> partitions) {
+        partitions.forEach(partition -> watermarks.remove(partitionKey(partition.topic(), partition.partition())));
+    }
+
+    /**
+     * 64-bit FNV-1a. With the default window of 100k ids a false match is about one in 10^14 per event.
+     */
+    static long hash(byte[] eventId) {
+        long hash = FNV_OFFSET;
+        for (byte b : eventId) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String partitionKey(String topic, int partition) {
+        return topic + "-" + partition;
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(AppConstants.Metrics.KAFKA_CONSUMER_DUPLICATES)
+            .tag(AppConstants.Metrics.TAG_REASON, reason)
+            .register(meterRegistry);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.productservice.kafka;
 
 import com.example.productservice.model.Product;
+import com.example.productservice.repository.HistoryBaseRow;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 public class HistoryBuilder {
 
@@ -29,4 +31,27 @@ public class HistoryBuilder {
         history.setEventTime(LocalDateTime.now());
         return history;
     }
+
+    /**
+     * Turns {@code history} into a delta against the full history row {@code base} by clearing the text
+     * fields they share. Leaves {@code history} full when nothing is shared.
+     */
+    public static void encodeDelta(Product history, HistoryBaseRow base) {
+        boolean shared = false;
+        if (Objects.equals(history.getName(), base.getName())) {
+            history.setName(null);
+            shared = true;
+        }
+        if (Objects.equals(history.getDescription(), base.getDescription())) {
+            history.setDescription(null);
+            shared = true;
+        }
+        if (Objects.equals(history.getCategory(), base.getCategory())) {
+            history.setCategory(null);
+            shared = true;
+        }
+        if (shared) {
+            history.setHistoryBaseId(base.getId());
+        }
+    }
 }
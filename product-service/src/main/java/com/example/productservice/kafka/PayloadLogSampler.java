@@ -0,0 +1,35 @@
+package com.example.productservice.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which Kafka payloads are logged on the hot path: one in {@code sampleRate} messages,
+ * truncated to {@code maxLength} characters.
+ */
+@Component
+public class PayloadLogSampler {
+
+    private final int sampleRate;
+    private final int maxLength;
+    private final AtomicLong counter = new AtomicLong();
+
+    public PayloadLogSampler(@Value("${app.logging.payload.sample-rate:100}") int sampleRate,
+                             @Value("${app.logging.payload.max-length:256}") int maxLength) {
+        this.sampleRate = Math.max(1, sampleRate);
+        this.maxLength = Math.max(0, maxLength);
+    }
+
+    public boolean shouldLog() {
+        return sampleRate == 1 || counter.getAndIncrement() % sampleRate == 0;
+    }
+
+    public String truncate(String payload) {
+        if (payload == null || payload.length() <= maxLength) {
+            return payload;
+        }
+        return payload.substring(0, maxLength) + "...(" + payload.length() + " chars)";
+    }
+}
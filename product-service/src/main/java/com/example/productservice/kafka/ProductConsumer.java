@@ -3,39 +3,164 @@ package com.example.productservice.kafka;
 import com.example.productservice.constant.AppConstants;
 import com.example.productservice.model.Product;
 import com.example.productservice.service.ProductService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 @Service
 @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = true)
-public class ProductConsumer {
+@Lazy(false)
+public class ProductConsumer implements ConsumerSeekAware {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductConsumer.class);
-    private final ObjectMapper objectMapper;
+    private final ProductEventCodec productEventCodec;
     private final ProductService productService;
+    private final PayloadLogSampler payloadLogSampler;
+    private final EventDeduplicator eventDeduplicator;
+    private final int maxConflictAttempts;
+    private final Timer deserializeTime;
+    private final Timer dbTime;
+    private final Timer totalTime;
 
-    public ProductConsumer(ObjectMapper objectMapper, ProductService productService) {
-        this.objectMapper = objectMapper;
+    public ProductConsumer(ProductEventCodec productEventCodec, ProductService productService,
+                           PayloadLogSampler payloadLogSampler, EventDeduplicator eventDeduplicator,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.kafka.consumer.max-conflict-attempts:5}") int maxConflictAttempts) {
+        this.productEventCodec = productEventCodec;
         this.productService = productService;
+        this.payloadLogSampler = payloadLogSampler;
+        this.eventDeduplicator = eventDeduplicator;
+        this.maxConflictAttempts = maxConflictAttempts;
+        this.deserializeTime = processingTimer(meterRegistry, AppConstants.Metrics.PHASE_DESERIALIZE);
+        this.dbTime = processingTimer(meterRegistry, AppConstants.Metrics.PHASE_DB);
+        this.totalTime = processingTimer(meterRegistry, AppConstants.Metrics.PHASE_TOTAL);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        eventDeduplicator.forgetOffsets(assignments.keySet());
     }
 
+    /**
+     * Failures are not caught here: the listener hands them to the retry topics, which redeliver the event with
+     * growing delays without holding up its partition, and finally to the dead-letter topic. Payloads that
+     * cannot be decoded go to the dead-letter topic straight away.
+     */
+    @RetryableTopic(attempts = "${app.kafka.retry.attempts:4}",
+                    backoff = @Backoff(delayExpression = "${app.kafka.retry.initial-delay-ms:1000}",
+                                       multiplierExpression = "${app.kafka.retry.multiplier:4}",
+                                       maxDelayExpression = "${app.kafka.retry.max-delay-ms:60000}"),
+                    numPartitions = "${app.kafka.retry.topic-partitions:1}",
+                    autoCreateTopics = "${app.kafka.retry.auto-create-topics:true}",
+                    topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+                    dltTopicSuffix = AppConstants.Kafka.DLT_SUFFIX,
+                    exclude = IOException.class,
+                    traversingCauses = "true",
+                    kafkaTemplate = "kafkaTemplate")
     @KafkaListener(topics = {AppConstants.Kafka.TOPIC_PRODUCTS_LEGACY, AppConstants.Kafka.TOPIC_PRODUCTS},
-                   groupId = AppConstants.Kafka.GROUP_ID_COMBINED)
-    public void handleProductEvent(String message, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
-        try {
-            logger.info(AppConstants.Logger.KAFKA_MESSAGE_RECEIVED, topic, message);
-            Product productEvent = objectMapper.readValue(message, Product.class);
-
-            boolean processEvent = AppConstants.Kafka.TOPIC_PRODUCTS.equals(topic);
-            productService.handleProductEventFromKafka(productEvent, processEvent);
-        } catch (Exception e) {
-            logger.error(AppConstants.Logger.ERROR_KAFKA_DESERIALIZE, topic, e);
+                   groupId = AppConstants.Kafka.GROUP_ID_COMBINED,
+                   autoStartup = "#{!${app.replay.enabled:false}}")
+    public void handleProductEvent(byte[] message,
+                                   @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                   @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                   @Header(KafkaHeaders.OFFSET) long offset,
+                                   @Header(name = AppConstants.Kafka.HEADER_SCHEMA, required = false) byte[] schema,
+                                   @Header(name = AppConstants.Kafka.HEADER_EVENT_ID, required = false) byte[] eventId,
+                                   @Header(name = AppConstants.Kafka.HEADER_SOURCE, required = false) byte[] source)
+            throws IOException {
+        if (eventDeduplicator.isDuplicate(topic, partition, offset, eventId)) {
+            logger.debug(AppConstants.Logger.KAFKA_DUPLICATE_SKIPPED, topic, partition, offset);
+            return;
+        }
+        long started = System.nanoTime();
+        if (payloadLogSampler.shouldLog()) {
+            logger.info(AppConstants.Logger.KAFKA_MESSAGE_RECEIVED, topic,
+                payloadLogSampler.truncate(productEventCodec.describe(message)));
+        }
+        String schemaId = schema == null ? null : new String(schema, StandardCharsets.UTF_8);
+        long decodeStarted = System.nanoTime();
+        Product productEvent = productEventCodec.decode(message, schemaId);
+        long decoded = System.nanoTime();
+        deserializeTime.record(decoded - decodeStarted, TimeUnit.NANOSECONDS);
+
+        applyWithRetry(productEvent, isProductsTopic(topic) && !isOwnEvent(source));
+        long applied = System.nanoTime();
+        dbTime.record(applied - decoded, TimeUnit.NANOSECONDS);
+        totalTime.record(applied - started, TimeUnit.NANOSECONDS);
+        eventDeduplicator.markApplied(topic, partition, offset, eventId);
+    }
+
+    @DltHandler
+    public void handleDeadLetter(byte[] message,
+                                 @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                 @Header(KafkaHeaders.OFFSET) long offset,
+                                 @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) byte[] error) {
+        logger.error(AppConstants.Logger.KAFKA_DEAD_LETTER, topic, offset, message.length,
+            error == null ? null : new String(error, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A version conflict rolls the whole event back, so each retry re-reads the current row and merges the
+     * event onto it again; events older than the row are skipped by the service. Conflicts that outlast
+     * {@code maxConflictAttempts} are left to the retry topics.
+     */
+    private void applyWithRetry(Product productEvent, boolean processEvent) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                productService.handleProductEventFromKafka(productEvent, processEvent);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxConflictAttempts) {
+                    logger.warn(AppConstants.Logger.KAFKA_UPDATE_CONFLICT_GAVE_UP, productEvent.getId(), attempt);
+                    throw e;
+                }
+                logger.debug(AppConstants.Logger.KAFKA_UPDATE_CONFLICT_RETRY, productEvent.getId(), attempt,
+                    maxConflictAttempts);
+            }
         }
     }
+
+    private static Timer processingTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder(AppConstants.Metrics.KAFKA_CONSUMER_PROCESSING)
+            .tag(AppConstants.Metrics.TAG_PHASE, phase)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * This service sends its events after the write has committed, so there is nothing left to apply; only
+     * history is recorded for them.
+     */
+    private static boolean isOwnEvent(byte[] source) {
+        return source != null
+            && AppConstants.Kafka.SOURCE_PRODUCT_SERVICE.equals(new String(source, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The retry topics of products-topic carry its name as a prefix; those of the legacy topic do not.
+     */
+    private static boolean isProductsTopic(String topic) {
+        return topic.equals(AppConstants.Kafka.TOPIC_PRODUCTS)
+            || topic.startsWith(AppConstants.Kafka.TOPIC_PRODUCTS + "-");
+    }
 }
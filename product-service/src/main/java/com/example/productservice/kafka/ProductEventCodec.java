@@ -0,0 +1,76 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes product events for Kafka. The schema id travels in the {@code product-event-schema} record header;
+ * records without it (legacy JSON producers) are recognised by sniffing the Smile magic header.
+ */
+@Component
+public class ProductEventCodec {
+
+    private static final byte[] SMILE_MAGIC = {':', ')', '\n'};
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final boolean encodeSmile;
+
+    public ProductEventCodec(ObjectMapper objectMapper,
+                             @Value("${app.kafka.event-encoding:" + AppConstants.Kafka.ENCODING_JSON + "}")
+                             String encoding) {
+        this.jsonMapper = objectMapper;
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+        this.encodeSmile = AppConstants.Kafka.ENCODING_SMILE.equalsIgnoreCase(encoding);
+    }
+
+    public String schemaId() {
+        return encodeSmile ? AppConstants.Kafka.SCHEMA_SMILE_V1 : AppConstants.Kafka.SCHEMA_JSON_V1;
+    }
+
+    public byte[] encode(Product product) throws IOException {
+        return encodeSmile ? smileMapper.writeValueAsBytes(product) : jsonMapper.writeValueAsBytes(product);
+    }
+
+    public Product decode(byte[] payload, String schemaId) throws IOException {
+        if (schemaId == null) {
+            return isSmile(payload)
+                ? smileMapper.readValue(payload, Product.class)
+                : jsonMapper.readValue(payload, Product.class);
+        }
+        return switch (schemaId) {
+            case AppConstants.Kafka.SCHEMA_SMILE_V1 -> smileMapper.readValue(payload, Product.class);
+            case AppConstants.Kafka.SCHEMA_JSON_V1 -> jsonMapper.readValue(payload, Product.class);
+            default -> throw new IllegalArgumentException("Unsupported product event schema: " + schemaId);
+        };
+    }
+
+    public String describe(byte[] payload) {
+        if (payload == null) {
+            return "null";
+        }
+        if (isSmile(payload)) {
+            return "[smile, " + payload.length + " bytes]";
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private boolean isSmile(byte[] payload) {
+        if (payload == null || payload.length < SMILE_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < SMILE_MAGIC.length; i++) {
+            if (payload[i] != SMILE_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,40 +1,100 @@
 package com.example.productservice.kafka;
 
 import com.example.productservice.constant.AppConstants;
+import com.example.productservice.event.ProductMessageEvent;
 import com.example.productservice.model.Product;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
 
 @Profile("!test")
 @Component
 public class ProductProducer {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductProducer.class);
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ProductEventCodec productEventCodec;
+    private final PayloadLogSampler payloadLogSampler;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary payloadSize;
 
-    public ProductProducer(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public ProductProducer(KafkaTemplate<String, byte[]> kafkaTemplate, ProductEventCodec productEventCodec,
+                           PayloadLogSampler payloadLogSampler, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.productEventCodec = productEventCodec;
+        this.payloadLogSampler = payloadLogSampler;
+        this.meterRegistry = meterRegistry;
+        this.payloadSize = DistributionSummary.builder(AppConstants.Metrics.KAFKA_SEND_PAYLOAD_SIZE)
+            .baseUnit("bytes")
+            .tag(AppConstants.Metrics.TAG_TOPIC, AppConstants.Kafka.TOPIC_PRODUCTS)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Every pod acts on these events as soon as they arrive, so they are only sent once the write is visible
+     * in the database.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductMessage(ProductMessageEvent event) {
+        sendMessage(event.getProduct());
     }
 
     public void sendMessage(Product product) {
         try {
-            String json = objectMapper.writeValueAsString(product);
+            byte[] payload = productEventCodec.encode(product);
+            String schemaId = productEventCodec.schemaId();
+            Long productId = eventKey(product);
+
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                AppConstants.Kafka.TOPIC_PRODUCTS, productId == null ? null : productId.toString(), payload);
+            record.headers().add(AppConstants.Kafka.HEADER_SCHEMA, schemaId.getBytes(StandardCharsets.UTF_8));
+            record.headers().add(AppConstants.Kafka.HEADER_EVENT_ID,
+                UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+            record.headers().add(AppConstants.Kafka.HEADER_SOURCE,
+                AppConstants.Kafka.SOURCE_PRODUCT_SERVICE.getBytes(StandardCharsets.UTF_8));
+
+            payloadSize.record(payload.length);
+            Timer.Sample sample = Timer.start(meterRegistry);
 
-            kafkaTemplate.send(AppConstants.Kafka.TOPIC_PRODUCTS, json).whenComplete((result, ex) -> {
+            kafkaTemplate.send(record).whenComplete((result, ex) -> {
                 if (ex == null) {
-                    logger.info(AppConstants.Logger.MESSAGE_SENT, AppConstants.Kafka.TOPIC_PRODUCTS, json);
+                    sample.stop(sendLatency(AppConstants.Metrics.RESULT_SUCCESS));
+                    if (payloadLogSampler.shouldLog()) {
+                        logger.info(AppConstants.Logger.MESSAGE_SENT, AppConstants.Kafka.TOPIC_PRODUCTS,
+                            productId, schemaId, payload.length);
+                    }
                 } else {
-                    logger.error(AppConstants.Logger.MESSAGE_SEND_FAILED, AppConstants.Kafka.TOPIC_PRODUCTS, json, ex);
+                    sample.stop(sendLatency(AppConstants.Metrics.RESULT_FAILURE));
+                    logger.error(AppConstants.Logger.MESSAGE_SEND_FAILED, AppConstants.Kafka.TOPIC_PRODUCTS,
+                        productId, ex);
                 }
             });
         } catch (Exception e) {
             logger.error(AppConstants.Logger.ERROR_SERIALIZING, e);
         }
     }
+
+    private Long eventKey(Product product) {
+        return product.getOriginalProductId() != null ? product.getOriginalProductId() : product.getId();
+    }
+
+    private Timer sendLatency(String result) {
+        return Timer.builder(AppConstants.Metrics.KAFKA_SEND_LATENCY)
+            .tag(AppConstants.Metrics.TAG_TOPIC, AppConstants.Kafka.TOPIC_PRODUCTS)
+            .tag(AppConstants.Metrics.TAG_RESULT, result)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
 }
@@ -0,0 +1,87 @@
+package com.example.productservice.kafka;
+
+/**
+ * Fixed-size set of the last {@code capacity} 64-bit event id hashes. Ids are kept in insertion order in a ring
+ * and indexed by an open-addressing table, so adding an id evicts the oldest one and nothing is allocated after
+ * construction. Not thread-safe.
+ */
+final class RecentEventIds {
+
+    private static final long EMPTY = 0L;
+
+    private final long[] ring;
+    private final long[] table;
+    private final int mask;
+    private int next;
+    private int size;
+
+    RecentEventIds(int capacity) {
+        this.ring = new long[Math.max(1, capacity)];
+        this.table = new long[Integer.highestOneBit(ring.length * 2 - 1) << 1];
+        this.mask = table.length - 1;
+    }
+
+    boolean contains(long hash) {
+        long key = key(hash);
+        for (int slot = slot(key); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (table[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the id unless it is already present; returns false in that case.
+     */
+    boolean add(long hash) {
+        if (contains(hash)) {
+            return false;
+        }
+        long key = key(hash);
+        if (size == ring.length) {
+            remove(ring[next]);
+        } else {
+            size++;
+        }
+        ring[next] = key;
+        next = (next + 1) % ring.length;
+        int slot = slot(key);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Backward-shift deletion: later entries of the same probe run move up so lookups never stop early.
+     */
+    private void remove(long key) {
+        int slot = slot(key);
+        while (table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        for (int i = (hole + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(table[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static long key(long hash) {
+        return hash == EMPTY ? 1L : hash;
+    }
+}
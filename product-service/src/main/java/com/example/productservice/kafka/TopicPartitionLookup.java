@@ -0,0 +1,70 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Partition numbers of a topic, read from the brokers, for listeners that assign partitions themselves instead
+ * of joining a consumer group. Partitions added later are picked up on the next start. The lookup is retried
+ * while the brokers cannot be reached and then fails startup: a listener guessing at its partitions would
+ * silently miss writes on all the others.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.catalog-version.enabled"}, havingValue = "true",
+                       matchIfMissing = true)
+public class TopicPartitionLookup {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicPartitionLookup.class);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final Duration timeout;
+    private final int attempts;
+    private final Duration backoff;
+
+    public TopicPartitionLookup(ConsumerFactory<String, byte[]> consumerFactory,
+                                @Value("${app.kafka.catalog-version.metadata-timeout:PT10S}") Duration timeout,
+                                @Value("${app.kafka.catalog-version.metadata-attempts:6}") int attempts,
+                                @Value("${app.kafka.catalog-version.metadata-backoff:PT5S}") Duration backoff) {
+        this.consumerFactory = consumerFactory;
+        this.timeout = timeout;
+        this.attempts = attempts;
+        this.backoff = backoff;
+    }
+
+    public String[] partitions(String topic) {
+        for (int attempt = 1; ; attempt++) {
+            String reason;
+            try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(null, "partition-lookup")) {
+                List<PartitionInfo> partitions = consumer.partitionsFor(topic, timeout);
+                if (partitions != null && !partitions.isEmpty()) {
+                    return partitions.stream().map(info -> String.valueOf(info.partition())).toArray(String[]::new);
+                }
+                reason = "no partitions";
+            } catch (KafkaException e) {
+                reason = e.getMessage();
+            }
+            logger.warn(AppConstants.Logger.PARTITION_LOOKUP_FAILED, topic, reason, attempt, attempts);
+            if (attempt >= attempts) {
+                throw new IllegalStateException("Could not read the partitions of " + topic + " after "
+                    + attempts + " attempts: " + reason);
+            }
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading the partitions of " + topic, e);
+            }
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.example.productservice.mapper;
 
 import com.example.productservice.dto.PageResponseDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.LongSupplier;
 
 public class PageMapper {
 
@@ -18,10 +20,41 @@ public class PageMapper {
             .pageSize(page.getSize())
             .totalElements(page.getTotalElements())
             .totalPages(page.getTotalPages())
+            .totalExact(true)
             .isFirst(page.isFirst())
             .isLast(page.isLast())
             .hasNext(page.hasNext())
             .hasPrevious(page.hasPrevious())
             .build();
     }
+
+    /**
+     * Maps a slice without an exact count. Totals are omitted when {@code estimatedTotal} is null. On the last
+     * slice the total is known from the offset, so it is reported as exact and the estimate is not requested.
+     */
+    public static <T> PageResponseDTO<T> toSliceResponseDTO(Slice<T> slice, LongSupplier estimatedTotal) {
+        PageResponseDTO<T> response = PageResponseDTO.<T>builder()
+            .content(slice.getContent())
+            .pageNumber(slice.getNumber())
+            .pageSize(slice.getSize())
+            .isFirst(slice.isFirst())
+            .isLast(slice.isLast())
+            .hasNext(slice.hasNext())
+            .hasPrevious(slice.hasPrevious())
+            .build();
+
+        if (estimatedTotal == null) {
+            return response;
+        }
+        long seen = slice.getPageable().isPaged()
+            ? slice.getPageable().getOffset() + slice.getNumberOfElements()
+            : slice.getNumberOfElements();
+        boolean exact = !slice.hasNext();
+        long total = exact ? seen : Math.max(estimatedTotal.getAsLong(), seen + 1);
+
+        response.setTotalElements(total);
+        response.setTotalPages(slice.getSize() == 0 ? 1 : (int) Math.ceil((double) total / slice.getSize()));
+        response.setTotalExact(exact);
+        return response;
+    }
 }
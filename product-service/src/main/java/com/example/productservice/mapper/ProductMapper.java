@@ -4,6 +4,7 @@ import com.example.productservice.dto.ProductRequestDTO;
 import com.example.productservice.dto.ProductResponseDTO;
 import com.example.productservice.model.Product;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.factory.Mappers;
 
@@ -14,7 +15,9 @@ public interface ProductMapper {
 
     ProductResponseDTO productToProductResponseDTO(Product product);
 
+    @Mapping(target = "version", ignore = true)
     Product productRequestDTOToProduct(ProductRequestDTO productRequestDTO);
 
+    @Mapping(target = "version", ignore = true)
     void updateProductFromDTO(ProductRequestDTO dto, @MappingTarget Product product);
 }
@@ -0,0 +1,76 @@
+package com.example.productservice.metrics;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.security.TenantProvider;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Records latency of ProductController endpoints and ProductService methods, tagged by tenant bucket.
+ * Timers publish client-side percentiles (HdrHistogram-backed) and percentile histogram buckets for Prometheus.
+ * Timers of tenants that drop out of the tracked set are removed, so only the current top tenants plus
+ * {@code other} and {@code none} have timers at any time.
+ */
+@Aspect
+@Component
+public class LatencyMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final TenantTagResolver tenantTagResolver;
+
+    public LatencyMetricsAspect(MeterRegistry meterRegistry, TenantTagResolver tenantTagResolver) {
+        this.meterRegistry = meterRegistry;
+        this.tenantTagResolver = tenantTagResolver;
+        tenantTagResolver.onRankingChange(this::removeUntrackedTimers);
+    }
+
+    @Around("within(com.example.productservice.controller.ProductController)")
+    public Object timeEndpoint(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(joinPoint, AppConstants.Metrics.API_LATENCY, AppConstants.Metrics.TAG_ENDPOINT);
+    }
+
+    @Around("within(com.example.productservice.service.ProductService)")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(joinPoint, AppConstants.Metrics.SERVICE_LATENCY, AppConstants.Metrics.TAG_METHOD);
+    }
+
+    void removeUntrackedTimers(Set<String> trackedTenants) {
+        for (String metricName : new String[]{AppConstants.Metrics.API_LATENCY, AppConstants.Metrics.SERVICE_LATENCY}) {
+            for (Meter meter : meterRegistry.find(metricName).meters()) {
+                String tenant = meter.getId().getTag(AppConstants.Metrics.TAG_TENANT);
+                if (tenant != null && !trackedTenants.contains(tenant)
+                        && !AppConstants.Metrics.TENANT_OTHER.equals(tenant)
+                        && !AppConstants.Metrics.TENANT_NONE.equals(tenant)) {
+                    meterRegistry.remove(meter);
+                }
+            }
+        }
+    }
+
+    private Object record(ProceedingJoinPoint joinPoint, String metricName, String nameTag) throws Throwable {
+        String tenant = tenantTagResolver.resolve(TenantProvider.getTenantIdOrNull());
+        String outcome = AppConstants.Metrics.RESULT_SUCCESS;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            outcome = AppConstants.Metrics.RESULT_FAILURE;
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(metricName)
+                .tag(nameTag, joinPoint.getSignature().getName())
+                .tag(AppConstants.Metrics.TAG_TENANT, tenant)
+                .tag(AppConstants.Metrics.TAG_RESULT, outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.productservice.metrics;
+
+import com.example.productservice.constant.AppConstants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Maps a tenant id to a metric tag value. Only the busiest {@code topN} tenants keep their own tag;
+ * everyone else is reported as {@code other} so tag cardinality stays bounded. The ranking is
+ * recomputed every refresh interval from decayed request counts; listeners are told when the set of tracked
+ * tenants changes so meters of tenants that dropped out can be removed.
+ */
+@Component
+public class TenantTagResolver {
+
+    private final int topN;
+    private final int maxCandidates;
+    private final long refreshIntervalNanos;
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong nextRefreshNanos;
+    private final List<Consumer<Set<String>>> rankingListeners = new CopyOnWriteArrayList<>();
+    private volatile Set<String> trackedTenants = Set.of();
+
+    public TenantTagResolver(@Value("${app.metrics.tenant.top-n:10}") int topN,
+                             @Value("${app.metrics.tenant.refresh-interval:PT1M}") Duration refreshInterval) {
+        this.topN = topN;
+        this.maxCandidates = Math.max(topN * 20, 100);
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.nextRefreshNanos = new AtomicLong(System.nanoTime() + refreshIntervalNanos);
+    }
+
+    public String resolve(String tenantId) {
+        if (tenantId == null) {
+            return AppConstants.Metrics.TENANT_NONE;
+        }
+        LongAdder count = requestCounts.get(tenantId);
+        if (count == null && requestCounts.size() < maxCandidates) {
+            count = requestCounts.computeIfAbsent(tenantId, key -> new LongAdder());
+        }
+        if (count != null) {
+            count.increment();
+        }
+        refreshIfDue();
+        return trackedTenants.contains(tenantId) ? tenantId : AppConstants.Metrics.TENANT_OTHER;
+    }
+
+    /**
+     * Called with the new set of tracked tenants whenever the ranking changes it.
+     */
+    public void onRankingChange(Consumer<Set<String>> listener) {
+        rankingListeners.add(listener);
+    }
+
+    private void refreshIfDue() {
+        long now = System.nanoTime();
+        long due = nextRefreshNanos.get();
+        if (now - due >= 0 && nextRefreshNanos.compareAndSet(due, now + refreshIntervalNanos)) {
+            refreshRanking();
+        }
+    }
+
+    void refreshRanking() {
+        Map<String, Long> snapshot = requestCounts.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sumThenReset()));
+        Set<String> previous = trackedTenants;
+        trackedTenants = snapshot.entrySet().stream()
+            .filter(entry -> entry.getValue() > 0)
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .limit(topN)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toUnmodifiableSet());
+        if (!trackedTenants.equals(previous)) {
+            rankingListeners.forEach(listener -> listener.accept(trackedTenants));
+        }
+
+        // Carry half of each count into the next window so the ranking follows recent traffic
+        snapshot.forEach((tenant, total) -> {
+            if (total < 2) {
+                requestCounts.remove(tenant);
+            } else {
+                requestCounts.get(tenant).add(total / 2);
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.productservice.metrics;
+
+import com.example.productservice.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.kafka.ConsumerLagMonitor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes {@code product.work.pressure}, the autoscaling signal: how much work is waiting on this pod,
+ * where 1.0 means it is at its target and the HPA should add capacity. It is the largest of three parts,
+ * each also published as {@code product.work.pressure.component{source}}:
+ * <ul>
+ *   <li>{@code kafka_lag}: lag of the partitions this pod consumes over {@code lag-per-replica}. Each pod only
+ *       counts the partitions it owns, so the HPA's average across pods is total lag per replica;</li>
+ *   <li>{@code db_pool}: threads waiting for a Hikari connection as a share of the pool size, over
+ *       {@code pending-target};</li>
+ *   <li>{@code requests}: in-flight requests as a share of the adaptive concurrency limit, over
+ *       {@code request-utilization-target}.</li>
+ * </ul>
+ * All three rise before latency does, unlike CPU, which stays flat while threads wait on the database.
+ */
+@Component
+@Lazy(false)
+public class WorkPressureMeter {
+
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ObjectProvider<ConsumerLagMonitor> consumerLagMonitor;
+    private final ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry;
+    private final double lagPerReplica;
+    private final double pendingTarget;
+    private final double requestUtilizationTarget;
+
+    public WorkPressureMeter(MeterRegistry meterRegistry, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                             ObjectProvider<ConsumerLagMonitor> consumerLagMonitor,
+                             ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry,
+                             @Value("${app.autoscaling.lag-per-replica:1000}") double lagPerReplica,
+                             @Value("${app.autoscaling.pending-target:0.5}") double pendingTarget,
+                             @Value("${app.autoscaling.request-utilization-target:0.7}")
+                             double requestUtilizationTarget) {
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.consumerLagMonitor = consumerLagMonitor;
+        this.listenerRegistry = listenerRegistry;
+        this.lagPerReplica = lagPerReplica;
+        this.pendingTarget = pendingTarget;
+        this.requestUtilizationTarget = requestUtilizationTarget;
+
+        Gauge.builder(AppConstants.Metrics.WORK_PRESSURE, this, WorkPressureMeter::pressure)
+            .register(meterRegistry);
+        component(AppConstants.Metrics.SOURCE_KAFKA_LAG, WorkPressureMeter::lagPressure);
+        component(AppConstants.Metrics.SOURCE_DB_POOL, WorkPressureMeter::poolPressure);
+        component(AppConstants.Metrics.SOURCE_REQUESTS, WorkPressureMeter::requestPressure);
+    }
+
+    public double pressure() {
+        return Math.max(lagPressure(), Math.max(poolPressure(), requestPressure()));
+    }
+
+    double lagPressure() {
+        ConsumerLagMonitor monitor = consumerLagMonitor.getIfAvailable();
+        KafkaListenerEndpointRegistry registry = listenerRegistry.getIfAvailable();
+        if (monitor == null || registry == null) {
+            return 0;
+        }
+        List<TopicPartition> owned = new ArrayList<>();
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            Collection<TopicPartition> assigned = container.getAssignedPartitions();
+            if (AppConstants.Kafka.GROUP_ID_COMBINED.equals(container.getGroupId()) && assigned != null) {
+                owned.addAll(assigned);
+            }
+        }
+        return monitor.lagOf(AppConstants.Kafka.GROUP_ID_COMBINED, owned) / lagPerReplica;
+    }
+
+    double poolPressure() {
+        double max = sum(AppConstants.Metrics.HIKARI_MAX);
+        return max > 0 ? sum(AppConstants.Metrics.HIKARI_PENDING) / max / pendingTarget : 0;
+    }
+
+    double requestPressure() {
+        int limit = concurrencyLimiter.getLimit();
+        return limit > 0 ? (double) concurrencyLimiter.getInFlight() / limit / requestUtilizationTarget : 0;
+    }
+
+    private double sum(String gaugeName) {
+        return meterRegistry.find(gaugeName).gauges().stream().mapToDouble(Gauge::value).sum();
+    }
+
+    private void component(String source, ToDoubleFunction<WorkPressureMeter> value) {
+        Gauge.builder(AppConstants.Metrics.WORK_PRESSURE_COMPONENT, this, value)
+            .tag(AppConstants.Metrics.TAG_SOURCE, source)
+            .register(meterRegistry);
+    }
+}
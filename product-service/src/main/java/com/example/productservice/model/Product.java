@@ -1,33 +1,40 @@
 package com.example.productservice.model;
 
 import com.example.productservice.constant.AppConstants;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.validator.group.GroupSequenceProvider;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AppConstants.Cache.PRODUCT_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@GroupSequenceProvider(ProductGroupSequenceProvider.class)
 public class Product extends TenantEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @NotBlank(message = AppConstants.Validation.PRODUCT_NAME_REQUIRED)
+    @NotBlank(message = AppConstants.Validation.PRODUCT_NAME_REQUIRED, groups = FullRow.class)
     private String name;
 
-    @NotBlank(message = AppConstants.Validation.PRODUCT_DESCRIPTION_REQUIRED)
+    @NotBlank(message = AppConstants.Validation.PRODUCT_DESCRIPTION_REQUIRED, groups = FullRow.class)
     private String description;
 
-    @NotBlank(message = AppConstants.Validation.PRODUCT_CATEGORY_REQUIRED)
+    @NotBlank(message = AppConstants.Validation.PRODUCT_CATEGORY_REQUIRED, groups = FullRow.class)
     private String category;
 
     @NotNull(message = AppConstants.Validation.PRODUCT_PRICE_REQUIRED)
@@ -42,9 +49,33 @@ public class Product extends TenantEntity {
     private String eventType;
     private LocalDateTime eventTime;
 
+    /**
+     * Set on delta history rows: the full history row that null name, description and category are read
+     * from. A storage detail, so it is never serialized into events.
+     */
+    @JsonIgnore
+    private Long historyBaseId;
+
+    /**
+     * Units of {@link #stockQuantity} leased to instances for local reservations; who holds them is kept in
+     * {@code stock_lease}. Only the stock queries in {@code ProductRepository} change it, so entity writes never do.
+     */
+    @JsonIgnore
+    @Column(insertable = false, updatable = false, columnDefinition = "INTEGER DEFAULT 0 NOT NULL")
+    private Integer stockLeased;
+
+    @Version
+    private Long version;
+
     public Product(String name, Double price) {
         this.name = name;
         this.price = price;
         this.eventTime = LocalDateTime.now();
     }
+
+    /**
+     * Constraints that only hold for full rows; delta history rows leave unchanged fields null.
+     */
+    public interface FullRow {
+    }
 }
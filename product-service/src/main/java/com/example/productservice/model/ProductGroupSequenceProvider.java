@@ -0,0 +1,22 @@
+package com.example.productservice.model;
+
+import org.hibernate.validator.spi.group.DefaultGroupSequenceProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates {@link Product.FullRow} constraints on everything except delta history rows.
+ */
+public class ProductGroupSequenceProvider implements DefaultGroupSequenceProvider<Product> {
+
+    @Override
+    public List<Class<?>> getValidationGroups(Product product) {
+        List<Class<?>> groups = new ArrayList<>();
+        groups.add(Product.class);
+        if (product == null || product.getHistoryBaseId() == null) {
+            groups.add(Product.FullRow.class);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.productservice.replay;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.model.Product;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC access to {@code product_staging}, the table a replay writes into before it is promoted over the current
+ * rows of {@code product}. Rows are written in batches of one statement per product.
+ * Events written before the producer keyed them by product can put one product's events on several
+ * partitions, so the staged row only moves to a newer (or unversioned) state and a staged deletion is final;
+ * product ids are never reused. Writes from the readers are serialized so that check and insert do not race.
+ */
+@Repository
+public class ProductStagingTable {
+
+    private static final String POSTGRES = "PostgreSQL";
+
+    private static final String UPDATE_STAGED = "UPDATE product_staging SET name = ?, description = ?, category = ?, "
+        + "price = ?, stock_quantity = ?, tenant_id = ?, version = ?, event_time = COALESCE(event_time, ?) "
+        + "WHERE id = ? AND deleted = FALSE";
+    private static final String UPDATE_STAGED_VERSIONED = UPDATE_STAGED + " AND (version IS NULL OR version <= ?)";
+    private static final String UPDATE_DELETED =
+        "UPDATE product_staging SET deleted = TRUE, event_time = NULL WHERE id = ?";
+    private static final String INSERT = "INSERT INTO product_staging (id, name, description, category, price, "
+        + "stock_quantity, tenant_id, version, event_time, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Promotion never rolls back a live write made after the replay started: rows with a newer version keep it,
+    // products deleted since (they have a DELETED history row) are not re-created, and rows created since are
+    // not removed by a replace-all promotion.
+    private static final String UPDATABLE = "original_product_id IS NULL AND id IN (SELECT s.id FROM product_staging s "
+        + "WHERE s.deleted = FALSE AND (s.version IS NULL OR s.version >= product.version))";
+    private static final String INSERTABLE = "s.deleted = FALSE "
+        + "AND NOT EXISTS (SELECT 1 FROM product p WHERE p.id = s.id) "
+        + "AND NOT EXISTS (SELECT 1 FROM product h WHERE h.original_product_id = s.id AND h.event_type = '"
+        + AppConstants.Event.TYPE_DELETED + "')";
+    private static final String DELETABLE = "original_product_id IS NULL "
+        + "AND id IN (SELECT id FROM product_staging WHERE deleted = TRUE)";
+    private static final String UNSTAGED = "original_product_id IS NULL "
+        + "AND id NOT IN (SELECT id FROM product_staging WHERE deleted = FALSE) "
+        + "AND (event_time IS NULL OR event_time < ?)";
+
+    private static final String PROMOTE_UPDATE = "UPDATE product SET "
+        + "name = (SELECT s.name FROM product_staging s WHERE s.id = product.id), "
+        + "description = (SELECT s.description FROM product_staging s WHERE s.id = product.id), "
+        + "category = (SELECT s.category FROM product_staging s WHERE s.id = product.id), "
+        + "price = (SELECT s.price FROM product_staging s WHERE s.id = product.id), "
+        + "stock_quantity = (SELECT s.stock_quantity FROM product_staging s WHERE s.id = product.id), "
+        + "tenant_id = (SELECT s.tenant_id FROM product_staging s WHERE s.id = product.id), "
+        + "version = version + 1 WHERE " + UPDATABLE;
+    private static final String PROMOTE_INSERT = "INSERT INTO product (id, name, description, category, price, "
+        + "stock_quantity, event_type, event_time, tenant_id, version) "
+        + "SELECT s.id, s.name, s.description, s.category, s.price, s.stock_quantity, '"
+        + AppConstants.Event.TYPE_CREATED + "', COALESCE(s.event_time, CURRENT_TIMESTAMP), s.tenant_id, "
+        + "COALESCE(s.version, 0) FROM product_staging s WHERE " + INSERTABLE;
+    private static final String SELECT_CURRENT = "SELECT id, name, description, category, price, stock_quantity, "
+        + "event_time, tenant_id, version FROM product WHERE ";
+
+    private static final RowMapper<Product> PRODUCT_ROW = (rs, rowNum) -> {
+        Product product = new Product(rs.getString("name"), rs.getDouble("price"));
+        product.setId(rs.getLong("id"));
+        product.setDescription(rs.getString("description"));
+        product.setCategory(rs.getString("category"));
+        product.setStockQuantity(rs.getInt("stock_quantity"));
+        Timestamp eventTime = rs.getTimestamp("event_time");
+        product.setEventTime(eventTime == null ? null : eventTime.toLocalDateTime());
+        product.setTenantId(rs.getString("tenant_id"));
+        product.setVersion(rs.getLong("version"));
+        return product;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStagingTable(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM product_staging");
+    }
+
+    /**
+     * Writes the latest state of each product; a null value marks the product deleted.
+     */
+    public synchronized void write(Map<Long, Product> products) {
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> versionedUpdates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Long> updateIds = new ArrayList<>();
+        List<Long> versionedIds = new ArrayList<>();
+        List<Long> deleteIds = new ArrayList<>();
+        products.forEach((id, product) -> {
+            if (product == null) {
+                deletes.add(new Object[] {id});
+                deleteIds.add(id);
+            } else if (product.getVersion() == null) {
+                updates.add(stagedValues(id, product));
+                updateIds.add(id);
+            } else {
+                Object[] values = Arrays.copyOf(stagedValues(id, product), 10);
+                values[9] = product.getVersion();
+                versionedUpdates.add(values);
+                versionedIds.add(id);
+            }
+        });
+
+        List<Long> missed = new ArrayList<>();
+        addMissed(jdbcTemplate.batchUpdate(UPDATE_STAGED, updates), updateIds, missed);
+        addMissed(jdbcTemplate.batchUpdate(UPDATE_STAGED_VERSIONED, versionedUpdates), versionedIds, missed);
+        addMissed(jdbcTemplate.batchUpdate(UPDATE_DELETED, deletes), deleteIds, missed);
+        missed.removeAll(stagedIds(missed));
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (Long id : missed) {
+            Product product = products.get(id);
+            if (product == null) {
+                inserts.add(new Object[] {id, null, null, null, null, null, null, null, null, true});
+            } else {
+                inserts.add(new Object[] {id, product.getName(), product.getDescription(), product.getCategory(),
+                    product.getPrice(), product.getStockQuantity(), product.getTenantId(), product.getVersion(),
+                    product.getEventTime(), false});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT, inserts);
+    }
+
+    /**
+     * Applies the staged products to {@code product} and empties the staging table, all in one transaction.
+     * With {@code replaceAll}, current products that were not staged and existed before {@code stagedSince}
+     * are deleted too; history rows are never touched. The result lists the products that were written and
+     * the state of the ones that were deleted, so they can be announced like any other write.
+     */
+    @Transactional
+    public PromoteResult promote(boolean replaceAll, LocalDateTime stagedSince) {
+        List<String> tenants = jdbcTemplate.queryForList(
+            "SELECT DISTINCT tenant_id FROM product_staging WHERE tenant_id IS NOT NULL", String.class);
+        List<Long> written = new ArrayList<>(
+            jdbcTemplate.queryForList("SELECT id FROM product WHERE " + UPDATABLE, Long.class));
+        int updated = jdbcTemplate.update(PROMOTE_UPDATE);
+        written.addAll(jdbcTemplate.queryForList("SELECT s.id FROM product_staging s WHERE " + INSERTABLE, Long.class));
+        int inserted = jdbcTemplate.update(PROMOTE_INSERT);
+        List<Product> removed;
+        int deleted;
+        if (replaceAll) {
+            Timestamp since = Timestamp.valueOf(stagedSince);
+            removed = jdbcTemplate.query(SELECT_CURRENT + UNSTAGED, PRODUCT_ROW, since);
+            deleted = jdbcTemplate.update("DELETE FROM product WHERE " + UNSTAGED, since);
+        } else {
+            removed = jdbcTemplate.query(SELECT_CURRENT + DELETABLE, PRODUCT_ROW);
+            deleted = jdbcTemplate.update("DELETE FROM product WHERE " + DELETABLE);
+        }
+        clear();
+        return new PromoteResult(updated, inserted, deleted, tenants, written, removed);
+    }
+
+    /**
+     * Promoted rows keep their product ids, so the id generator has to move past every staged id before they are
+     * inserted; otherwise a live write could take one of them first.
+     */
+    public void resetIdentity() {
+        long next = jdbcTemplate.queryForObject("SELECT GREATEST(COALESCE((SELECT MAX(id) FROM product), 0), "
+            + "COALESCE((SELECT MAX(id) FROM product_staging), 0)) + 1", Long.class);
+        boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+            POSTGRES.equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())));
+        if (postgres) {
+            jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('product', 'id'), ?, false)",
+                Long.class, next);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE product ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+
+    private Set<Long> stagedIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM product_staging WHERE id IN (" + placeholders
+            + ")", Long.class, ids.toArray()));
+    }
+
+    private static Object[] stagedValues(Long id, Product product) {
+        return new Object[] {product.getName(), product.getDescription(), product.getCategory(), product.getPrice(),
+            product.getStockQuantity(), product.getTenantId(), product.getVersion(), product.getEventTime(), id};
+    }
+
+    private static void addMissed(int[] counts, List<Long> ids, List<Long> missed) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missed.add(ids.get(i));
+            }
+        }
+    }
+
+    public record PromoteResult(int updated, int inserted, int deleted, List<String> tenants, List<Long> written,
+                                List<Product> removed) {
+    }
+}
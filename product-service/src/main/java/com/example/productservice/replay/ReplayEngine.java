@@ -0,0 +1,297 @@
+package com.example.productservice.replay;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.kafka.HistoryBuilder;
+import com.example.productservice.kafka.ProductEventCodec;
+import com.example.productservice.kafka.ProductProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.service.CatalogVersionTracker;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rebuilds current product rows from the products topic without going through the live consumer.
+ * <ul>
+ *   <li>The range ends at the partition end offsets taken when the replay starts, and begins at the start of
+ *       the topic or at the first offset on or after {@code from}.</li>
+ *   <li>Every partition is read by its own consumer, up to {@code readers} at a time. Events are keyed by
+ *       product, but older unkeyed events can spread one product over several partitions; the staging table
+ *       keeps the highest version it sees, so the result does not depend on which reader finishes first.</li>
+ *   <li>Each reader folds its events into the latest state per product and writes one staging row per product
+ *       per batch; a product updated a thousand times costs one row write per batch, not a thousand.</li>
+ * </ul>
+ * {@link #promote} then swaps the staged state in and announces every promoted product on the products topic,
+ * so consumers record history and every instance evicts the product from its caches. Replay runs with this
+ * instance's live listener switched off ({@code app.replay.enabled}); other instances keep serving writes, and
+ * promotion skips any product they changed after the replay started.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class ReplayEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final ProductEventCodec productEventCodec;
+    private final ProductStagingTable stagingTable;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogVersionTracker catalogVersionTracker;
+    private final ProductRepository productRepository;
+    private final ProductProducer productProducer;
+    private final KafkaAdmin kafkaAdmin;
+    private final int readers;
+    private final int batchSize;
+    private final Duration pollTimeout;
+    private volatile LocalDateTime stagedSince;
+
+    public ReplayEngine(ConsumerFactory<String, byte[]> consumerFactory, ProductEventCodec productEventCodec,
+                        ProductStagingTable stagingTable, EntityManagerFactory entityManagerFactory,
+                        CatalogVersionTracker catalogVersionTracker, ProductRepository productRepository,
+                        ProductProducer productProducer, KafkaAdmin kafkaAdmin,
+                        @Value("${app.replay.readers:8}") int readers,
+                        @Value("${app.replay.batch-size:1000}") int batchSize,
+                        @Value("${app.replay.poll-timeout:PT1S}") Duration pollTimeout) {
+        this.consumerFactory = consumerFactory;
+        this.productEventCodec = productEventCodec;
+        this.stagingTable = stagingTable;
+        this.entityManagerFactory = entityManagerFactory;
+        this.catalogVersionTracker = catalogVersionTracker;
+        this.productRepository = productRepository;
+        this.productProducer = productProducer;
+        this.kafkaAdmin = kafkaAdmin;
+        this.readers = readers;
+        this.batchSize = batchSize;
+        this.pollTimeout = pollTimeout;
+    }
+
+    /**
+     * Fails unless {@code topic} still holds every event ever written to it: it starts at offset 0 on every
+     * partition and is compacted or keeps records forever. Only then does a replay from the beginning know about
+     * every product, which a replace-all promotion relies on to delete the ones it did not see.
+     */
+    public void requireCompleteTopic(String topic) {
+        ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, topic);
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+             Consumer<String, byte[]> consumer = createConsumer("-meta")) {
+            Config config = admin.describeConfigs(List.of(resource)).all().get().get(resource);
+            String cleanupPolicy = config.get(TopicConfig.CLEANUP_POLICY_CONFIG).value();
+            String retention = config.get(TopicConfig.RETENTION_MS_CONFIG).value();
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(topic)) {
+                partitions.add(new TopicPartition(topic, info.partition()));
+            }
+            boolean fromStart = consumer.beginningOffsets(partitions).values().stream().allMatch(offset -> offset == 0);
+            boolean keepsAll = TopicConfig.CLEANUP_POLICY_COMPACT.equals(cleanupPolicy) || "-1".equals(retention);
+            if (!fromStart || !keepsAll) {
+                throw new IllegalStateException(String.format(AppConstants.Logger.REPLAY_TOPIC_INCOMPLETE, topic,
+                    cleanupPolicy, retention));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not read the configuration of " + topic, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the configuration of " + topic, e);
+        }
+    }
+
+    /**
+     * Replays {@code topic} from {@code from} (the beginning when null) into an empty staging table.
+     */
+    public ReplayReport replay(String topic, Instant from) throws InterruptedException {
+        long started = System.nanoTime();
+        stagedSince = LocalDateTime.now();
+        Map<TopicPartition, Long> startOffsets;
+        Map<TopicPartition, Long> endOffsets;
+        try (Consumer<String, byte[]> consumer = createConsumer("-meta")) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(topic)) {
+                partitions.add(new TopicPartition(topic, info.partition()));
+            }
+            endOffsets = consumer.endOffsets(partitions);
+            startOffsets = from == null ? consumer.beginningOffsets(partitions) : offsetsAt(consumer, partitions, from,
+                endOffsets);
+        }
+
+        stagingTable.clear();
+        int threads = Math.max(1, Math.min(readers, startOffsets.size()));
+        logger.info(AppConstants.Logger.REPLAY_STARTED, topic, from == null ? "the beginning" : from,
+            startOffsets.size(), threads);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ReplayReport>> results = new ArrayList<>();
+            startOffsets.forEach((partition, start) ->
+                results.add(pool.submit(() -> read(partition, start, endOffsets.get(partition)))));
+            ReplayReport total = ReplayReport.EMPTY;
+            for (Future<ReplayReport> result : results) {
+                total = total.plus(result.get());
+            }
+            ReplayReport report = total.withElapsed(Duration.ofNanos(System.nanoTime() - started));
+            logger.info(AppConstants.Logger.REPLAY_FINISHED, topic, report);
+            return report;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay of " + topic + " failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Moves the staged products into the product table. {@code replaceAll} also deletes current products that
+     * were not staged, which is only right after replaying a topic that passes {@link #requireCompleteTopic}.
+     */
+    public ProductStagingTable.PromoteResult promote(boolean replaceAll) {
+        if (stagedSince == null) {
+            throw new IllegalStateException("Nothing has been replayed into the staging table");
+        }
+        stagingTable.resetIdentity();
+        ProductStagingTable.PromoteResult result = stagingTable.promote(replaceAll, stagedSince);
+        entityManagerFactory.getCache().evictAll();
+        result.tenants().forEach(catalogVersionTracker::bump);
+        announce(result);
+        logger.info(AppConstants.Logger.REPLAY_PROMOTED, result.updated(), result.inserted(), result.deleted());
+        return result;
+    }
+
+    /**
+     * Sends the promoted state like any other write: UPDATED for written products, DELETED history rows for
+     * removed ones.
+     */
+    private void announce(ProductStagingTable.PromoteResult result) {
+        List<Long> written = result.written();
+        for (int from = 0; from < written.size(); from += batchSize) {
+            productRepository.findAllById(written.subList(from, Math.min(from + batchSize, written.size())))
+                .forEach(product -> {
+                    product.setEventType(AppConstants.Event.TYPE_UPDATED);
+                    productProducer.sendMessage(product);
+                });
+        }
+        for (Product removed : result.removed()) {
+            Product history = HistoryBuilder.createHistory(removed, AppConstants.Event.TYPE_DELETED);
+            history.setTenantId(removed.getTenantId());
+            productProducer.sendMessage(history);
+        }
+    }
+
+    private ReplayReport read(TopicPartition partition, long start, long end) {
+        if (start >= end) {
+            return ReplayReport.EMPTY.withPartitions(1);
+        }
+        long events = 0;
+        long skipped = 0;
+        long staged = 0;
+        Map<Long, Product> pending = new LinkedHashMap<>();
+        try (Consumer<String, byte[]> consumer = createConsumer("-" + partition.partition())) {
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, start);
+            while (consumer.position(partition) < end) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(pollTimeout)) {
+                    if (record.offset() >= end) {
+                        break;
+                    }
+                    Product event = decode(record);
+                    Long productId = event == null ? null : productId(event);
+                    if (productId == null || (!isDeleted(event) && event.getTenantId() == null)) {
+                        skipped++;
+                        continue;
+                    }
+                    events++;
+                    apply(pending, productId, event);
+                    if (pending.size() >= batchSize) {
+                        stagingTable.write(pending);
+                        staged += pending.size();
+                        pending.clear();
+                    }
+                }
+            }
+        }
+        stagingTable.write(pending);
+        staged += pending.size();
+        return new ReplayReport(1, events, skipped, staged, Duration.ZERO);
+    }
+
+    /**
+     * Latest state wins; a product keeps the creation time it was first staged with until it is deleted.
+     */
+    private static void apply(Map<Long, Product> pending, Long productId, Product event) {
+        if (isDeleted(event)) {
+            pending.put(productId, null);
+            return;
+        }
+        Product previous = pending.get(productId);
+        if (previous != null && previous.getEventTime() != null) {
+            event.setEventTime(previous.getEventTime());
+        }
+        pending.put(productId, event);
+    }
+
+    private Product decode(ConsumerRecord<String, byte[]> record) {
+        Header schema = record.headers().lastHeader(AppConstants.Kafka.HEADER_SCHEMA);
+        try {
+            return productEventCodec.decode(record.value(),
+                schema == null ? null : new String(schema.value(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            logger.warn(AppConstants.Logger.REPLAY_SKIPPED_EVENT, record.offset(), record.partition(), e);
+            return null;
+        }
+    }
+
+    private static Long productId(Product event) {
+        return event.getOriginalProductId() != null ? event.getOriginalProductId() : event.getId();
+    }
+
+    private static boolean isDeleted(Product event) {
+        return AppConstants.Event.TYPE_DELETED.equals(event.getEventType());
+    }
+
+    private static Map<TopicPartition, Long> offsetsAt(Consumer<String, byte[]> consumer,
+                                                       List<TopicPartition> partitions, Instant from,
+                                                       Map<TopicPartition, Long> endOffsets) {
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        partitions.forEach(partition -> timestamps.put(partition, from.toEpochMilli()));
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        consumer.offsetsForTimes(timestamps).forEach((partition, offset) ->
+            offsets.put(partition, offset == null ? endOffsets.get(partition) : offset.offset()));
+        return offsets;
+    }
+
+    private Consumer<String, byte[]> createConsumer(String clientIdSuffix) {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchSize));
+        return consumerFactory.createConsumer(AppConstants.Kafka.GROUP_ID_REPLAY, AppConstants.Kafka.GROUP_ID_REPLAY,
+            clientIdSuffix, overrides);
+    }
+}
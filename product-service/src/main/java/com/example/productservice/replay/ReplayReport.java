@@ -0,0 +1,25 @@
+package com.example.productservice.replay;
+
+import java.time.Duration;
+
+/**
+ * Totals of one replay: {@code events} applied (superseded ones included), {@code skipped} events that could
+ * not be decoded or tied to a product and tenant, and {@code staged} staging row writes.
+ */
+public record ReplayReport(int partitions, long events, long skipped, long staged, Duration elapsed) {
+
+    static final ReplayReport EMPTY = new ReplayReport(0, 0, 0, 0, Duration.ZERO);
+
+    ReplayReport plus(ReplayReport other) {
+        return new ReplayReport(partitions + other.partitions, events + other.events, skipped + other.skipped,
+            staged + other.staged, elapsed);
+    }
+
+    ReplayReport withPartitions(int count) {
+        return new ReplayReport(count, events, skipped, staged, elapsed);
+    }
+
+    ReplayReport withElapsed(Duration duration) {
+        return new ReplayReport(partitions, events, skipped, staged, duration);
+    }
+}
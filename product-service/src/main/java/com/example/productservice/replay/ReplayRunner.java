@@ -0,0 +1,54 @@
+package com.example.productservice.replay;
+
+import com.example.productservice.constant.AppConstants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Replay mode: with {@code app.replay.enabled=true} the service rebuilds products from the topic at startup
+ * instead of consuming it live, and promotes the result when {@code app.replay.promote} is set. Promotion
+ * applies the products the replay saw. Deleting every product it did not see as well needs
+ * {@code app.replay.replace-all}, a replay from the beginning, and a topic that still holds its whole history.
+ */
+@Component
+@ConditionalOnProperty(name = "app.replay.enabled", havingValue = "true")
+public class ReplayRunner implements ApplicationRunner {
+
+    private final ReplayEngine replayEngine;
+    private final String topic;
+    private final Instant from;
+    private final boolean promote;
+    private final boolean replaceAll;
+
+    public ReplayRunner(ReplayEngine replayEngine,
+                        @Value("${app.replay.topic:" + AppConstants.Kafka.TOPIC_PRODUCTS + "}") String topic,
+                        @Value("${app.replay.from:#{null}}") Instant from,
+                        @Value("${app.replay.promote:false}") boolean promote,
+                        @Value("${app.replay.replace-all:false}") boolean replaceAll) {
+        this.replayEngine = replayEngine;
+        this.topic = topic;
+        this.from = from;
+        this.promote = promote;
+        this.replaceAll = replaceAll;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (replaceAll) {
+            if (from != null) {
+                throw new IllegalStateException("app.replay.replace-all needs a replay from the beginning, "
+                    + "not from " + from);
+            }
+            replayEngine.requireCompleteTopic(topic);
+        }
+        replayEngine.replay(topic, from);
+        if (promote) {
+            replayEngine.promote(replaceAll);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.productservice.repository;
+
+/**
+ * The latest full history row of a product, with the number of delta rows that already reference it.
+ */
+public interface HistoryBaseRow {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getCategory();
+
+    long getDeltaCount();
+}
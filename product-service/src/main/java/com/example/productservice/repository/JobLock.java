@@ -0,0 +1,64 @@
+package com.example.productservice.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Named locks in {@code job_lock} that let one instance run a scheduled job while the others skip it. A lock
+ * is held until {@code lockAtMostFor} has passed or its holder releases it, so a holder that dies only blocks
+ * the job until then. Releasing keeps the lock for {@code lockAtLeastFor} after the start, so instances whose
+ * cron fires a little later because of clock skew do not run the same slot again.
+ */
+@Repository
+public class JobLock {
+
+    private static final String TAKE_EXPIRED = "UPDATE job_lock SET locked_until = ?, locked_by = ? "
+        + "WHERE name = ? AND locked_until <= ?";
+    private static final String INSERT = "INSERT INTO job_lock (name, locked_until, locked_by) VALUES (?, ?, ?)";
+    private static final String RELEASE = "UPDATE job_lock SET locked_until = ? WHERE name = ? AND locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    public JobLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = hostName() + "-" + UUID.randomUUID();
+    }
+
+    /**
+     * Returns true when this instance now holds {@code name}.
+     */
+    public boolean tryLock(String name, LocalDateTime now, Duration lockAtMostFor) {
+        Timestamp until = Timestamp.valueOf(now.plus(lockAtMostFor));
+        if (jdbcTemplate.update(TAKE_EXPIRED, until, owner, name, Timestamp.valueOf(now)) > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT, name, until, owner) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public void unlock(String name, LocalDateTime startedAt, Duration lockAtLeastFor) {
+        LocalDateTime earliest = startedAt.plus(lockAtLeastFor);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(RELEASE, Timestamp.valueOf(earliest.isAfter(now) ? earliest : now), name, owner);
+    }
+
+    static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.productservice.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A current or history row that marks a change to a product. History rows point at the product through
+ * originalProductId; current rows are the product themselves.
+ */
+public interface ProductChangeRow {
+
+    Long getId();
+
+    Long getOriginalProductId();
+
+    String getEventType();
+
+    LocalDateTime getEventTime();
+
+    default Long getProductId() {
+        return getOriginalProductId() != null ? getOriginalProductId() : getId();
+    }
+}
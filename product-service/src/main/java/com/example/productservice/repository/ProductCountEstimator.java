@@ -0,0 +1,94 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductFilterDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Estimates the number of rows a search would match from the Postgres planner ({@code EXPLAIN}) instead of
+ * running COUNT. The WHERE clause is rendered from {@link ProductSpecification#conditions}, the same predicates
+ * the search query uses.
+ * Returns empty on databases other than Postgres.
+ */
+@Component
+public class ProductCountEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCountEstimator.class);
+    private static final String POSTGRES = "PostgreSQL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private volatile Boolean postgres;
+
+    public ProductCountEstimator(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public OptionalLong estimate(ProductFilterDTO filter, String tenantId) {
+        if (!isPostgres()) {
+            return OptionalLong.empty();
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = "EXPLAIN (FORMAT JSON) SELECT 1 FROM product p WHERE " + buildWhereClause(filter, tenantId, args);
+        try {
+            String plan = jdbcTemplate.queryForObject(sql, String.class, args.toArray());
+            JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isNumber() ? OptionalLong.of(rows.asLong()) : OptionalLong.empty();
+        } catch (Exception e) {
+            logger.warn(AppConstants.Logger.COUNT_ESTIMATE_FAILED, tenantId, e);
+            return OptionalLong.empty();
+        }
+    }
+
+    static String buildWhereClause(ProductFilterDTO filter, String tenantId, List<Object> args) {
+        List<String> where = new ArrayList<>();
+        for (ProductSpecification.Condition condition : ProductSpecification.conditions(filter, tenantId)) {
+            List<String> alternatives = new ArrayList<>();
+            for (String attribute : condition.attributes()) {
+                alternatives.add(toSql(condition, "p." + column(attribute), args));
+            }
+            where.add(alternatives.size() == 1 ? alternatives.get(0) : "(" + String.join(" OR ", alternatives) + ")");
+        }
+        return String.join(" AND ", where);
+    }
+
+    private static String toSql(ProductSpecification.Condition condition, String column, List<Object> args) {
+        if (condition.operator() != ProductSpecification.Operator.IS_NULL) {
+            args.add(condition.value());
+        }
+        return switch (condition.operator()) {
+            case EQUAL -> column + " = ?";
+            case IS_NULL -> column + " IS NULL";
+            case NULL_OR_EQUAL -> "(" + column + " IS NULL OR " + column + " = ?)";
+            case LOWER_LIKE -> "lower(" + column + ") LIKE ?";
+            case AT_LEAST -> column + " >= ?";
+            case AT_MOST -> column + " <= ?";
+        };
+    }
+
+    /** Column of an entity attribute under Spring's default physical naming (camelCase to snake_case). */
+    private static String column(String attribute) {
+        return attribute.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                POSTGRES.equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return Boolean.TRUE.equals(result);
+    }
+}
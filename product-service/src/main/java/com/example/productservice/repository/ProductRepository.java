@@ -1,28 +1,221 @@
 package com.example.productservice.repository;
 
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductResponseDTO;
 import com.example.productservice.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
+
+    String SELECT_RESPONSE_DTO = "SELECT new com.example.productservice.dto.ProductResponseDTO(p.id, p.name, "
+        + "p.description, p.category, p.price, p.stockQuantity, p.eventType, p.eventTime, p.originalProductId, "
+        + "p.version) ";
+
+    /**
+     * History rows with delta fields filled in from their base row.
+     */
+    String SELECT_HISTORY_DTO = "SELECT new com.example.productservice.dto.ProductResponseDTO(p.id, "
+        + "COALESCE(p.name, b.name), COALESCE(p.description, b.description), COALESCE(p.category, b.category), "
+        + "p.price, p.stockQuantity, p.eventType, p.eventTime, p.originalProductId, p.version) "
+        + "FROM Product p LEFT JOIN Product b ON b.id = p.historyBaseId ";
+
     List<Product> findByOriginalProductIdAndTenantIdOrderByEventTimeDesc(Long originalProductId, String tenantId);
 
-    @Query("SELECT p FROM Product p WHERE p.tenantId = :tenantId AND (p.eventType IS NULL OR p.eventType = 'CREATED')")
+    @Query("SELECT p FROM Product p WHERE p.tenantId = :tenantId AND p.originalProductId IS NULL "
+        + "AND (p.eventType IS NULL OR p.eventType = 'CREATED')")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = AppConstants.Cache.CURRENT_PRODUCTS_QUERY_REGION)
+    })
     List<Product> findCurrentProductsByTenant(@Param("tenantId") String tenantId);
 
-    @Query("SELECT p FROM Product p WHERE p.tenantId = :tenantId AND (p.eventType IS NULL OR p.eventType = 'CREATED')")
+    @Query("SELECT p FROM Product p WHERE p.tenantId = :tenantId AND p.originalProductId IS NULL "
+        + "AND (p.eventType IS NULL OR p.eventType = 'CREATED')")
     Page<Product> findCurrentProductsByTenant(@Param("tenantId") String tenantId, Pageable pageable);
 
     @Query("SELECT p FROM Product p WHERE p.id = :id AND p.tenantId = :tenantId")
     Optional<Product> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
 
+    @Query(SELECT_RESPONSE_DTO + "FROM Product p WHERE p.id = :id AND p.tenantId = :tenantId")
+    Optional<ProductResponseDTO> findProductResponseByIdAndTenantId(@Param("id") Long id,
+                                                                    @Param("tenantId") String tenantId);
+
     @Query("SELECT p FROM Product p WHERE p.tenantId = :tenantId")
     List<Product> findAllByTenantId(@Param("tenantId") String tenantId);
+
+    @Query(SELECT_RESPONSE_DTO + "FROM Product p WHERE p.tenantId = :tenantId AND p.originalProductId IS NULL "
+        + "AND (p.eventType IS NULL OR p.eventType = 'CREATED')")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = AppConstants.Cache.CURRENT_PRODUCTS_QUERY_REGION)
+    })
+    List<ProductResponseDTO> findCurrentProductResponsesByTenant(@Param("tenantId") String tenantId);
+
+    @Query(SELECT_HISTORY_DTO + "WHERE p.originalProductId = :originalProductId "
+        + "AND p.tenantId = :tenantId "
+        + "AND (p.eventTime < :beforeTime OR (p.eventTime = :beforeTime AND p.id < :beforeId)) "
+        + "ORDER BY p.eventTime DESC, p.id DESC")
+    List<ProductResponseDTO> findHistoryResponsesBefore(@Param("originalProductId") Long originalProductId,
+                                                        @Param("tenantId") String tenantId,
+                                                        @Param("beforeTime") LocalDateTime beforeTime,
+                                                        @Param("beforeId") Long beforeId,
+                                                        Pageable pageable);
+
+    @Query(SELECT_HISTORY_DTO + "WHERE p.originalProductId = :originalProductId "
+        + "AND p.tenantId = :tenantId AND p.eventTime > :after ORDER BY p.eventTime ASC, p.id ASC")
+    List<ProductResponseDTO> findHistoryResponsesAfter(@Param("originalProductId") Long originalProductId,
+                                                       @Param("tenantId") String tenantId,
+                                                       @Param("after") LocalDateTime after,
+                                                       Pageable pageable);
+
+    @Query(SELECT_RESPONSE_DTO + "FROM Product p WHERE p.tenantId = :tenantId AND p.id IN :ids "
+        + "AND p.originalProductId IS NULL")
+    List<ProductResponseDTO> findCurrentProductResponsesByIds(@Param("ids") Collection<Long> ids,
+                                                              @Param("tenantId") String tenantId);
+
+    @Query("SELECT p.id AS id, p.originalProductId AS originalProductId, p.eventType AS eventType, "
+        + "p.eventTime AS eventTime FROM Product p WHERE p.tenantId = :tenantId "
+        + "AND (p.eventTime > :sinceTime OR (p.eventTime = :sinceTime AND p.id > :sinceId)) "
+        + "AND p.eventTime <= :until ORDER BY p.eventTime ASC, p.id ASC")
+    List<ProductChangeRow> findChangesSince(@Param("tenantId") String tenantId,
+                                            @Param("sinceTime") LocalDateTime sinceTime,
+                                            @Param("sinceId") Long sinceId,
+                                            @Param("until") LocalDateTime until,
+                                            Pageable pageable);
+
+    @Query("SELECT DISTINCT p.tenantId FROM Product p WHERE p.originalProductId IS NOT NULL")
+    List<String> findTenantsWithHistory();
+
+    @Query(SELECT_HISTORY_DTO + "WHERE p.tenantId = :tenantId AND p.originalProductId IS NOT NULL "
+        + "AND p.eventTime < :before ORDER BY p.originalProductId ASC, p.eventTime ASC, p.id ASC")
+    List<ProductResponseDTO> findHistoryOlderThan(@Param("tenantId") String tenantId,
+                                                  @Param("before") LocalDateTime before,
+                                                  Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.originalProductId AS originalProductId, p.eventType AS eventType, "
+        + "p.eventTime AS eventTime FROM Product p WHERE p.tenantId = :tenantId "
+        + "AND p.originalProductId IS NOT NULL AND p.eventTime >= :from AND p.eventTime < :to "
+        + "AND (p.originalProductId > :afterProductId OR (p.originalProductId = :afterProductId "
+        + "AND (p.eventTime > :afterTime OR (p.eventTime = :afterTime AND p.id > :afterId)))) "
+        + "ORDER BY p.originalProductId ASC, p.eventTime ASC, p.id ASC")
+    List<ProductChangeRow> findHistoryRowsBetween(@Param("tenantId") String tenantId,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to,
+                                                  @Param("afterProductId") Long afterProductId,
+                                                  @Param("afterTime") LocalDateTime afterTime,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.category AS category, "
+        + "(SELECT COUNT(d) FROM Product d WHERE d.historyBaseId = p.id) AS deltaCount "
+        + "FROM Product p WHERE p.originalProductId = :originalProductId AND p.tenantId = :tenantId "
+        + "AND p.historyBaseId IS NULL ORDER BY p.eventTime DESC, p.id DESC")
+    List<HistoryBaseRow> findLatestFullHistory(@Param("originalProductId") Long originalProductId,
+                                               @Param("tenantId") String tenantId,
+                                               Pageable pageable);
+
+    /**
+     * Copies the base fields into every delta row based on one of {@code baseIds}, so the bases can be deleted.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET "
+        + "p.name = COALESCE(p.name, (SELECT b.name FROM Product b WHERE b.id = p.historyBaseId)), "
+        + "p.description = COALESCE(p.description, (SELECT b.description FROM Product b WHERE b.id = p.historyBaseId)), "
+        + "p.category = COALESCE(p.category, (SELECT b.category FROM Product b WHERE b.id = p.historyBaseId)), "
+        + "p.historyBaseId = NULL WHERE p.historyBaseId IN :baseIds")
+    int materializeHistoryDeltas(@Param("baseIds") Collection<Long> baseIds);
+
+    /**
+     * Deletes the history rows in {@code ids} that no delta row uses as its base. A delta written after
+     * {@link #materializeHistoryDeltas} keeps its base in the table.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Product p WHERE p.id IN :ids AND p.originalProductId IS NOT NULL "
+        + "AND NOT EXISTS (SELECT d.id FROM Product d WHERE d.historyBaseId = p.id)")
+    int deleteUnreferencedHistory(@Param("ids") Collection<Long> ids);
+
+    boolean existsByIdAndTenantIdAndOriginalProductIdIsNull(Long id, String tenantId);
+
+    boolean existsByOriginalProductIdAndTenantIdAndEventTimeLessThanEqual(Long originalProductId, String tenantId,
+                                                                           LocalDateTime eventTime);
+
+    /**
+     * Atomically removes {@code quantity} units if that many are available and not leased to an instance;
+     * returns 0 when the product is missing or short. The version bump makes concurrent entity updates fail
+     * their optimistic lock.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = AppConstants.Cache.STOCK_QUERY_SPACE))
+    @Query(value = "UPDATE product SET stock_quantity = stock_quantity - :quantity, version = version + 1 "
+        + "WHERE id = :id AND tenant_id = :tenantId AND original_product_id IS NULL "
+        + "AND stock_quantity - stock_leased >= :quantity", nativeQuery = true)
+    int takeStock(@Param("id") Long id, @Param("tenantId") String tenantId, @Param("quantity") int quantity);
+
+    /**
+     * Like {@link #takeStock}, and also leases {@code lease} more units to the caller, but only while at least
+     * {@code floor} free units are left behind. Leased units stay in {@code stock_quantity} until they are
+     * settled with {@link #settleLease}; {@link StockLeases} records who holds them.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = AppConstants.Cache.STOCK_QUERY_SPACE))
+    @Query(value = "UPDATE product SET stock_quantity = stock_quantity - :quantity, "
+        + "stock_leased = stock_leased + :lease, version = version + 1 "
+        + "WHERE id = :id AND tenant_id = :tenantId AND original_product_id IS NULL "
+        + "AND stock_quantity - stock_leased >= :quantity + :lease + :floor", nativeQuery = true)
+    int takeStockWithLease(@Param("id") Long id, @Param("tenantId") String tenantId,
+                           @Param("quantity") int quantity, @Param("lease") int lease, @Param("floor") int floor);
+
+    /**
+     * Removes the {@code spent} units of a lease from stock and gives up the claim on all {@code leased} units.
+     * A PUT or UPDATED event may have set the stock below what was leased in the meantime; the row then stops
+     * at zero.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = AppConstants.Cache.STOCK_QUERY_SPACE))
+    @Query(value = "UPDATE product SET stock_quantity = GREATEST(stock_quantity - :spent, 0), "
+        + "stock_leased = GREATEST(stock_leased - :leased, 0), version = version + 1 "
+        + "WHERE id = :id AND tenant_id = :tenantId AND original_product_id IS NULL", nativeQuery = true)
+    int settleLease(@Param("id") Long id, @Param("tenantId") String tenantId, @Param("spent") int spent,
+                    @Param("leased") int leased);
+
+    /**
+     * Treats an expired lease of {@code leased} units as spent: its holder died, and how much it had reserved
+     * is unknown, so stock is undercounted rather than oversold. No flush records these rows, so the product
+     * table is declared as the query space and Hibernate evicts its cached products.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+    @Query(value = "UPDATE product SET stock_quantity = GREATEST(stock_quantity - :leased, 0), "
+        + "stock_leased = GREATEST(stock_leased - :leased, 0), version = version + 1 WHERE id = :id",
+        nativeQuery = true)
+    int writeOffLease(@Param("id") Long id, @Param("leased") int leased);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = AppConstants.Cache.STOCK_QUERY_SPACE))
+    @Query(value = "UPDATE product SET stock_quantity = stock_quantity + :quantity, version = version + 1 "
+        + "WHERE id = :id AND tenant_id = :tenantId AND original_product_id IS NULL", nativeQuery = true)
+    int addStock(@Param("id") Long id, @Param("tenantId") String tenantId, @Param("quantity") int quantity);
 }
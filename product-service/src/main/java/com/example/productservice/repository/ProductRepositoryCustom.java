@@ -0,0 +1,17 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ProductRepositoryCustom {
+
+    Page<ProductResponseDTO> findResponsePage(Specification<Product> specification, Pageable pageable);
+
+    Slice<ProductResponseDTO> findResponseSlice(Specification<Product> specification, Pageable pageable);
+
+    void evictProduct(Long id);
+}
@@ -0,0 +1,84 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+/**
+ * Search queries that select straight into {@link ProductResponseDTO} so no entities are hydrated or tracked,
+ * and targeted cache eviction for the stock queries.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductResponseDTO> findResponsePage(Specification<Product> specification, Pageable pageable) {
+        List<ProductResponseDTO> content = responseQuery(specification, pageable)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize())
+            .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    /**
+     * Fetches one row more than the page size to find out whether a next page exists, so no COUNT query is run.
+     */
+    @Override
+    public Slice<ProductResponseDTO> findResponseSlice(Specification<Product> specification, Pageable pageable) {
+        List<ProductResponseDTO> rows = responseQuery(specification, pageable)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize() + 1)
+            .getResultList();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<ProductResponseDTO> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Drops one product from the second-level cache after a stock update that bypassed the entity. Cached
+     * listings catch up when the next flush writes the product's history row.
+     */
+    @Override
+    public void evictProduct(Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+    }
+
+    private TypedQuery<ProductResponseDTO> responseQuery(Specification<Product> specification, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductResponseDTO> query = criteriaBuilder.createQuery(ProductResponseDTO.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(criteriaBuilder.construct(ProductResponseDTO.class,
+                root.get("id"), root.get("name"), root.get("description"), root.get("category"),
+                root.get("price"), root.get("stockQuantity"), root.get("eventType"), root.get("eventTime"),
+                root.get("originalProductId"), root.get("version")))
+            .where(specification.toPredicate(root, query, criteriaBuilder))
+            .orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Product> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(criteriaBuilder.count(root))
+            .where(specification.toPredicate(root, query, criteriaBuilder));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -6,7 +6,7 @@ import com.example.productservice.model.Product;
 import org.springframework.data.jpa.domain.Specification;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
@@ -19,45 +19,76 @@ public class ProductSpecification {
     }
 
     public static Specification<Product> buildSearchSpecification(ProductFilterDTO filter, String tenantId) {
-        return (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            predicates.add(criteriaBuilder.equal(root.get("tenantId"), tenantId));
-
-            predicates.add(criteriaBuilder.or(
-                criteriaBuilder.isNull(root.get("eventType")),
-                criteriaBuilder.equal(root.get("eventType"), AppConstants.Event.TYPE_CREATED)
-            ));
-
-            if (filter.getSearch() != null && !filter.getSearch().isBlank()) {
-                String searchPattern = "%" + filter.getSearch().toLowerCase() + "%";
-                predicates.add(criteriaBuilder.or(
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), searchPattern),
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), searchPattern)
-                ));
-            }
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(conditions(filter, tenantId).stream()
+            .map(condition -> condition.toPredicate(root, criteriaBuilder))
+            .toArray(Predicate[]::new));
+    }
 
-            if (filter.getCategory() != null && !filter.getCategory().isBlank()) {
-                predicates.add(criteriaBuilder.equal(root.get("category"), filter.getCategory()));
-            }
+    /**
+     * The search predicates as data, so {@link ProductCountEstimator} renders the same ones as SQL.
+     * Conditions are ANDed; a condition on several attributes matches when any of them does.
+     */
+    static List<Condition> conditions(ProductFilterDTO filter, String tenantId) {
+        List<Condition> conditions = new ArrayList<>();
 
-            if (filter.getMinPrice() != null) {
-                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
-            }
+        conditions.add(new Condition(Operator.EQUAL, tenantId, "tenantId"));
+        conditions.add(new Condition(Operator.IS_NULL, null, "originalProductId"));
+        conditions.add(new Condition(Operator.NULL_OR_EQUAL, AppConstants.Event.TYPE_CREATED, "eventType"));
 
-            if (filter.getMaxPrice() != null) {
-                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
-            }
+        if (filter.getSearch() != null && !filter.getSearch().isBlank()) {
+            String searchPattern = "%" + filter.getSearch().toLowerCase() + "%";
+            conditions.add(new Condition(Operator.LOWER_LIKE, searchPattern, "name", "description"));
+        }
 
-            if (filter.getMinStock() != null) {
-                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("stockQuantity"), filter.getMinStock()));
-            }
+        if (filter.getCategory() != null && !filter.getCategory().isBlank()) {
+            conditions.add(new Condition(Operator.EQUAL, filter.getCategory(), "category"));
+        }
+
+        if (filter.getMinPrice() != null) {
+            conditions.add(new Condition(Operator.AT_LEAST, filter.getMinPrice(), "price"));
+        }
+
+        if (filter.getMaxPrice() != null) {
+            conditions.add(new Condition(Operator.AT_MOST, filter.getMaxPrice(), "price"));
+        }
+
+        if (filter.getMinStock() != null) {
+            conditions.add(new Condition(Operator.AT_LEAST, filter.getMinStock(), "stockQuantity"));
+        }
+
+        if (filter.getMaxStock() != null) {
+            conditions.add(new Condition(Operator.AT_MOST, filter.getMaxStock(), "stockQuantity"));
+        }
+
+        return conditions;
+    }
+
+    enum Operator {
+        EQUAL, IS_NULL, NULL_OR_EQUAL, LOWER_LIKE, AT_LEAST, AT_MOST
+    }
+
+    record Condition(Operator operator, Object value, String... attributes) {
 
-            if (filter.getMaxStock() != null) {
-                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("stockQuantity"), filter.getMaxStock()));
+        Predicate toPredicate(Root<Product> root, CriteriaBuilder criteriaBuilder) {
+            List<Predicate> alternatives = new ArrayList<>();
+            for (String attribute : attributes) {
+                alternatives.add(toPredicate(root.get(attribute), criteriaBuilder));
             }
+            return alternatives.size() == 1
+                ? alternatives.get(0)
+                : criteriaBuilder.or(alternatives.toArray(new Predicate[0]));
+        }
 
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Predicate toPredicate(Expression path, CriteriaBuilder criteriaBuilder) {
+            return switch (operator) {
+                case EQUAL -> criteriaBuilder.equal(path, value);
+                case IS_NULL -> criteriaBuilder.isNull(path);
+                case NULL_OR_EQUAL -> criteriaBuilder.or(criteriaBuilder.isNull(path), criteriaBuilder.equal(path, value));
+                case LOWER_LIKE -> criteriaBuilder.like(criteriaBuilder.lower(path), (String) value);
+                case AT_LEAST -> criteriaBuilder.greaterThanOrEqualTo(path, (Comparable) value);
+                case AT_MOST -> criteriaBuilder.lessThanOrEqualTo(path, (Comparable) value);
+            };
+        }
     }
 }
@@ -0,0 +1,87 @@
+package com.example.productservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Who holds the units leased off {@code product.stock_leased}, one row in {@code stock_lease} per product and
+ * instance. Every lease an instance takes on a product moves the expiry of its own row forward and every
+ * settle gives its units back, so a row that expires belongs to an instance that stopped flushing, and only
+ * that instance's units are written off.
+ */
+@Repository
+public class StockLeases {
+
+    private static final String RENEW = "UPDATE stock_lease SET leased = leased + ?, expires_at = ? "
+        + "WHERE product_id = ? AND holder = ?";
+    private static final String INSERT = "INSERT INTO stock_lease (product_id, holder, leased, expires_at) "
+        + "VALUES (?, ?, ?, ?)";
+    private static final String RELEASE = "UPDATE stock_lease SET leased = leased - ? "
+        + "WHERE product_id = ? AND holder = ?";
+    private static final String DELETE_RELEASED = "DELETE FROM stock_lease "
+        + "WHERE product_id = ? AND holder = ? AND leased <= 0";
+    private static final String SELECT_EXPIRED = "SELECT product_id, holder, leased FROM stock_lease "
+        + "WHERE expires_at < ? FOR UPDATE";
+    private static final String DELETE = "DELETE FROM stock_lease WHERE product_id = ? AND holder = ?";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String holder;
+
+    public StockLeases(ProductRepository productRepository, JdbcTemplate jdbcTemplate) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.holder = JobLock.hostName() + "-" + UUID.randomUUID();
+    }
+
+    /**
+     * Takes {@code quantity} units and leases {@code lease} more to this instance until {@code expiresAt}, as
+     * {@link ProductRepository#takeStockWithLease}. The product row stays locked until commit, so two threads
+     * of this instance never both insert its lease row.
+     */
+    @Transactional
+    public boolean take(Long id, String tenantId, int quantity, int lease, int floor, LocalDateTime expiresAt) {
+        if (productRepository.takeStockWithLease(id, tenantId, quantity, lease, floor) == 0) {
+            return false;
+        }
+        Timestamp until = Timestamp.valueOf(expiresAt);
+        if (jdbcTemplate.update(RENEW, lease, until, id, holder) == 0) {
+            jdbcTemplate.update(INSERT, id, holder, lease, until);
+        }
+        return true;
+    }
+
+    /**
+     * Gives back {@code leased} units of this instance's lease; runs in the transaction that settles them on the
+     * product row.
+     */
+    @Transactional
+    public void release(Long id, int leased) {
+        jdbcTemplate.update(RELEASE, leased, id, holder);
+        jdbcTemplate.update(DELETE_RELEASED, id, holder);
+    }
+
+    /**
+     * Writes off every lease whose holder let it expire and returns how many there were.
+     */
+    @Transactional
+    public int writeOffExpired(LocalDateTime now) {
+        List<ExpiredLease> expired = jdbcTemplate.query(SELECT_EXPIRED, (rs, rowNum) ->
+            new ExpiredLease(rs.getLong("product_id"), rs.getString("holder"), rs.getInt("leased")),
+            Timestamp.valueOf(now));
+        for (ExpiredLease lease : expired) {
+            productRepository.writeOffLease(lease.productId(), lease.leased());
+            jdbcTemplate.update(DELETE, lease.productId(), lease.holder());
+        }
+        return expired.size();
+    }
+
+    private record ExpiredLease(Long productId, String holder, int leased) {
+    }
+}
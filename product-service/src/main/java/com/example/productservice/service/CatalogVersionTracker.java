@@ -0,0 +1,49 @@
+package com.example.productservice.service;
+
+import com.example.productservice.event.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tenant catalog version as seen by this pod. Every committed product change bumps the tenant's counter,
+ * and CatalogVersionListener bumps it for changes made on other pods, so a read that starts after a change
+ * never shares a single-flight call with one that started before it. The counters are local to the pod and
+ * start at zero, so ETags pair them with a random epoch of this process: a tag is only ever honoured by the
+ * process that issued it, and a restart or another pod answers 200 instead of a wrong 304.
+ */
+@Component
+public class CatalogVersionTracker {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final String epoch = Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+
+    public long currentVersion(String tenantId) {
+        AtomicLong version = versions.get(tenantId);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * ETag of the tenant's list, search and by-id responses. Costs no database work, so a matching
+     * If-None-Match is answered before the read. Read it before the listing, so a change committed in between
+     * yields a tag that is already stale.
+     */
+    public String etag(String tenantId) {
+        return "\"" + epoch + "-" + tenantId + "-" + currentVersion(tenantId) + "\"";
+    }
+
+    public void bump(String tenantId) {
+        if (tenantId != null) {
+            versions.computeIfAbsent(tenantId, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump(event.getTenantId());
+    }
+}
@@ -1,29 +1,53 @@
 package com.example.productservice.service;
 
+import com.example.productservice.concurrency.Coalesced;
+import com.example.productservice.concurrency.Sheddable;
 import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductChangeDTO;
+import com.example.productservice.dto.ProductChangesResponseDTO;
 import com.example.productservice.dto.ProductFilterDTO;
 import com.example.productservice.dto.ProductRequestDTO;
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.event.ProductChangedEvent;
+import com.example.productservice.event.ProductMessageEvent;
+import com.example.productservice.exception.ConflictException;
 import com.example.productservice.exception.ProductNotFoundException;
+import com.example.productservice.exception.ValidationException;
+import com.example.productservice.history.HistoryArchive;
 import com.example.productservice.kafka.HistoryBuilder;
-import com.example.productservice.kafka.ProductProducer;
 import com.example.productservice.mapper.ProductMapper;
 import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductChangeRow;
+import com.example.productservice.repository.ProductCountEstimator;
 import com.example.productservice.repository.ProductRepository;
 import com.example.productservice.repository.ProductSpecification;
 import com.example.productservice.repository.SortBuilder;
+import com.example.productservice.repository.StockLeases;
 import com.example.productservice.security.TenantProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -31,66 +55,276 @@ public class ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
     private final ProductRepository productRepository;
-    private final ProductProducer productProducer;
     private final ProductMapper productMapper;
+    private final ProductCountEstimator productCountEstimator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HistoryArchive historyArchive;
+    private final StockLeases stockLeases;
+
+    @Value("${app.sync.settle-window:PT2S}")
+    private Duration syncSettleWindow = Duration.ofSeconds(2);
+
+    @Value("${app.history.full-snapshot-every:16}")
+    private int historyFullSnapshotEvery = 16;
 
     public ProductService(ProductRepository productRepository,
-                          ProductProducer productProducer,
-                          ProductMapper productMapper) {
+                          ProductMapper productMapper,
+                          ProductCountEstimator productCountEstimator,
+                          ApplicationEventPublisher eventPublisher,
+                          HistoryArchive historyArchive,
+                          StockLeases stockLeases) {
         this.productRepository = productRepository;
-        this.productProducer = productProducer;
         this.productMapper = productMapper;
+        this.productCountEstimator = productCountEstimator;
+        this.eventPublisher = eventPublisher;
+        this.historyArchive = historyArchive;
+        this.stockLeases = stockLeases;
+    }
+
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> getAllProducts() {
+        String tenantId = TenantProvider.getCurrentTenantId();
+        return productRepository.findCurrentProductResponsesByTenant(tenantId);
     }
 
-    public List<Product> getAllProducts() {
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public ProductResponseDTO getProductResponseById(Long id) {
         String tenantId = TenantProvider.getCurrentTenantId();
-        return productRepository.findCurrentProductsByTenant(tenantId);
+        return productRepository.findProductResponseByIdAndTenantId(id, tenantId)
+            .orElseThrow(() -> new ProductNotFoundException(id));
     }
 
+    @Transactional(readOnly = true)
     public Product getProductById(Long id) {
         String tenantId = TenantProvider.getCurrentTenantId();
         return productRepository.findByIdAndTenantId(id, tenantId)
             .orElseThrow(() -> new ProductNotFoundException(id));
     }
 
-    public List<Product> getProductHistory(Long id) {
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public Slice<ProductResponseDTO> getProductHistory(Long id, String before, int size) {
+        if (size < 1 || size > AppConstants.History.MAX_SIZE) {
+            throw new ValidationException(AppConstants.History.INVALID_SIZE);
+        }
+        SyncWatermark cursor;
+        try {
+            cursor = SyncWatermark.decode(before, SyncWatermark.END);
+        } catch (ValidationException e) {
+            throw new ValidationException(AppConstants.History.INVALID_CURSOR);
+        }
         String tenantId = TenantProvider.getCurrentTenantId();
-        List<Product> history = productRepository.findByOriginalProductIdAndTenantIdOrderByEventTimeDesc(id, tenantId);
+        PageRequest pageable = PageRequest.of(0, size);
+        List<ProductResponseDTO> history = productRepository.findHistoryResponsesBefore(id, tenantId,
+            cursor.getEventTime(), cursor.getId(), PageRequest.of(0, size + 1));
+        boolean hasNext;
+        if (history.size() == size) {
+            // A full page from the table: archived rows are older than all of it, so they only decide hasNext
+            hasNext = historyArchive.contains(tenantId, id);
+        } else {
+            if (history.size() < size) {
+                history = withArchivedHistory(history, tenantId, id, cursor, size + 1);
+            }
+            hasNext = history.size() > size;
+            if (hasNext) {
+                history = history.subList(0, size);
+            }
+        }
         logger.info(AppConstants.Logger.HISTORY_RETRIEVED, id, history.size());
-        return history;
+        return new SliceImpl<>(history, pageable, hasNext);
+    }
+
+    /**
+     * Archived rows are older than any history still in the table, so the archive is only consulted once the
+     * table runs out of rows before the cursor.
+     */
+    private List<ProductResponseDTO> withArchivedHistory(List<ProductResponseDTO> history, String tenantId,
+                                                         Long id, SyncWatermark cursor, int limit) {
+        Map<Long, ProductResponseDTO> merged = new LinkedHashMap<>();
+        history.forEach(row -> merged.put(row.getId(), row));
+        for (ProductResponseDTO row : historyArchive.history(tenantId, id)) {
+            if (merged.size() >= limit) {
+                break;
+            }
+            boolean beforeCursor = row.getEventTime().isBefore(cursor.getEventTime())
+                || (row.getEventTime().isEqual(cursor.getEventTime()) && row.getId() < cursor.getId());
+            if (beforeCursor) {
+                merged.putIfAbsent(row.getId(), row);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * The product as it was at {@code asOf}. A history row snapshots the state a change replaced and is stamped
+     * with the time of that change, so the state at T is the first snapshot taken after T, or the current row
+     * when nothing has changed since T.
+     */
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public ProductResponseDTO getProductAsOf(Long id, LocalDateTime asOf) {
+        String tenantId = TenantProvider.getCurrentTenantId();
+        Optional<ProductResponseDTO> current = productRepository
+            .findCurrentProductResponsesByIds(List.of(id), tenantId).stream().findFirst();
+        LocalDateTime createdAt = current.map(ProductResponseDTO::getEventTime).orElse(null);
+        if (createdAt != null && createdAt.isAfter(asOf)) {
+            throw new ProductNotFoundException(id);
+        }
+        // Archived rows are older than every row left in the table, so once the table holds a row at or
+        // before T, no archived row can be the first one after T.
+        Optional<ProductResponseDTO> archived = Optional.empty();
+        if (!productRepository.existsByOriginalProductIdAndTenantIdAndEventTimeLessThanEqual(id, tenantId, asOf)) {
+            archived = historyArchive.history(tenantId, id).stream()
+                .filter(row -> row.getEventTime().isAfter(asOf))
+                .reduce((newer, older) -> older);
+        }
+        return archived
+            .or(() -> productRepository.findHistoryResponsesAfter(id, tenantId, asOf, PageRequest.of(0, 1)).stream()
+                .findFirst())
+            .or(() -> current)
+            .orElseThrow(() -> new ProductNotFoundException(id));
     }
 
-    public Page<Product> searchAndFilterProducts(ProductFilterDTO filter) {
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public Page<ProductResponseDTO> searchAndFilterProducts(ProductFilterDTO filter) {
         String tenantId = TenantProvider.getCurrentTenantId();
         
         Sort sort = SortBuilder.buildSort(filter);
         Pageable pageable = PageRequest.of(filter.getPage(), filter.getSize(), sort);
         
-        return productRepository.findAll(
+        return productRepository.findResponsePage(
             ProductSpecification.buildSearchSpecification(filter, tenantId), 
             pageable
         );
     }
 
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public Slice<ProductResponseDTO> searchProductsWithoutCount(ProductFilterDTO filter) {
+        String tenantId = TenantProvider.getCurrentTenantId();
+
+        Sort sort = SortBuilder.buildSort(filter);
+        Pageable pageable = PageRequest.of(filter.getPage(), filter.getSize(), sort);
+
+        return productRepository.findResponseSlice(
+            ProductSpecification.buildSearchSpecification(filter, tenantId),
+            pageable
+        );
+    }
+
+    /**
+     * Planner estimate of the search total; falls back to an exact count where no estimate is available.
+     */
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public long estimateSearchTotal(ProductFilterDTO filter) {
+        String tenantId = TenantProvider.getCurrentTenantId();
+        return productCountEstimator.estimate(filter, tenantId)
+            .orElseGet(() -> productRepository.count(ProductSpecification.buildSearchSpecification(filter, tenantId)));
+    }
+
+    /**
+     * Products created, updated or deleted after the watermark, oldest first. Change rows are the current rows
+     * and the history rows, keyset-paged on (eventTime, id); each changed product is reported once per page
+     * with its current state, or as a DELETED tombstone when the current row is gone. Rows younger than the
+     * settle window are held back so a transaction committing late cannot slip behind the returned watermark.
+     */
+    @Coalesced
+    @Sheddable
+    @Transactional(readOnly = true)
+    public ProductChangesResponseDTO getProductChanges(String since, int size) {
+        if (size < 1 || size > AppConstants.Sync.MAX_SIZE) {
+            throw new ValidationException(AppConstants.Sync.INVALID_SIZE);
+        }
+        String tenantId = TenantProvider.getCurrentTenantId();
+        SyncWatermark watermark = SyncWatermark.decode(since);
+
+        List<ProductChangeRow> rows = productRepository.findChangesSince(tenantId, watermark.getEventTime(),
+            watermark.getId(), LocalDateTime.now().minus(syncSettleWindow), PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        Map<Long, ProductChangeRow> latestChanges = new LinkedHashMap<>();
+        rows.forEach(row -> {
+            latestChanges.remove(row.getProductId());
+            latestChanges.put(row.getProductId(), row);
+        });
+        Map<Long, ProductResponseDTO> currentProducts = latestChanges.isEmpty() ? Map.of()
+            : productRepository.findCurrentProductResponsesByIds(latestChanges.keySet(), tenantId).stream()
+                .collect(Collectors.toMap(ProductResponseDTO::getId, Function.identity()));
+
+        List<ProductChangeDTO> changes = latestChanges.values().stream()
+            .map(row -> toChange(row, currentProducts.get(row.getProductId())))
+            .toList();
+
+        ProductChangeRow last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        String nextWatermark = last == null ? watermark.encode()
+            : new SyncWatermark(last.getEventTime(), last.getId()).encode();
+        return ProductChangesResponseDTO.builder()
+            .changes(changes)
+            .watermark(nextWatermark)
+            .hasMore(hasMore)
+            .build();
+    }
+
+    private ProductChangeDTO toChange(ProductChangeRow row, ProductResponseDTO current) {
+        String changeType;
+        if (current == null) {
+            changeType = AppConstants.Event.TYPE_DELETED;
+        } else if (row.getEventType() == null || AppConstants.Event.TYPE_CREATED.equals(row.getEventType())) {
+            changeType = AppConstants.Event.TYPE_CREATED;
+        } else {
+            changeType = AppConstants.Event.TYPE_UPDATED;
+        }
+        return ProductChangeDTO.builder()
+            .productId(row.getProductId())
+            .changeType(changeType)
+            .changedAt(row.getEventTime())
+            .product(current)
+            .build();
+    }
+
     public Product createProduct(Product product) {
         product.setEventType(AppConstants.Event.TYPE_CREATED);
         product.setEventTime(LocalDateTime.now());
 
         Product saved = productRepository.save(product);
-        productProducer.sendMessage(saved);
+        sendMessage(saved);
+        publishChange(saved.getTenantId(), AppConstants.Event.TYPE_CREATED, saved.getId(), saved);
         return saved;
     }
 
     public Product updateProduct(Long id, ProductRequestDTO updatedProductDTO) {
         String tenantId = TenantProvider.getCurrentTenantId();
         return productRepository.findByIdAndTenantId(id, tenantId).map(existing -> {
+            if (updatedProductDTO.getVersion() != null && !updatedProductDTO.getVersion().equals(existing.getVersion())) {
+                throw versionConflict(id);
+            }
             Product history = HistoryBuilder.createHistory(existing, AppConstants.Event.TYPE_UPDATED);
-            productRepository.save(history);
+            saveHistory(history, tenantId);
 
             productMapper.updateProductFromDTO(updatedProductDTO, existing);
-            Product saved = productRepository.save(existing);
+            Product saved;
+            try {
+                saved = productRepository.saveAndFlush(existing);
+            } catch (OptimisticLockingFailureException e) {
+                throw versionConflict(id);
+            }
 
-            productProducer.sendMessage(saved);
+            sendMessage(saved);
+            publishChange(tenantId, AppConstants.Event.TYPE_UPDATED, saved.getId(), saved);
             return saved;
         }).orElseThrow(() -> new ProductNotFoundException(id));
     }
@@ -104,57 +338,163 @@ public class ProductService {
         productRepository.save(history);
 
         productRepository.deleteById(id);
-        productProducer.sendMessage(history);
+        sendMessage(history);
+        publishChange(tenantId, AppConstants.Event.TYPE_DELETED, id, null);
     }
 
-    public void processProductEvent(Product productEvent) {
-        String tenantId = productEvent.getTenantId();
-        if (tenantId == null) {
-            tenantId = TenantProvider.getTenantIdOrNull();
+    /**
+     * Records the {@code taken} units that decrements and reservations removed from the row since the last
+     * flush, applies the {@code added} units of buffered increments and settles a stock lease: the
+     * {@code spent} units leave the row and the claim on all {@code leased} units is dropped. One history row,
+     * event and change notification per product per flush instead of per request; the history row holds the
+     * stock from before the taken units left it. Units reserved beyond a stock that was lowered in the meantime
+     * are logged as a shortfall. Returns false when the product no longer exists.
+     */
+    public boolean recordStockChange(Long id, String tenantId, int taken, int spent, int leased, int added) {
+        Optional<Product> existing = productRepository.findByIdAndTenantId(id, tenantId);
+        if (existing.isEmpty() || existing.get().getOriginalProductId() != null) {
+            return false;
+        }
+        Product history = HistoryBuilder.createHistory(existing.get(), AppConstants.Event.TYPE_UPDATED);
+        history.setStockQuantity(Objects.requireNonNullElse(existing.get().getStockQuantity(), 0) + taken);
+        history.setTenantId(tenantId);
+        saveHistory(history, tenantId);
+
+        if (added > 0) {
+            productRepository.addStock(id, tenantId, added);
+        }
+        if (leased > 0) {
+            int stock = Objects.requireNonNullElse(existing.get().getStockQuantity(), 0) + added;
+            if (spent > stock) {
+                logger.warn(AppConstants.Logger.STOCK_SHORTFALL, id, spent, stock);
+            }
+            productRepository.settleLease(id, tenantId, spent, leased);
+            stockLeases.release(id, leased);
         }
+        if (added > 0 || leased > 0) {
+            productRepository.evictProduct(id);
+        }
+        Product saved = productRepository.findByIdAndTenantId(id, tenantId)
+            .orElseThrow(() -> new ProductNotFoundException(id));
+        sendMessage(saved);
+        publishChange(tenantId, AppConstants.Event.TYPE_UPDATED, id, saved);
+        return true;
+    }
+
+    /**
+     * Applies an event from another producer, consumed through the shared consumer group, so only one pod
+     * sees it. The applied state is sent on as this service's own event once committed, so
+     * CatalogVersionListener on every pod acts on it only when the change is visible.
+     */
+    public void processProductEvent(Product productEvent) {
+        String tenantId = productEvent.getTenantId() != null
+            ? productEvent.getTenantId()
+            : TenantProvider.getTenantIdOrNull();
         
         switch (productEvent.getEventType()) {
             case AppConstants.Event.TYPE_CREATED -> {
-                logger.info(AppConstants.Logger.HANDLING_CREATED, productEvent.getId());
-                productRepository.save(productEvent);
+                logger.debug(AppConstants.Logger.HANDLING_CREATED, productEvent.getId());
+                if (productEvent.getId() != null && productRepository.existsById(productEvent.getId())) {
+                    logger.debug(AppConstants.Logger.CREATED_EVENT_SKIPPED, productEvent.getId());
+                    return;
+                }
+                sendMessage(productRepository.save(productEvent));
             }
             case AppConstants.Event.TYPE_UPDATED -> {
-                logger.info(AppConstants.Logger.HANDLING_UPDATED, productEvent.getId());
+                logger.debug(AppConstants.Logger.HANDLING_UPDATED, productEvent.getId());
                 if (tenantId != null) {
                     productRepository.findByIdAndTenantId(productEvent.getId(), tenantId).ifPresent(existing -> {
+                        if (isStale(productEvent, existing)) {
+                            logger.debug(AppConstants.Logger.STALE_EVENT_SKIPPED, existing.getId(),
+                                productEvent.getVersion(), existing.getVersion());
+                            return;
+                        }
                         existing.setName(productEvent.getName());
                         existing.setDescription(productEvent.getDescription());
                         existing.setCategory(productEvent.getCategory());
                         existing.setPrice(productEvent.getPrice());
                         existing.setStockQuantity(productEvent.getStockQuantity());
-                        productRepository.save(existing);
+                        sendMessage(productRepository.saveAndFlush(existing));
                     });
                 }
             }
             case AppConstants.Event.TYPE_DELETED -> {
-                logger.info(AppConstants.Logger.HANDLING_DELETED, productEvent.getId());
+                logger.debug(AppConstants.Logger.HANDLING_DELETED, productEvent.getId());
                 productRepository.deleteById(productEvent.getId());
+                Product deleted = HistoryBuilder.createHistory(productEvent, AppConstants.Event.TYPE_DELETED);
+                deleted.setTenantId(tenantId);
+                sendMessage(deleted);
             }
             default -> logger.warn(AppConstants.Logger.UNKNOWN_EVENT_TYPE, productEvent.getEventType());
         }
     }
 
-    public void handleProductEventFromKafka(Product productEvent, boolean processEvent) {
-        try {
-            Objects.requireNonNull(productEvent, "Product event cannot be null");
+    /**
+     * Stores the text fields a history row shares with the product's latest full history row as a reference
+     * to that row; stock-only changes then write a few numbers instead of the whole description. Every
+     * {@code full-snapshot-every}th row is written in full and becomes the base for the next ones.
+     * Deleted products keep a full row because it is also sent as the DELETED event. The base and its delta
+     * count come back in one query, so a write costs one lookup next to the insert.
+     */
+    private void saveHistory(Product history, String tenantId) {
+        if (history.getOriginalProductId() != null && tenantId != null) {
+            productRepository.findLatestFullHistory(history.getOriginalProductId(), tenantId, PageRequest.of(0, 1))
+                .stream()
+                .findFirst()
+                .filter(base -> base.getDeltaCount() < historyFullSnapshotEvery - 1)
+                .ifPresent(base -> HistoryBuilder.encodeDelta(history, base));
+        }
+        productRepository.save(history);
+    }
 
-            productEvent.setEventTime(LocalDateTime.now());
+    /**
+     * An event produced from an older version than the row holds would roll back a newer write; the newer
+     * row wins. Events without a version (external producers) always apply.
+     */
+    private boolean isStale(Product productEvent, Product existing) {
+        return productEvent.getVersion() != null && existing.getVersion() != null
+            && productEvent.getVersion() < existing.getVersion();
+    }
 
-            Product history = HistoryBuilder.createHistory(productEvent);
-            productRepository.save(history);
-            logger.info(AppConstants.Logger.HISTORY_SAVED, history.getId());
+    private ConflictException versionConflict(Long id) {
+        return new ConflictException(String.format(AppConstants.Validation.PRODUCT_VERSION_CONFLICT, id),
+            AppConstants.ErrorCode.VERSION_CONFLICT);
+    }
 
-            if (processEvent) {
-                processProductEvent(productEvent);
-            }
-        } catch (Exception e) {
-            logger.error(AppConstants.Logger.ERROR_PROCESSING_KAFKA, e);
+    private void sendMessage(Product product) {
+        eventPublisher.publishEvent(new ProductMessageEvent(product));
+    }
+
+    private void publishChange(String tenantId, String changeType, Long productId, Product product) {
+        if (tenantId == null) {
+            return;
         }
+        ProductChangeDTO change = ProductChangeDTO.builder()
+            .productId(productId)
+            .changeType(changeType)
+            .changedAt(LocalDateTime.now())
+            .product(product == null ? null : productMapper.productToProductResponseDTO(product))
+            .build();
+        eventPublisher.publishEvent(new ProductChangedEvent(tenantId, change));
     }
-}
 
+    /**
+     * The event itself is left untouched: it may be merged into the current row, and a changed field there
+     * would bump the row's version. Failures propagate so the consumer can hand the event to its retry topics;
+     * the transaction rolls back the history row with them.
+     */
+    public void handleProductEventFromKafka(Product productEvent, boolean processEvent) {
+        Objects.requireNonNull(productEvent, "Product event cannot be null");
+
+        Product history = HistoryBuilder.createHistory(productEvent);
+        history.setEventTime(LocalDateTime.now());
+        saveHistory(history, productEvent.getTenantId() != null
+            ? productEvent.getTenantId()
+            : TenantProvider.getTenantIdOrNull());
+        logger.debug(AppConstants.Logger.HISTORY_SAVED, history.getId());
+
+        if (processEvent) {
+            processProductEvent(productEvent);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.productservice.service;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position (eventTime, id) in a tenant's change feed or a product's history.
+ */
+public final class SyncWatermark {
+
+    static final SyncWatermark START = new SyncWatermark(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+    static final SyncWatermark END = new SyncWatermark(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime eventTime;
+    private final long id;
+
+    public SyncWatermark(LocalDateTime eventTime, long id) {
+        this.eventTime = eventTime;
+        this.id = id;
+    }
+
+    public LocalDateTime getEventTime() {
+        return eventTime;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = eventTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncWatermark decode(String watermark) {
+        return decode(watermark, START);
+    }
+
+    public static SyncWatermark decode(String watermark, SyncWatermark ifAbsent) {
+        if (watermark == null || watermark.isBlank()) {
+            return ifAbsent;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new SyncWatermark(LocalDateTime.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ValidationException(AppConstants.Sync.INVALID_WATERMARK);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.productservice.stock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Leased stock, buffered increments and units taken straight off the row for one product between flushes.
+ * Reservable units and the counters are spread over striped counters, each on its own cache line, so
+ * concurrent requests on a hot SKU rarely contend and reservations can never spend more than was leased.
+ * Adding a lease and draining are rare and synchronized, so a drain always sees a lease together with its units.
+ */
+final class StockLedger {
+
+    // 16 longs = 128 bytes between stripes, enough to keep adjacent-line prefetch from pairing them up
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray allowance;
+    private final AtomicLongArray added;
+    private final AtomicLongArray taken;
+    private final int mask;
+    private long leased;
+
+    StockLedger(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.allowance = new AtomicLongArray(size * PADDING);
+        this.added = new AtomicLongArray(size * PADDING);
+        this.taken = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+    }
+
+    boolean tryTake(int quantity) {
+        int start = stripe();
+        for (int i = 0; i <= mask; i++) {
+            int index = ((start + i) & mask) * PADDING;
+            long available;
+            while ((available = allowance.get(index)) >= quantity) {
+                if (allowance.compareAndSet(index, available, available - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    synchronized void addLease(long quantity) {
+        leased += quantity;
+        allowance.addAndGet(stripe() * PADDING, quantity);
+    }
+
+    void add(long quantity) {
+        added.addAndGet(stripe() * PADDING, quantity);
+    }
+
+    /**
+     * Counts units a decrement or reservation has already taken off the row, so the flush can record the
+     * state they replaced.
+     */
+    void take(long quantity) {
+        taken.addAndGet(stripe() * PADDING, quantity);
+    }
+
+    /**
+     * Takes everything leased since the last drain, the units of it that are still unspent, the buffered
+     * increments and the units taken off the row; the caller settles and records them with the database.
+     */
+    synchronized Lease drain() {
+        long unspent = 0;
+        long increments = 0;
+        long removed = 0;
+        for (int i = 0; i <= mask; i++) {
+            unspent += allowance.getAndSet(i * PADDING, 0);
+            increments += added.getAndSet(i * PADDING, 0);
+            removed += taken.getAndSet(i * PADDING, 0);
+        }
+        Lease lease = new Lease(leased, unspent, increments, removed);
+        leased = 0;
+        return lease;
+    }
+
+    synchronized void restore(Lease lease) {
+        leased += lease.leased();
+        allowance.addAndGet(stripe() * PADDING, lease.unspent());
+        added.addAndGet(stripe() * PADDING, lease.added());
+        taken.addAndGet(stripe() * PADDING, lease.taken());
+    }
+
+    /**
+     * True when nothing is leased and nothing is waiting to be recorded. Unspent units only exist while a lease
+     * does, so an idle ledger can be dropped without losing stock.
+     */
+    synchronized boolean isIdle() {
+        if (leased != 0) {
+            return false;
+        }
+        for (int i = 0; i <= mask; i++) {
+            if (added.get(i * PADDING) != 0 || taken.get(i * PADDING) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int stripe() {
+        return (int) Thread.currentThread().threadId() & mask;
+    }
+
+    record Lease(long leased, long unspent, long added, long taken) {
+
+        long spent() {
+            return leased - unspent;
+        }
+
+        boolean isEmpty() {
+            return leased == 0 && added == 0 && taken == 0;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.productservice.stock;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.exception.ConflictException;
+import com.example.productservice.exception.ProductNotFoundException;
+import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.repository.StockLeases;
+import com.example.productservice.security.TenantProvider;
+import com.example.productservice.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Stock deltas that bypass the read-modify-write PUT path.
+ * <ul>
+ *   <li>Increments accumulate in the product's striped ledger and reach the row as one UPDATE per product per
+ *       flush; they can never oversell, so nothing has to wait for them. Until then they are not counted in
+ *       {@code stockQuantity} or available for reservations.</li>
+ *   <li>Decrements apply to the row immediately with one atomic UPDATE each: buffering them could take stock
+ *       that another instance has already handed out.</li>
+ *   <li>Reservations are served from units leased off the row with a conditional UPDATE; a lease is only
+ *       taken when the local allowance runs out, so a hot SKU costs one row update per {@code lease-size}
+ *       reservations instead of one per request. Leased units are claimed in {@code stock_leased} rather than
+ *       taken out of {@code stock_quantity}, so reads on any instance still count them, and no lease is
+ *       granted once fewer than {@code lease-floor} free units would be left, so the last units are always
+ *       reserved straight from the row and never sit in another instance's lease. The last
+ *       {@code lease-size + lease-floor} units of a product therefore cost one row update per reservation, as
+ *       do decrements; only increments and reservations above that mark avoid the row lock.</li>
+ * </ul>
+ * Each flush applies the buffered increments, settles the leases (spent units leave the stock, the claim is
+ * dropped) and records one history row and change event per product that changed. Leases of an instance that
+ * dies without flushing expire after {@code lease-timeout} and are written off as spent, see {@link StockLeases}.
+ * Ledgers with nothing to settle are dropped.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+    private final ProductRepository productRepository;
+    private final StockLeases stockLeases;
+    private final ProductService productService;
+    private final int leaseSize;
+    private final int leaseFloor;
+    private final Duration leaseTimeout;
+    private final int stripes;
+    private final Counter localReservations;
+    private final Counter leasedReservations;
+    private final Map<LedgerKey, StockLedger> ledgers = new ConcurrentHashMap<>();
+
+    public StockReservationService(ProductRepository productRepository, StockLeases stockLeases,
+                                   ProductService productService,
+                                   @Value("${app.stock.lease-size:20}") int leaseSize,
+                                   @Value("${app.stock.lease-floor:100}") int leaseFloor,
+                                   @Value("${app.stock.lease-timeout:PT1M}") Duration leaseTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.stockLeases = stockLeases;
+        this.productService = productService;
+        this.leaseSize = leaseSize;
+        this.leaseFloor = leaseFloor;
+        this.leaseTimeout = leaseTimeout;
+        this.stripes = Runtime.getRuntime().availableProcessors();
+        this.localReservations = Counter.builder(AppConstants.Metrics.STOCK_RESERVATIONS)
+            .tag(AppConstants.Metrics.TAG_SOURCE, AppConstants.Metrics.SOURCE_LOCAL)
+            .register(meterRegistry);
+        this.leasedReservations = Counter.builder(AppConstants.Metrics.STOCK_RESERVATIONS)
+            .tag(AppConstants.Metrics.TAG_SOURCE, AppConstants.Metrics.SOURCE_LEASE)
+            .register(meterRegistry);
+    }
+
+    public void increment(Long id, int quantity) {
+        String tenantId = TenantProvider.getCurrentTenantId();
+        if (!productRepository.existsByIdAndTenantIdAndOriginalProductIdIsNull(id, tenantId)) {
+            throw new ProductNotFoundException(id);
+        }
+        update(new LedgerKey(tenantId, id), ledger -> ledger.add(quantity));
+    }
+
+    public void reserve(Long id, int quantity) {
+        String tenantId = TenantProvider.getCurrentTenantId();
+        LedgerKey key = new LedgerKey(tenantId, id);
+        StockLedger existing = ledgers.get(key);
+        if (existing != null && existing.tryTake(quantity)) {
+            localReservations.increment();
+            return;
+        }
+
+        int lease = leaseSize - quantity;
+        if (lease > 0 && stockLeases.take(id, tenantId, quantity, lease, leaseFloor,
+                LocalDateTime.now().plus(leaseTimeout))) {
+            update(key, ledger -> {
+                ledger.addLease(lease);
+                ledger.take(quantity);
+            });
+        } else if (productRepository.takeStock(id, tenantId, quantity) > 0) {
+            update(key, ledger -> ledger.take(quantity));
+        } else {
+            throw shortage(id, tenantId);
+        }
+        productRepository.evictProduct(id);
+        leasedReservations.increment();
+    }
+
+    public void decrement(Long id, int quantity) {
+        String tenantId = TenantProvider.getCurrentTenantId();
+        if (productRepository.takeStock(id, tenantId, quantity) == 0) {
+            throw shortage(id, tenantId);
+        }
+        productRepository.evictProduct(id);
+        update(new LedgerKey(tenantId, id), ledger -> ledger.take(quantity));
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.flush-interval:PT1S}")
+    public void flush() {
+        ledgers.forEach(this::flush);
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.lease-timeout:PT1M}")
+    public void writeOffExpiredLeases() {
+        int leases = stockLeases.writeOffExpired(LocalDateTime.now());
+        if (leases > 0) {
+            logger.warn(AppConstants.Logger.STOCK_LEASES_WRITTEN_OFF, leases);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Changes a ledger inside the map's compute, so it cannot race with {@link #flush} dropping it as idle.
+     */
+    private void update(LedgerKey key, Consumer<StockLedger> change) {
+        ledgers.compute(key, (k, ledger) -> {
+            StockLedger target = ledger != null ? ledger : new StockLedger(stripes);
+            change.accept(target);
+            return target;
+        });
+    }
+
+    /**
+     * Only what was drained is recorded, so a flush that finds nothing writes no history row or event.
+     */
+    private void flush(LedgerKey key, StockLedger ledger) {
+        StockLedger.Lease lease = ledger.drain();
+        if (lease.isEmpty()) {
+            ledgers.computeIfPresent(key, (k, current) -> current.isIdle() ? null : current);
+            return;
+        }
+        try {
+            if (!productService.recordStockChange(key.productId(), key.tenantId(),
+                    Math.toIntExact(lease.taken()), Math.toIntExact(lease.spent()), Math.toIntExact(lease.leased()),
+                    Math.toIntExact(lease.added()))) {
+                if (lease.unspent() > 0 || lease.added() > 0) {
+                    logger.warn(AppConstants.Logger.STOCK_DROPPED, lease.unspent(), lease.added(), key.productId());
+                }
+                ledgers.remove(key, ledger);
+            }
+        } catch (RuntimeException e) {
+            ledger.restore(lease);
+            logger.error(AppConstants.Logger.STOCK_FLUSH_FAILED, lease.leased(), key.productId(), e);
+        }
+    }
+
+    private RuntimeException shortage(Long id, String tenantId) {
+        if (!productRepository.existsByIdAndTenantIdAndOriginalProductIdIsNull(id, tenantId)) {
+            return new ProductNotFoundException(id);
+        }
+        return new ConflictException(String.format(AppConstants.Validation.INSUFFICIENT_STOCK, id),
+            AppConstants.ErrorCode.INSUFFICIENT_STOCK);
+    }
+
+    private record LedgerKey(String tenantId, Long productId) {
+    }
+}
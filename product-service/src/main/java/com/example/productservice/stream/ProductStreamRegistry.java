@@ -0,0 +1,113 @@
+package com.example.productservice.stream;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductChangeDTO;
+import com.example.productservice.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-tenant SSE subscribers. Fan-out iterates a concurrent key set without locking and never blocks on a
+ * client; each subscriber drains its own bounded buffer on a virtual thread. Changes come from
+ * CatalogVersionListener, which reads every product event on every pod, so a client sees writes made through
+ * any replica. Only when that listener is switched off does the registry fall back to this pod's own writes.
+ */
+@Component
+public class ProductStreamRegistry {
+
+    private final Map<String, Set<ProductStreamSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ThreadFactory senderThreads = Thread.ofVirtual().name("product-stream-", 0).factory();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final int bufferSize;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final Counter droppedEvents;
+    private final boolean clusterFeed;
+
+    public ProductStreamRegistry(@Value("${app.stream.buffer-size:256}") int bufferSize,
+                                 @Value("${app.stream.heartbeat-interval:PT15S}") Duration heartbeatInterval,
+                                 @Value("${app.stream.timeout:PT30M}") Duration timeout,
+                                 @Value("#{${spring.kafka.enabled:true} and ${app.kafka.catalog-version.enabled:true}}")
+                                 boolean clusterFeed,
+                                 MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.clusterFeed = clusterFeed;
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+        this.droppedEvents = Counter.builder(AppConstants.Metrics.STREAM_DROPPED_EVENTS).register(meterRegistry);
+        Gauge.builder(AppConstants.Metrics.STREAM_SUBSCRIBERS, openStreams, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String tenantId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        ProductStreamSubscriber subscriber = new ProductStreamSubscriber(emitter, bufferSize, heartbeatMillis);
+        subscribers.compute(tenantId, (key, tenantSubscribers) -> {
+            Set<ProductStreamSubscriber> set = tenantSubscribers != null ? tenantSubscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        openStreams.incrementAndGet();
+
+        Runnable unsubscribe = () -> unsubscribe(tenantId, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+        senderThreads.newThread(() -> {
+            subscriber.run();
+            unsubscribe.run();
+        }).start();
+        return emitter;
+    }
+
+    public void publish(String tenantId, ProductChangeDTO change) {
+        Set<ProductStreamSubscriber> tenantSubscribers = subscribers.get(tenantId);
+        if (tenantSubscribers == null) {
+            return;
+        }
+        for (ProductStreamSubscriber subscriber : tenantSubscribers) {
+            if (!subscriber.offer(change)) {
+                droppedEvents.increment();
+            }
+        }
+    }
+
+    /**
+     * Local writes also reach CatalogVersionListener through Kafka; taking them here as well would deliver
+     * them twice.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!clusterFeed) {
+            publish(event.getTenantId(), event.getChange());
+        }
+    }
+
+    int subscriberCount(String tenantId) {
+        Set<ProductStreamSubscriber> tenantSubscribers = subscribers.get(tenantId);
+        return tenantSubscribers == null ? 0 : tenantSubscribers.size();
+    }
+
+    private void unsubscribe(String tenantId, ProductStreamSubscriber subscriber) {
+        subscriber.close();
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(tenantId, (key, tenantSubscribers) -> {
+            removed[0] = tenantSubscribers.remove(subscriber);
+            return tenantSubscribers.isEmpty() ? null : tenantSubscribers;
+        });
+        if (removed[0]) {
+            openStreams.decrementAndGet();
+        }
+    }
+}
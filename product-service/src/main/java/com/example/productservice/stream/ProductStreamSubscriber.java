@@ -0,0 +1,79 @@
+package com.example.productservice.stream;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductChangeDTO;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open stream. Publishers only offer into a bounded buffer; a dedicated sender thread drains it to the
+ * emitter. When the buffer overflows the backlog is dropped and the client is told to resync from
+ * GET /api/products/changes instead.
+ */
+class ProductStreamSubscriber implements Runnable {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<ProductChangeDTO> buffer;
+    private final long heartbeatMillis;
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Thread sender;
+
+    ProductStreamSubscriber(SseEmitter emitter, int bufferSize, long heartbeatMillis) {
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    boolean offer(ProductChangeDTO change) {
+        if (buffer.offer(change)) {
+            return true;
+        }
+        overflowed.set(true);
+        return false;
+    }
+
+    @Override
+    public void run() {
+        sender = Thread.currentThread();
+        try {
+            emitter.send(SseEmitter.event().comment(AppConstants.Stream.COMMENT_CONNECTED));
+            while (!closed) {
+                if (overflowed.getAndSet(false)) {
+                    buffer.clear();
+                    emitter.send(SseEmitter.event()
+                        .name(AppConstants.Stream.EVENT_RESYNC)
+                        .data(Map.of("reason", AppConstants.Stream.RESYNC_REASON_OVERFLOW), MediaType.APPLICATION_JSON));
+                    continue;
+                }
+                ProductChangeDTO change = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (change == null) {
+                    emitter.send(SseEmitter.event().comment(AppConstants.Stream.COMMENT_HEARTBEAT));
+                } else {
+                    emitter.send(SseEmitter.event()
+                        .name(change.getChangeType())
+                        .data(change, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void close() {
+        closed = true;
+        Thread thread = sender;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
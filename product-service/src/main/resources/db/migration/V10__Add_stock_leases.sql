@@ -0,0 +1,5 @@
+-- Units leased to instances for local reservations (app.stock.*). They stay in stock_quantity until they are
+-- spent, so reads never hide them, but no other lease or reservation can take them. Every lease moves
+-- stock_lease_expires_at forward; claims still held after it belong to instances that died and are written off.
+ALTER TABLE product ADD COLUMN IF NOT EXISTS stock_leased INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS stock_lease_expires_at TIMESTAMP;
@@ -0,0 +1,6 @@
+-- Cluster-wide locks for scheduled jobs that must run on one instance at a time (see JobLock)
+CREATE TABLE IF NOT EXISTS job_lock (
+    name VARCHAR(64) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255) NOT NULL
+);
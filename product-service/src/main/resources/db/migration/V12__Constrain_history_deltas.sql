@@ -0,0 +1,16 @@
+-- Only delta history rows may leave name, description or category null, and a delta's base may not be deleted
+-- while the delta still points at it. Deltas whose base is already gone lost those fields; they are stored as
+-- empty strings so the constraints can be added.
+UPDATE product SET name = COALESCE(name, ''), description = COALESCE(description, ''),
+    category = COALESCE(category, ''), history_base_id = NULL
+WHERE history_base_id IS NOT NULL AND history_base_id NOT IN (SELECT id FROM product);
+ALTER TABLE product ADD CONSTRAINT chk_product_delta_is_history
+    CHECK (history_base_id IS NULL OR original_product_id IS NOT NULL);
+ALTER TABLE product ADD CONSTRAINT chk_product_name_present
+    CHECK (name IS NOT NULL OR history_base_id IS NOT NULL);
+ALTER TABLE product ADD CONSTRAINT chk_product_description_present
+    CHECK (description IS NOT NULL OR history_base_id IS NOT NULL);
+ALTER TABLE product ADD CONSTRAINT chk_product_category_present
+    CHECK (category IS NOT NULL OR history_base_id IS NOT NULL);
+ALTER TABLE product ADD CONSTRAINT fk_product_history_base
+    FOREIGN KEY (history_base_id) REFERENCES product(id);
@@ -0,0 +1,13 @@
+-- Stock leases per holding instance. product.stock_leased stays the total that reservations check against;
+-- each holder's share expires on its own, so a dead instance's lease is written off without touching the
+-- leases of instances that are still settling theirs.
+CREATE TABLE IF NOT EXISTS stock_lease (
+    product_id BIGINT NOT NULL,
+    holder VARCHAR(255) NOT NULL,
+    leased INTEGER NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (product_id, holder)
+);
+CREATE INDEX IF NOT EXISTS idx_stock_lease_expires_at ON stock_lease(expires_at);
+
+ALTER TABLE product DROP COLUMN IF EXISTS stock_lease_expires_at;
@@ -0,0 +1,2 @@
+-- Keyset index for the per-tenant change feed (GET /api/products/changes)
+CREATE INDEX IF NOT EXISTS idx_product_tenant_event_time_id ON product(tenant_id, event_time, id);
@@ -0,0 +1,2 @@
+-- Optimistic locking version for product rows
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
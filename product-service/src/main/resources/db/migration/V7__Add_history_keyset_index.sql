@@ -0,0 +1,4 @@
+-- Keyset index for paged history and as-of reads (GET /api/products/{id}/history, /{id}/as-of);
+-- it leads with the same columns as idx_product_original_id, which it replaces
+CREATE INDEX IF NOT EXISTS idx_product_history_keyset ON product(original_product_id, tenant_id, event_time, id);
+DROP INDEX IF EXISTS idx_product_original_id;
@@ -0,0 +1,7 @@
+-- History rows may store name, description and category as deltas: null means "same as the full history
+-- row referenced by history_base_id"
+ALTER TABLE product ADD COLUMN IF NOT EXISTS history_base_id BIGINT;
+ALTER TABLE product ALTER COLUMN name DROP NOT NULL;
+ALTER TABLE product ALTER COLUMN description DROP NOT NULL;
+ALTER TABLE product ALTER COLUMN category DROP NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_product_history_base_id ON product(history_base_id);
@@ -0,0 +1,14 @@
+-- Target of event replay (app.replay.*): one row per product rebuilt from the products topic, promoted into
+-- product in a single transaction. Deleted products stay as deleted = TRUE so a partial replay can remove them.
+CREATE TABLE IF NOT EXISTS product_staging (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(255),
+    category VARCHAR(255),
+    price DOUBLE PRECISION,
+    stock_quantity INTEGER,
+    event_time TIMESTAMP,
+    tenant_id VARCHAR(255),
+    version BIGINT,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE
+);
@@ -4,6 +4,9 @@ import com.example.productservice.kafka.ProductProducer;
 import com.example.productservice.model.Product;
 import com.example.productservice.repository.ProductRepository;
 import com.example.productservice.security.TenantContext;
+import com.example.productservice.service.ProductService;
+import com.example.productservice.stock.StockReservationService;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
@@ -13,6 +16,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,6 +26,7 @@ import java.time.LocalDateTime;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -35,6 +40,15 @@ public class ProductControllerIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @MockBean
     private ProductProducer productProducer;
 
@@ -133,6 +147,89 @@ public class ProductControllerIntegrationTest {
                     .andExpect(jsonPath("$", hasSize(greaterThanOrEqualTo(0))));
         }
 
+        @Test
+        @DisplayName("GET /api/products/{id}/history - should page history newest first with a next link")
+        void testGetProductHistoryPaged() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            LocalDateTime base = LocalDateTime.now().minusHours(3);
+            for (int i = 0; i < 3; i++) {
+                createHistoryEntry(product, 100 - i, base.plusHours(i));
+            }
+
+            String link = mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/history")
+                            .param("size", "2")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].stockQuantity").value(98))
+                    .andExpect(jsonPath("$[1].stockQuantity").value(99))
+                    .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                    .andReturn().getResponse().getHeader("Link");
+            String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+            mockMvc.perform(get(next)
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].stockQuantity").value(100))
+                    .andExpect(header().doesNotExist("Link"));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/{id}/history - should read delta history rows back in full")
+        void testGetProductHistoryFromDeltas() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            for (int stock = 90; stock >= 70; stock -= 10) {
+                mockMvc.perform(put(BASE_PATH + "/" + product.getId())
+                                .header("X-Tenant-Id", TENANT_ID)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                        {
+                                            "name": "Apple",
+                                            "description": "Fresh apple",
+                                            "category": "Fruit",
+                                            "price": 1.5,
+                                            "stockQuantity": %d
+                                        }
+                                        """.formatted(stock)))
+                        .andExpect(status().isOk());
+            }
+
+            assertEquals(2, productRepository.findByOriginalProductIdAndTenantIdOrderByEventTimeDesc(
+                    product.getId(), TENANT_ID).stream().filter(row -> row.getHistoryBaseId() != null).count());
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/history")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(3)))
+                    .andExpect(jsonPath("$[*].stockQuantity", contains(80, 90, 100)))
+                    .andExpect(jsonPath("$[*].description", everyItem(is("Fresh apple"))))
+                    .andExpect(jsonPath("$[*].name", everyItem(is("Apple"))));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/{id}/as-of - should return the product state at a point in time")
+        void testGetProductAsOf() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 80, TENANT_ID);
+            LocalDateTime created = product.getEventTime();
+            LocalDateTime changed = created.plusMinutes(10);
+            createHistoryEntry(product, 100, changed);
+
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/as-of")
+                            .param("at", created.plusMinutes(5).toString())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stockQuantity").value(100));
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/as-of")
+                            .param("at", changed.plusMinutes(5).toString())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stockQuantity").value(80));
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/as-of")
+                            .param("at", created.minusMinutes(5).toString())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("POST /api/products - should create new product")
         void testCreateProduct() throws Exception {
@@ -182,6 +279,50 @@ public class ProductControllerIntegrationTest {
                     .andExpect(jsonPath("$.stockQuantity").value(80));
         }
 
+        @Test
+        @DisplayName("GET /api/products - should not list the history row an update's echo leaves behind")
+        void testListProductsAfterUpdateAndEcho() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            product.setEventType("CREATED");
+            productRepository.save(product);
+
+            mockMvc.perform(put(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {
+                                        "name": "Apple",
+                                        "description": "Fresh apple",
+                                        "category": "Fruit",
+                                        "price": 2.0,
+                                        "stockQuantity": 80
+                                    }
+                                    """))
+                    .andExpect(status().isOk());
+
+            TenantContext.setTenantId(TENANT_ID);
+            try {
+                Product echo = productRepository.findById(product.getId()).orElseThrow();
+                productService.handleProductEventFromKafka(echo, false);
+            } finally {
+                TenantContext.clear();
+            }
+
+            mockMvc.perform(get(BASE_PATH)
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].name").value("Apple"))
+                    .andExpect(jsonPath("$[0].price").value(2.0));
+
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(1)))
+                    .andExpect(jsonPath("$.content[0].name").value("Apple"))
+                    .andExpect(jsonPath("$.totalElements").value(1));
+        }
+
         @Test
         @DisplayName("PUT /api/products/{id} - should return 404 when product not found")
         void testUpdateProductNotFound() throws Exception {
@@ -203,6 +344,38 @@ public class ProductControllerIntegrationTest {
                     .andExpect(jsonPath("$.error").value("PRODUCT_NOT_FOUND"));
         }
 
+        @Test
+        @DisplayName("PUT /api/products/{id} - should return 409 when the client's version is stale")
+        void testUpdateProductVersionConflict() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            long version = product.getVersion();
+
+            String updateJson = """
+                    {
+                        "name": "Updated Apple",
+                        "description": "Very fresh apple",
+                        "category": "Fruit",
+                        "price": 2.0,
+                        "stockQuantity": 80,
+                        "version": %d
+                    }
+                    """;
+
+            mockMvc.perform(put(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(updateJson.formatted(version)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(version + 1));
+
+            mockMvc.perform(put(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(updateJson.formatted(version)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.error").value("VERSION_CONFLICT"));
+        }
+
         @Test
         @DisplayName("DELETE /api/products/{id} - should delete product")
         void testDeleteProduct() throws Exception {
@@ -225,6 +398,330 @@ public class ProductControllerIntegrationTest {
                     .andExpect(status().isNotFound())
                     .andExpect(jsonPath("$.error").value("PRODUCT_NOT_FOUND"));
         }
+
+        @Test
+        @DisplayName("GET /api/products/search - should return exact totals by default")
+        void testSearchProductsExactCount() throws Exception {
+            createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            createProductForTenant("Banana", "Yellow banana", "Fruit", 0.8, 150, TENANT_ID);
+            createProductForTenant("Cherry", "Red cherry", "Fruit", 3.0, 50, TENANT_ID);
+
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .param("size", "2")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(2)))
+                    .andExpect(jsonPath("$.totalElements").value(3))
+                    .andExpect(jsonPath("$.totalPages").value(2))
+                    .andExpect(jsonPath("$.totalExact").value(true))
+                    .andExpect(jsonPath("$.hasNext").value(true));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/search?countMode=none - should omit totals and detect next page")
+        void testSearchProductsWithoutCount() throws Exception {
+            createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            createProductForTenant("Banana", "Yellow banana", "Fruit", 0.8, 150, TENANT_ID);
+            createProductForTenant("Cherry", "Red cherry", "Fruit", 3.0, 50, TENANT_ID);
+
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .param("size", "2")
+                            .param("countMode", "none")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(2)))
+                    .andExpect(jsonPath("$.content[0].name").value("Apple"))
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andExpect(jsonPath("$.totalPages").doesNotExist())
+                    .andExpect(jsonPath("$.totalExact").doesNotExist())
+                    .andExpect(jsonPath("$.hasNext").value(true));
+
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .param("size", "2")
+                            .param("page", "1")
+                            .param("countMode", "none")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(1)))
+                    .andExpect(jsonPath("$.hasNext").value(false));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/search?countMode=estimated - should report exact total on last page")
+        void testSearchProductsEstimatedCount() throws Exception {
+            createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            createProductForTenant("Banana", "Yellow banana", "Fruit", 0.8, 150, TENANT_ID);
+            createProductForTenant("Cherry", "Red cherry", "Fruit", 3.0, 50, TENANT_ID);
+
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .param("size", "2")
+                            .param("countMode", "estimated")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(3))
+                    .andExpect(jsonPath("$.totalExact").value(false));
+
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .param("size", "2")
+                            .param("page", "1")
+                            .param("countMode", "estimated")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(3))
+                    .andExpect(jsonPath("$.totalExact").value(true));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/changes - should return latest state and tombstones since watermark")
+        void testGetProductChanges() throws Exception {
+            Product apple = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            Product banana = createProductForTenant("Banana", "Yellow banana", "Fruit", 0.8, 150, TENANT_ID);
+            createProductForTenant("Carrot", "Orange carrot", "Vegetable", 0.5, 70, OTHER_TENANT_ID);
+
+            mockMvc.perform(put(BASE_PATH + "/" + apple.getId())
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"name": "Green Apple", "description": "Fresh apple", "category": "Fruit",
+                                     "price": 1.7, "stockQuantity": 90}
+                                    """))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete(BASE_PATH + "/" + banana.getId())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isNoContent());
+
+            String body = mockMvc.perform(get(BASE_PATH + "/changes")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(2)))
+                    .andExpect(jsonPath("$.changes[0].productId").value(apple.getId()))
+                    .andExpect(jsonPath("$.changes[0].changeType").value("UPDATED"))
+                    .andExpect(jsonPath("$.changes[0].product.name").value("Green Apple"))
+                    .andExpect(jsonPath("$.changes[1].productId").value(banana.getId()))
+                    .andExpect(jsonPath("$.changes[1].changeType").value("DELETED"))
+                    .andExpect(jsonPath("$.changes[1].product").doesNotExist())
+                    .andExpect(jsonPath("$.hasMore").value(false))
+                    .andReturn().getResponse().getContentAsString();
+            String watermark = JsonPath.read(body, "$.watermark");
+
+            mockMvc.perform(get(BASE_PATH + "/changes")
+                            .param("since", watermark)
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(0)))
+                    .andExpect(jsonPath("$.watermark").value(watermark));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/changes - should page through changes with the returned watermark")
+        void testGetProductChangesPaged() throws Exception {
+            createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+            createProductForTenant("Banana", "Yellow banana", "Fruit", 0.8, 150, TENANT_ID);
+            createProductForTenant("Cherry", "Red cherry", "Fruit", 3.0, 50, TENANT_ID);
+
+            String body = mockMvc.perform(get(BASE_PATH + "/changes")
+                            .param("size", "2")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(2)))
+                    .andExpect(jsonPath("$.changes[0].changeType").value("CREATED"))
+                    .andExpect(jsonPath("$.hasMore").value(true))
+                    .andReturn().getResponse().getContentAsString();
+            String watermark = JsonPath.read(body, "$.watermark");
+
+            mockMvc.perform(get(BASE_PATH + "/changes")
+                            .param("since", watermark)
+                            .param("size", "2")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(1)))
+                    .andExpect(jsonPath("$.changes[0].product.name").value("Cherry"))
+                    .andExpect(jsonPath("$.hasMore").value(false));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/changes - should reject malformed watermark")
+        void testGetProductChangesInvalidWatermark() throws Exception {
+            mockMvc.perform(get(BASE_PATH + "/changes")
+                            .param("since", "not-a-watermark")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("GET /api/products/stream - should open an event stream for the tenant")
+        void testStreamProductChanges() throws Exception {
+            mockMvc.perform(get(BASE_PATH + "/stream")
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(request().asyncStarted());
+        }
+
+        @Test
+        @DisplayName("GET /api/products - should return 304 until the tenant's catalog changes")
+        void testGetAllProductsConditional() throws Exception {
+            createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 100, TENANT_ID);
+
+            String etag = mockMvc.perform(get(BASE_PATH)
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get(BASE_PATH)
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .header("X-Tenant-Id", OTHER_TENANT_ID)
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(post(BASE_PATH)
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"name": "Banana", "description": "Yellow banana", "category": "Fruit",
+                                     "price": 0.8, "stockQuantity": 150}
+                                    """))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(get(BASE_PATH)
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)))
+                    .andExpect(jsonPath("$", hasSize(2)));
+        }
+
+        @Test
+        @DisplayName("POST /api/products/{id}/stock/* - should apply increments and leased reservations on flush")
+        void testStockReserveAndIncrement() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 200, TENANT_ID);
+            String path = BASE_PATH + "/" + product.getId() + "/stock";
+
+            mockMvc.perform(post(path + "/reserve")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 3}"))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(post(path + "/reserve")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 2}"))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(post(path + "/increment")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 10}"))
+                    .andExpect(status().isAccepted());
+
+            // The lease taken by the first reservation stays visible; only the reserved units are gone,
+            // and the increment waits for the flush
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stockQuantity").value(197));
+            stockReservationService.flush();
+
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stockQuantity").value(205));
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/history")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].stockQuantity").value(200));
+
+            // Nothing happened since, so the next flush records nothing
+            stockReservationService.flush();
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId() + "/history")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("POST /api/products/{id}/stock/reserve - should write off only the expired holder's lease")
+        void testExpiredLeaseWrittenOffPerHolder() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 200, TENANT_ID);
+
+            mockMvc.perform(post(BASE_PATH + "/" + product.getId() + "/stock/reserve")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 3}"))
+                    .andExpect(status().isNoContent());
+            // Another instance leased 20 units and died without settling them
+            jdbcTemplate.update("UPDATE product SET stock_leased = stock_leased + 20 WHERE id = ?", product.getId());
+            jdbcTemplate.update("INSERT INTO stock_lease (product_id, holder, leased, expires_at) VALUES (?, ?, ?, ?)",
+                    product.getId(), "dead-instance", 20, LocalDateTime.now().minusMinutes(1));
+
+            stockReservationService.writeOffExpiredLeases();
+
+            assertEquals(17, jdbcTemplate.queryForObject("SELECT stock_leased FROM product WHERE id = ?",
+                    Integer.class, product.getId()));
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_lease WHERE product_id = ?",
+                    Integer.class, product.getId()));
+
+            stockReservationService.flush();
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_lease WHERE product_id = ?",
+                    Integer.class, product.getId()));
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stockQuantity").value(177));
+        }
+
+        @Test
+        @DisplayName("POST /api/products/{id}/stock/* - should never take more stock than is available")
+        void testStockReserveInsufficient() throws Exception {
+            Product product = createProductForTenant("Apple", "Fresh apple", "Fruit", 1.5, 5, TENANT_ID);
+            String path = BASE_PATH + "/" + product.getId() + "/stock";
+
+            mockMvc.perform(post(path + "/reserve")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 4}"))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(post(path + "/reserve")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 2}"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.error").value("INSUFFICIENT_STOCK"));
+            mockMvc.perform(post(path + "/decrement")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 1}"))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(post(path + "/decrement")
+                            .header("X-Tenant-Id", OTHER_TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 1}"))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(post(path + "/reserve")
+                            .header("X-Tenant-Id", TENANT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 0}"))
+                    .andExpect(status().isBadRequest());
+            stockReservationService.flush();
+
+            mockMvc.perform(get(BASE_PATH + "/" + product.getId())
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stockQuantity").value(0));
+        }
+
+        @Test
+        @DisplayName("GET /api/products/search - should reject unknown count mode")
+        void testSearchProductsInvalidCountMode() throws Exception {
+            mockMvc.perform(get(BASE_PATH + "/search")
+                            .param("countMode", "approximate")
+                            .header("X-Tenant-Id", TENANT_ID))
+                    .andExpect(status().isBadRequest());
+        }
     }
 
     @Nested
@@ -643,6 +1140,20 @@ public class ProductControllerIntegrationTest {
         }
     }
 
+    private void createHistoryEntry(Product product, Integer stockQuantity, LocalDateTime eventTime) {
+        Product history = new Product();
+        history.setOriginalProductId(product.getId());
+        history.setName(product.getName());
+        history.setDescription(product.getDescription());
+        history.setCategory(product.getCategory());
+        history.setPrice(product.getPrice());
+        history.setStockQuantity(stockQuantity);
+        history.setEventType("UPDATED");
+        history.setEventTime(eventTime);
+        history.setTenantId(product.getTenantId());
+        productRepository.save(history);
+    }
+
     private Product createProductForTenant(String name, String description, String category,
                                            Double price, Integer stockQuantity, String tenantId) {
         TenantContext.setTenantId(tenantId);
@@ -1,21 +1,34 @@
 package com.example.productservice;
 
+import com.example.productservice.dto.ProductFilterDTO;
 import com.example.productservice.dto.ProductRequestDTO;
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.event.ProductChangedEvent;
+import com.example.productservice.event.ProductMessageEvent;
+import com.example.productservice.exception.ConflictException;
 import com.example.productservice.exception.ProductNotFoundException;
-import com.example.productservice.kafka.ProductProducer;
+import com.example.productservice.history.HistoryArchive;
 import com.example.productservice.model.Product;
+import com.example.productservice.repository.HistoryBaseRow;
+import com.example.productservice.repository.ProductCountEstimator;
 import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.repository.StockLeases;
 import com.example.productservice.security.TenantContext;
 import com.example.productservice.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,7 +39,16 @@ class ProductServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private ProductProducer productProducer;
+    private ProductCountEstimator productCountEstimator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private HistoryArchive historyArchive;
+
+    @Mock
+    private StockLeases stockLeases;
 
     @InjectMocks
     private ProductService productService;
@@ -39,16 +61,34 @@ class ProductServiceTest {
 
     @Test
     void testGetAllProducts() {
-        List<Product> mockProducts = Arrays.asList(
-                new Product("Apple", 1.0),
-                new Product("Banana", 2.0)
+        List<ProductResponseDTO> mockProducts = Arrays.asList(
+                ProductResponseDTO.builder().id(1L).name("Apple").price(1.0).build(),
+                ProductResponseDTO.builder().id(2L).name("Banana").price(2.0).build()
         );
-        when(productRepository.findCurrentProductsByTenant("test-tenant")).thenReturn(mockProducts);
+        when(productRepository.findCurrentProductResponsesByTenant("test-tenant")).thenReturn(mockProducts);
 
-        List<Product> products = productService.getAllProducts();
+        List<ProductResponseDTO> products = productService.getAllProducts();
 
         assertEquals(2, products.size());
-        verify(productRepository, times(1)).findCurrentProductsByTenant("test-tenant");
+        verify(productRepository, times(1)).findCurrentProductResponsesByTenant("test-tenant");
+    }
+
+    @Test
+    void testEstimateSearchTotalUsesPlannerEstimate() {
+        ProductFilterDTO filter = ProductFilterDTO.builder().category("Fruit").build();
+        when(productCountEstimator.estimate(filter, "test-tenant")).thenReturn(OptionalLong.of(1200L));
+
+        assertEquals(1200L, productService.estimateSearchTotal(filter));
+        verify(productRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testEstimateSearchTotalFallsBackToExactCount() {
+        ProductFilterDTO filter = ProductFilterDTO.builder().category("Fruit").build();
+        when(productCountEstimator.estimate(filter, "test-tenant")).thenReturn(OptionalLong.empty());
+        when(productRepository.count(any(Specification.class))).thenReturn(7L);
+
+        assertEquals(7L, productService.estimateSearchTotal(filter));
     }
 
     @Test
@@ -65,7 +105,7 @@ class ProductServiceTest {
         assertEquals(3.0, result.getPrice());
         assertEquals(1L, result.getId());
 
-        verify(productProducer, times(1)).sendMessage(any(Product.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ProductMessageEvent.class));
     }
 
     @Test
@@ -82,6 +122,42 @@ class ProductServiceTest {
         assertEquals(1L, result.getId());
     }
 
+    @Test
+    void testRecordStockChangeSnapshotsStockFromBeforeItWasTaken() {
+        Product product = new Product("Apple", 1.0);
+        product.setId(1L);
+        product.setStockQuantity(90);
+        when(productRepository.findByIdAndTenantId(1L, "test-tenant")).thenReturn(Optional.of(product));
+
+        assertTrue(productService.recordStockChange(1L, "test-tenant", 10, 4, 20, 5));
+
+        ArgumentCaptor<Product> history = ArgumentCaptor.forClass(Product.class);
+        verify(productRepository).save(history.capture());
+        assertEquals(100, history.getValue().getStockQuantity());
+        assertEquals(1L, history.getValue().getOriginalProductId());
+        verify(productRepository).addStock(1L, "test-tenant", 5);
+        verify(productRepository).settleLease(1L, "test-tenant", 4, 20);
+        verify(stockLeases).release(1L, 20);
+    }
+
+    @Test
+    void testGetProductResponseById() {
+        when(productRepository.findProductResponseByIdAndTenantId(1L, "test-tenant"))
+                .thenReturn(Optional.of(ProductResponseDTO.builder().id(1L).name("Apple").price(1.0).build()));
+
+        ProductResponseDTO result = productService.getProductResponseById(1L);
+
+        assertEquals("Apple", result.getName());
+        assertEquals(1L, result.getId());
+    }
+
+    @Test
+    void testGetProductResponseByIdThrowsExceptionWhenNotFound() {
+        when(productRepository.findProductResponseByIdAndTenantId(999L, "test-tenant")).thenReturn(Optional.empty());
+
+        assertThrows(ProductNotFoundException.class, () -> productService.getProductResponseById(999L));
+    }
+
     @Test
     void testGetProductByIdThrowsExceptionWhenNotFound() {
         when(productRepository.findByIdAndTenantId(999L, "test-tenant")).thenReturn(Optional.empty());
@@ -100,7 +176,8 @@ class ProductServiceTest {
 
         verify(productRepository, times(1)).save(any(Product.class));
         verify(productRepository, times(1)).deleteById(1L);
-        verify(productProducer, times(1)).sendMessage(any(Product.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ProductMessageEvent.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
@@ -114,10 +191,151 @@ class ProductServiceTest {
         assertThrows(ProductNotFoundException.class, () -> productService.updateProduct(999L, updatedProduct));
     }
 
+    @Test
+    void testUpdateProductThrowsConflictOnStaleVersion() {
+        Product existingProduct = new Product("Apple", 1.0);
+        existingProduct.setId(1L);
+        existingProduct.setVersion(3L);
+        ProductRequestDTO updatedProduct = new ProductRequestDTO();
+        updatedProduct.setName("Updated");
+        updatedProduct.setVersion(2L);
+
+        when(productRepository.findByIdAndTenantId(1L, "test-tenant")).thenReturn(Optional.of(existingProduct));
+
+        assertThrows(ConflictException.class, () -> productService.updateProduct(1L, updatedProduct));
+        verify(productRepository, never()).saveAndFlush(any(Product.class));
+        verify(eventPublisher, never()).publishEvent(any(ProductMessageEvent.class));
+    }
+
+    @Test
+    void testProcessProductEventSkipsStaleUpdate() {
+        Product existingProduct = new Product("Apple", 1.0);
+        existingProduct.setId(1L);
+        existingProduct.setVersion(5L);
+        Product staleEvent = new Product("Old Apple", 0.5);
+        staleEvent.setId(1L);
+        staleEvent.setVersion(4L);
+        staleEvent.setEventType("UPDATED");
+        staleEvent.setTenantId("test-tenant");
+
+        when(productRepository.findByIdAndTenantId(1L, "test-tenant")).thenReturn(Optional.of(existingProduct));
+
+        productService.processProductEvent(staleEvent);
+
+        assertEquals("Apple", existingProduct.getName());
+        verify(productRepository, never()).saveAndFlush(any(Product.class));
+    }
+
+    @Test
+    void testProcessProductEventSendsAppliedExternalUpdateOn() {
+        Product existingProduct = new Product("Apple", 1.0);
+        existingProduct.setId(1L);
+        existingProduct.setVersion(2L);
+        Product externalEvent = new Product("Green apple", 1.2);
+        externalEvent.setId(1L);
+        externalEvent.setEventType("UPDATED");
+        externalEvent.setTenantId("test-tenant");
+
+        when(productRepository.findByIdAndTenantId(1L, "test-tenant")).thenReturn(Optional.of(existingProduct));
+        when(productRepository.saveAndFlush(existingProduct)).thenReturn(existingProduct);
+
+        productService.processProductEvent(externalEvent);
+
+        ArgumentCaptor<ProductMessageEvent> sent = ArgumentCaptor.forClass(ProductMessageEvent.class);
+        verify(eventPublisher).publishEvent(sent.capture());
+        assertEquals("Green apple", sent.getValue().getProduct().getName());
+    }
+
+    @Test
+    void testProcessProductEventSkipsCreatedWhenProductExists() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 0, 0);
+        Product createdEvent = new Product("Apple", 1.0);
+        createdEvent.setId(1L);
+        createdEvent.setVersion(0L);
+        createdEvent.setEventType("CREATED");
+        createdEvent.setEventTime(createdAt);
+        createdEvent.setTenantId("test-tenant");
+
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        productService.handleProductEventFromKafka(createdEvent, true);
+
+        assertEquals(createdAt, createdEvent.getEventTime());
+        verify(productRepository, never()).save(createdEvent);
+        verify(eventPublisher, never()).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testHistoryStoredAsDeltaAgainstLatestFullRow() {
+        HistoryBaseRow base = historyBase(7L, "Apple", "Fresh apple", "Fruit", 0);
+        Product event = new Product("Apple", 1.0);
+        event.setId(1L);
+        event.setDescription("Fresh apple");
+        event.setCategory("Fruits");
+        event.setStockQuantity(5);
+        event.setTenantId("test-tenant");
+
+        when(productRepository.findLatestFullHistory(eq(1L), eq("test-tenant"), any())).thenReturn(List.of(base));
+
+        productService.handleProductEventFromKafka(event, false);
+
+        ArgumentCaptor<Product> history = ArgumentCaptor.forClass(Product.class);
+        verify(productRepository).save(history.capture());
+        assertEquals(7L, history.getValue().getHistoryBaseId());
+        assertNull(history.getValue().getName());
+        assertNull(history.getValue().getDescription());
+        assertEquals("Fruits", history.getValue().getCategory());
+        assertEquals(5, history.getValue().getStockQuantity());
+    }
+
+    @Test
+    void testHistoryStoredInFullAfterSnapshotInterval() {
+        HistoryBaseRow base = historyBase(7L, "Apple", null, null, 15);
+        Product event = new Product("Apple", 1.0);
+        event.setId(1L);
+        event.setTenantId("test-tenant");
+
+        when(productRepository.findLatestFullHistory(eq(1L), eq("test-tenant"), any())).thenReturn(List.of(base));
+
+        productService.handleProductEventFromKafka(event, false);
+
+        ArgumentCaptor<Product> history = ArgumentCaptor.forClass(Product.class);
+        verify(productRepository).save(history.capture());
+        assertNull(history.getValue().getHistoryBaseId());
+        assertEquals("Apple", history.getValue().getName());
+    }
+
+    @Test
+    void testAsOfSkipsArchiveWhenTableHasOlderHistory() {
+        LocalDateTime asOf = LocalDateTime.of(2026, 1, 1, 0, 0);
+        ProductResponseDTO snapshot = ProductResponseDTO.builder().id(5L).originalProductId(1L).name("Apple")
+            .eventTime(asOf.plusDays(1)).build();
+        when(productRepository.findCurrentProductResponsesByIds(List.of(1L), "test-tenant")).thenReturn(List.of(
+            ProductResponseDTO.builder().id(1L).name("Green apple").eventTime(asOf.minusDays(10)).build()));
+        when(productRepository.existsByOriginalProductIdAndTenantIdAndEventTimeLessThanEqual(1L, "test-tenant", asOf))
+            .thenReturn(true);
+        when(productRepository.findHistoryResponsesAfter(eq(1L), eq("test-tenant"), eq(asOf), any()))
+            .thenReturn(List.of(snapshot));
+
+        assertEquals("Apple", productService.getProductAsOf(1L, asOf).getName());
+        verifyNoInteractions(historyArchive);
+    }
+
     @Test
     void testDeleteProductThrowsExceptionWhenNotFound() {
         when(productRepository.findByIdAndTenantId(999L, "test-tenant")).thenReturn(Optional.empty());
 
         assertThrows(ProductNotFoundException.class, () -> productService.deleteProduct(999L));
     }
+
+    private static HistoryBaseRow historyBase(Long id, String name, String description, String category,
+                                              long deltaCount) {
+        HistoryBaseRow base = mock(HistoryBaseRow.class);
+        when(base.getId()).thenReturn(id);
+        when(base.getName()).thenReturn(name);
+        when(base.getDescription()).thenReturn(description);
+        when(base.getCategory()).thenReturn(category);
+        when(base.getDeltaCount()).thenReturn(deltaCount);
+        return base;
+    }
 }
@@ -0,0 +1,186 @@
+package com.example.productservice.benchmark;
+
+import com.example.productservice.kafka.ProductProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Drives the real filter chain, limiter aspect, transaction manager and Hikari pool with more concurrent
+ * readers than the pool can serve. Each by-id read holds one of the two connections for 200 ms, so without
+ * shedding 12 closed-loop readers queue about 1.2 s for a connection. Shed readers back off for one query time,
+ * as a client honouring Retry-After would. The limiter has to shed part of the load, keep admitted reads below
+ * the unlimited queueing time once it has adapted, and never shed the writes made while it is shedding.
+ * Its thresholds depend on the machine, so it only runs on request; the limiter's adaptation itself is covered
+ * by AdaptiveConcurrencyLimiterTest.
+ * Run with {@code mvn test -pl product-service -Dbenchmarks=true -Dtest=ConcurrencyLimitBenchmarkTest}.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.maximum-pool-size=" + ConcurrencyLimitBenchmarkTest.POOL_SIZE,
+    "app.tenant-quota.enabled=false",
+    "app.concurrency-limit.initial-limit=4",
+    "app.concurrency-limit.min-limit=2",
+    "app.concurrency-limit.max-limit=64",
+    "app.concurrency-limit.window=PT0.5S"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ConcurrencyLimitBenchmarkTest {
+
+    static final int POOL_SIZE = 2;
+    private static final String TENANT_ID = "load-tenant";
+    private static final int READERS = 12;
+    private static final long QUERY_MILLIS = 200;
+    private static final long UNLIMITED_WAIT_MILLIS = READERS / POOL_SIZE * QUERY_MILLIS;
+    private static final Duration DURATION = Duration.ofSeconds(4);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private ProductRepository productRepository;
+
+    @MockBean
+    private ProductProducer productProducer;
+
+    @Test
+    void testOverloadIsShedWhileAdmittedReadsAndWritesStayFast() throws Exception {
+        Product product = new Product("Apple", 1.5);
+        product.setId(1L);
+        product.setDescription("Fresh apple");
+        product.setCategory("Fruit");
+        product.setStockQuantity(10);
+        product.setTenantId(TENANT_ID);
+        product.setVersion(0L);
+        doAnswer(invocation -> {
+            Thread.sleep(QUERY_MILLIS);
+            return Optional.of(product);
+        }).when(productRepository).findByIdAndTenantId(any(), any());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, perform(get("/api/products/1").header("X-Tenant-Id", TENANT_ID)));
+        }
+
+        LongAdder admitted = new LongAdder();
+        LongAdder shed = new LongAdder();
+        LongAdder unexpected = new LongAdder();
+        List<Long> adaptedLatencies = Collections.synchronizedList(new ArrayList<>());
+        long adaptedFrom = System.nanoTime() + DURATION.toNanos() / 2;
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        List<Integer> writeStatuses;
+
+        ExecutorService readers = Executors.newFixedThreadPool(READERS);
+        try {
+            for (int i = 0; i < READERS; i++) {
+                readers.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status = perform(get("/api/products/1").header("X-Tenant-Id", TENANT_ID));
+                        if (status == 200) {
+                            admitted.increment();
+                            if (start - adaptedFrom >= 0) {
+                                adaptedLatencies.add(System.nanoTime() - start);
+                            }
+                        } else if (status == 503) {
+                            shed.increment();
+                            pause(QUERY_MILLIS);
+                        } else {
+                            unexpected.increment();
+                        }
+                    }
+                });
+            }
+            Thread.sleep(DURATION.toMillis() / 4);
+            writeStatuses = writeWhileOverloaded();
+        } finally {
+            readers.shutdown();
+            assertTrue(readers.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        double shedRate = (double) shed.sum() / (admitted.sum() + shed.sum());
+        long p50 = TimeUnit.NANOSECONDS.toMillis(percentile(adaptedLatencies, 0.50));
+        long p99 = TimeUnit.NANOSECONDS.toMillis(percentile(adaptedLatencies, 0.99));
+        assertEquals(0, unexpected.sum());
+        assertTrue(shedRate > 0.2 && shedRate < 0.95, "shed rate " + shedRate);
+        assertFalse(adaptedLatencies.isEmpty());
+        assertTrue(p50 < UNLIMITED_WAIT_MILLIS * 3 / 4, "p50 of admitted reads " + p50 + " ms");
+        assertTrue(p99 < UNLIMITED_WAIT_MILLIS, "p99 of admitted reads " + p99 + " ms");
+        assertTrue(writeStatuses.stream().allMatch(status -> status == 201), writeStatuses.toString());
+    }
+
+    private List<Integer> writeWhileOverloaded() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String body = "{\"name\":\"Pear " + i + "\",\"description\":\"Ripe pear\",\"category\":\"Fruit\","
+                    + "\"price\":2.0,\"stockQuantity\":5}";
+                results.add(writers.submit(() -> perform(post("/api/products").header("X-Tenant-Id", TENANT_ID)
+                    .contentType(MediaType.APPLICATION_JSON).content(body))));
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                statuses.add(result.get());
+            }
+            return statuses;
+        } finally {
+            writers.shutdown();
+        }
+    }
+
+    private int perform(RequestBuilder request) {
+        try {
+            return mockMvc.perform(request).andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long percentile(List<Long> samples, double percentile) {
+        List<Long> sorted;
+        synchronized (samples) {
+            sorted = new ArrayList<>(samples);
+        }
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(sorted);
+        int index = Math.min(sorted.size() - 1, (int) Math.ceil(percentile * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index));
+    }
+}
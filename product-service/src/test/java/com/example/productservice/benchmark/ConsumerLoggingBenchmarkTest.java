@@ -0,0 +1,119 @@
+package com.example.productservice.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.kafka.EventDeduplicator;
+import com.example.productservice.kafka.PayloadLogSampler;
+import com.example.productservice.kafka.ProductConsumer;
+import com.example.productservice.kafka.ProductEventCodec;
+import com.example.productservice.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Consumer throughput with full synchronous payload logging versus sampled/truncated and async logging.
+ * Run with {@code mvn test -pl product-service -Dbenchmarks=true -Dtest=ConsumerLoggingBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ConsumerLoggingBenchmarkTest {
+
+    private static final int WARMUP_MESSAGES = 20_000;
+    private static final int MEASURED_MESSAGES = 200_000;
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    void compareConsumerThroughput() throws Exception {
+        byte[] message = samplePayload();
+
+        double full = run("full payload, sync appender", new PayloadLogSampler(1, Integer.MAX_VALUE), message,
+            fileAppender("full.log"));
+        double sampled = run("sampled 1/100, truncated, sync appender", new PayloadLogSampler(100, 256), message,
+            fileAppender("sampled.log"));
+        double async = run("sampled 1/100, truncated, async appender", new PayloadLogSampler(100, 256), message,
+            asyncAppender(fileAppender("async.log")));
+
+        System.out.printf("%nSpeed-up over full payload logging: sampled x%.1f, sampled+async x%.1f%n",
+            sampled / full, async / full);
+    }
+
+    private double run(String label, PayloadLogSampler sampler, byte[] message, Appender<ILoggingEvent> appender)
+            throws Exception {
+        Logger consumerLogger = (Logger) LoggerFactory.getLogger(ProductConsumer.class);
+        consumerLogger.detachAndStopAllAppenders();
+        consumerLogger.setAdditive(false);
+        consumerLogger.setLevel(Level.INFO);
+        consumerLogger.addAppender(appender);
+
+        ProductService productService = mock(ProductService.class, withSettings().stubOnly());
+        ProductEventCodec codec = new ProductEventCodec(new ObjectMapper().findAndRegisterModules(),
+            AppConstants.Kafka.ENCODING_JSON);
+        ProductConsumer consumer = new ProductConsumer(codec, productService, sampler,
+            new EventDeduplicator(1, new SimpleMeterRegistry()), new SimpleMeterRegistry(), 5);
+
+        long offset = 0;
+        for (int i = 0; i < WARMUP_MESSAGES; i++) {
+            consumer.handleProductEvent(message, AppConstants.Kafka.TOPIC_PRODUCTS, 0, offset++, null, null);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_MESSAGES; i++) {
+            consumer.handleProductEvent(message, AppConstants.Kafka.TOPIC_PRODUCTS, 0, offset++, null, null);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        consumerLogger.detachAndStopAllAppenders();
+        double throughput = MEASURED_MESSAGES / seconds;
+        System.out.printf("%-45s %,12.0f msg/s%n", label, throughput);
+        return throughput;
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(String fileName) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(logDir.resolve(fileName).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private AsyncAppender asyncAppender(Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(delegate.getContext());
+        appender.setQueueSize(8192);
+        appender.setNeverBlock(true);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+
+    private byte[] samplePayload() {
+        String description = "Long product description ".repeat(40);
+        String json = "{\"id\":1,\"name\":\"Laptop\",\"description\":\"" + description + "\",\"category\":\"Electronics\","
+            + "\"price\":999.99,\"stockQuantity\":10,\"eventType\":\"UPDATED\",\"tenantId\":\"tenant-a\"}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
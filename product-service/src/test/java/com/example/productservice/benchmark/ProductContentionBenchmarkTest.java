@@ -0,0 +1,113 @@
+package com.example.productservice.benchmark;
+
+import com.example.productservice.dto.ProductRequestDTO;
+import com.example.productservice.exception.ConflictException;
+import com.example.productservice.kafka.ProductProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.security.TenantContext;
+import com.example.productservice.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optimistic-lock update throughput with concurrent writers spread over a shrinking set of hot SKUs.
+ * Each writer reads the product, sends its version with the update and re-reads on 409.
+ * Run with {@code mvn test -pl product-service -Dbenchmarks=true -Dtest=ProductContentionBenchmarkTest}.
+ */
+@SpringBootTest(properties = "spring.kafka.enabled=false")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ProductContentionBenchmarkTest {
+
+    private static final String TENANT_ID = "bench-tenant";
+    private static final int WRITERS = 16;
+    private static final int UPDATES_PER_WRITER = 500;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private ProductProducer productProducer;
+
+    @Test
+    void compareUpdateThroughputByHotSetSize() throws Exception {
+        for (int hotSkus : new int[] {256, 16, 4, 1}) {
+            run(hotSkus);
+        }
+    }
+
+    private void run(int hotSkus) throws Exception {
+        productRepository.deleteAll();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < hotSkus; i++) {
+            Product product = new Product("SKU-" + i, 10.0);
+            product.setDescription("Hot item");
+            product.setCategory("Bench");
+            product.setStockQuantity(1_000);
+            product.setTenantId(TENANT_ID);
+            ids.add(productRepository.save(product).getId());
+        }
+
+        LongAdder conflicts = new LongAdder();
+        CountDownLatch done = new CountDownLatch(WRITERS);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        long start = System.nanoTime();
+        for (int w = 0; w < WRITERS; w++) {
+            pool.execute(() -> {
+                TenantContext.setTenantId(TENANT_ID);
+                try {
+                    for (int i = 0; i < UPDATES_PER_WRITER; i++) {
+                        Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        while (!tryUpdate(id)) {
+                            conflicts.increment();
+                        }
+                    }
+                } finally {
+                    TenantContext.clear();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pool.shutdown();
+
+        long updates = (long) WRITERS * UPDATES_PER_WRITER;
+        System.out.printf("%4d hot SKUs, %d writers: %,10.0f updates/s, %,7d conflicts (%.1f%% of attempts)%n",
+            hotSkus, WRITERS, updates / seconds, conflicts.sum(),
+            100.0 * conflicts.sum() / (updates + conflicts.sum()));
+    }
+
+    private boolean tryUpdate(Long id) {
+        Product current = productService.getProductById(id);
+        ProductRequestDTO update = new ProductRequestDTO();
+        update.setName(current.getName());
+        update.setDescription(current.getDescription());
+        update.setCategory(current.getCategory());
+        update.setPrice(current.getPrice() + 0.01);
+        update.setStockQuantity(current.getStockQuantity());
+        update.setVersion(current.getVersion());
+        try {
+            productService.updateProduct(id, update);
+            return true;
+        } catch (ConflictException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.productservice.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 1.5, Duration.ofMillis(100),
+            new SimpleMeterRegistry(), clock::get);
+    }
+
+    @Test
+    void testRejectsBeyondLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(-1);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsStableAndShrinksWhenItRises() {
+        for (int i = 0; i < 20; i++) {
+            runWindow(10);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit should grow under steady latency, was " + grown);
+
+        for (int i = 0; i < 20; i++) {
+            runWindow(60);
+        }
+        assertTrue(limiter.getLimit() < grown, "limit should shrink when latency rises, was " + limiter.getLimit());
+    }
+
+    @Test
+    void testIdleServiceDoesNotGrowLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void testLimitNeverDropsBelowMinimum() {
+        for (int i = 0; i < 50; i++) {
+            runWindow(10L << Math.min(i, 20));
+        }
+        assertTrue(limiter.getLimit() >= 4);
+    }
+
+    @Test
+    void testOverloadIsShedUntilLatencyRecovers() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Math.min(30, limiter.getLimit()), runWindow(30, 10));
+        }
+
+        // Queueing quadruples latency: the excess of 30 concurrent readers is rejected instead of waiting
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            admitted = runWindow(30, 40);
+        }
+        assertTrue(admitted < 25, "admitted " + admitted + " of 30 while overloaded");
+
+        for (int i = 0; i < 20; i++) {
+            admitted = runWindow(30, 10);
+        }
+        assertEquals(30, admitted);
+    }
+
+    private void runWindow(long latencyMillis) {
+        runWindow(Integer.MAX_VALUE, latencyMillis);
+    }
+
+    /**
+     * Offers up to {@code offered} concurrent requests, lets one window pass and completes the admitted ones
+     * with the given latency. Returns how many were admitted.
+     */
+    private int runWindow(int offered, long latencyMillis) {
+        int admitted = 0;
+        while (admitted < offered && limiter.tryAcquire()) {
+            admitted++;
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < admitted; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+        return admitted;
+    }
+}
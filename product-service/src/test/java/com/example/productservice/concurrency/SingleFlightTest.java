@@ -0,0 +1,88 @@
+package com.example.productservice.concurrency;
+
+import com.example.productservice.dto.ProductFilterDTO;
+import com.example.productservice.exception.ProductNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testConcurrentCallsWithSameKeyShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                try {
+                    return singleFlight.execute("key", () -> {
+                        executions.incrementAndGet();
+                        release.await();
+                        return "result";
+                    });
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }));
+        }
+        while (executions.get() == 0) {
+            Thread.onSpinWait();
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<Object> result : results) {
+            assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testCompletedCallIsNotReused() throws Throwable {
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("key", executions::incrementAndGet);
+        singleFlight.execute("key", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testExceptionIsPropagatedAndFlightCleared() {
+        assertThrows(ProductNotFoundException.class,
+            () -> singleFlight.execute("key", () -> { throw new ProductNotFoundException(1L); }));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testNormalizeTreatsEquivalentFiltersAsEqual() {
+        ProductFilterDTO first = ProductFilterDTO.builder().search("Apple").category(" ").sortOrder("DESC").build();
+        ProductFilterDTO second = ProductFilterDTO.builder().search("apple").countMode("none").sortOrder("desc").build();
+        ProductFilterDTO other = ProductFilterDTO.builder().search("apple").page(1).build();
+
+        assertEquals(SingleFlightAspect.normalize(first), SingleFlightAspect.normalize(second));
+        assertNotEquals(SingleFlightAspect.normalize(first), SingleFlightAspect.normalize(other));
+    }
+}
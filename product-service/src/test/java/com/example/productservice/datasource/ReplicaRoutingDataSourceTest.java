@@ -0,0 +1,95 @@
+package com.example.productservice.datasource;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.security.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final String TENANT_ID = "test-tenant";
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReplicaRoutingDataSource(
+            new ReadYourWritesTracker(Duration.ofMinutes(1)), meterRegistry);
+        routingDataSource.setTargetDataSources(Map.of(
+            AppConstants.DataSource.PRIMARY, primary,
+            AppConstants.DataSource.REPLICA, replica));
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+
+        TenantContext.setTenantId(TENANT_ID);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        TenantContext.clear();
+    }
+
+    @Test
+    void testReadOnlyTransactionUsesReplica() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(1.0, routeCount(AppConstants.DataSource.REPLICA));
+    }
+
+    @Test
+    void testWriteTransactionUsesPrimary() throws Exception {
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(1.0, routeCount(AppConstants.DataSource.PRIMARY));
+    }
+
+    @Test
+    void testReadAfterCommittedWriteStaysOnPrimary() throws Exception {
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        TenantContext.setTenantId("other-tenant");
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void testUncommittedWriteDoesNotPinTenant() throws Exception {
+        routingDataSource.getConnection();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    private double routeCount(String pool) {
+        return meterRegistry.get(AppConstants.Metrics.DATASOURCE_ROUTE)
+            .tag(AppConstants.Metrics.TAG_POOL, pool)
+            .counter()
+            .count();
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.productservice.filter;
 
+import com.example.productservice.metrics.TenantTagResolver;
 import com.example.productservice.security.TenantContext;
 import com.example.productservice.security.TenantValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +18,7 @@ import org.mockito.MockitoAnnotations;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +38,7 @@ class TenantFilterTest {
     private TenantValidator tenantValidator;
 
     private TenantFilter tenantFilter;
+    private TenantQuotaLimiter tenantQuotaLimiter;
     private ObjectMapper objectMapper;
     private StringWriter responseWriter;
 
@@ -43,7 +47,14 @@ class TenantFilterTest {
         MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        tenantFilter = new TenantFilter(tenantValidator, objectMapper);
+        TenantQuotaProperties quotaProperties = new TenantQuotaProperties();
+        TenantQuotaProperties.Limits busyLimits = new TenantQuotaProperties.Limits();
+        busyLimits.setRequestsPerSecond(1);
+        busyLimits.setBurst(1);
+        quotaProperties.getTenants().put("busy-tenant", busyLimits);
+        tenantQuotaLimiter = new TenantQuotaLimiter(quotaProperties, new SimpleMeterRegistry(),
+            new TenantTagResolver(10, Duration.ofMinutes(1)));
+        tenantFilter = new TenantFilter(tenantValidator, objectMapper, tenantQuotaLimiter);
         TenantContext.clear();
 
         responseWriter = new StringWriter();
@@ -117,4 +128,41 @@ class TenantFilterTest {
 
         assertNull(TenantContext.getTenantId());
     }
+
+    @Test
+    void testActuatorEndpointsSkipTenantValidation() throws IOException, ServletException {
+        when(request.getRequestURI()).thenReturn("/actuator/prometheus");
+
+        tenantFilter.doFilter(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        verify(tenantValidator, never()).validateTenantId(any());
+    }
+
+    @Test
+    void testDoFilterRejectsTenantOverRateLimit() throws IOException, ServletException {
+        when(request.getHeader("X-Tenant-Id")).thenReturn("busy-tenant");
+        when(request.getRequestURI()).thenReturn("/api/products");
+
+        tenantFilter.doFilter(request, response, filterChain);
+        tenantFilter.doFilter(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        verify(response).setStatus(429);
+        verify(response).setHeader("Retry-After", "1");
+        assertTrue(responseWriter.toString().contains("RATE_LIMITED"));
+    }
+
+    @Test
+    void testDoFilterReleasesConcurrencySlot() throws IOException, ServletException {
+        when(request.getHeader("X-Tenant-Id")).thenReturn("test-tenant");
+        when(request.getRequestURI()).thenReturn("/api/products");
+
+        for (int i = 0; i < 100; i++) {
+            tenantFilter.doFilter(request, response, filterChain);
+        }
+
+        verify(filterChain, times(100)).doFilter(request, response);
+        verify(response, never()).setStatus(anyInt());
+    }
 }
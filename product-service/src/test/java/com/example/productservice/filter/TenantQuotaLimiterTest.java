@@ -0,0 +1,103 @@
+package com.example.productservice.filter;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.metrics.TenantTagResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantQuotaLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private TenantQuotaProperties properties;
+    private TenantQuotaLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TenantQuotaProperties();
+        TenantQuotaProperties.Limits limits = new TenantQuotaProperties.Limits();
+        limits.setRequestsPerSecond(10);
+        limits.setBurst(5);
+        limits.setMaxConcurrent(0);
+        properties.setDefaults(limits);
+        limiter = new TenantQuotaLimiter(properties, new SimpleMeterRegistry(),
+            new TenantTagResolver(10, Duration.ofMinutes(1)), clock::get);
+    }
+
+    @Test
+    void testBurstThenRefillAtConfiguredRate() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("tenant-a").admitted());
+        }
+        TenantQuotaLimiter.Decision rejected = limiter.tryAcquire("tenant-a");
+        assertFalse(rejected.admitted());
+        assertEquals(AppConstants.ErrorCode.RATE_LIMITED, rejected.errorCode());
+        assertEquals(1, rejected.retryAfterSeconds());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(limiter.tryAcquire("tenant-a").admitted());
+        assertFalse(limiter.tryAcquire("tenant-a").admitted());
+    }
+
+    @Test
+    void testTenantsHaveIndependentBuckets() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("tenant-a");
+        }
+        assertFalse(limiter.tryAcquire("tenant-a").admitted());
+        assertTrue(limiter.tryAcquire("tenant-b").admitted());
+    }
+
+    @Test
+    void testConcurrencyLimitUntilReleased() {
+        TenantQuotaProperties.Limits limits = new TenantQuotaProperties.Limits();
+        limits.setRequestsPerSecond(0);
+        limits.setMaxConcurrent(2);
+        properties.getTenants().put("tenant-c", limits);
+
+        assertTrue(limiter.tryAcquire("tenant-c").admitted());
+        assertTrue(limiter.tryAcquire("tenant-c").admitted());
+        TenantQuotaLimiter.Decision rejected = limiter.tryAcquire("tenant-c");
+        assertFalse(rejected.admitted());
+        assertEquals(AppConstants.ErrorCode.CONCURRENCY_LIMITED, rejected.errorCode());
+
+        limiter.release("tenant-c");
+        assertTrue(limiter.tryAcquire("tenant-c").admitted());
+    }
+
+    @Test
+    void testIdleTenantsAreDroppedWithoutUnderflow() {
+        TenantQuotaProperties.Limits limits = new TenantQuotaProperties.Limits();
+        limits.setRequestsPerSecond(0);
+        limits.setMaxConcurrent(1);
+        properties.getTenants().put("tenant-c", limits);
+        properties.setIdleTimeout(Duration.ofMinutes(1));
+        limiter = new TenantQuotaLimiter(properties, new SimpleMeterRegistry(),
+            new TenantTagResolver(10, Duration.ofMinutes(1)), clock::get);
+
+        assertTrue(limiter.tryAcquire("tenant-c").admitted());
+        assertFalse(limiter.tryAcquire("tenant-c").admitted());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertTrue(limiter.tryAcquire("tenant-c").admitted());
+        // The request admitted before the bucket was dropped releases into the new one, which must not underflow
+        limiter.release("tenant-c");
+        limiter.release("tenant-c");
+        assertTrue(limiter.tryAcquire("tenant-c").admitted());
+        assertFalse(limiter.tryAcquire("tenant-c").admitted());
+    }
+
+    @Test
+    void testDisabledAdmitsEverything() {
+        properties.setEnabled(false);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("tenant-a").admitted());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.productservice.history;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryArchiveTest {
+
+    private static final String TENANT_ID = "tenant-a";
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadsProductAcrossBlocksNewestFirst() {
+        HistoryArchive archive = archive(4);
+        List<ProductResponseDTO> rows = new ArrayList<>();
+        long id = 1;
+        for (long productId = 1; productId <= 5; productId++) {
+            for (int i = 0; i < 3; i++) {
+                rows.add(row(id++, productId, i));
+            }
+        }
+
+        archive.append(TENANT_ID, rows);
+
+        List<ProductResponseDTO> history = archive.history(TENANT_ID, 3L);
+        assertEquals(List.of(9L, 8L, 7L), history.stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(2, history.get(0).getStockQuantity());
+        assertTrue(archive.history(TENANT_ID, 6L).isEmpty());
+    }
+
+    @Test
+    void testMergesSegmentsAndDropsDuplicates() {
+        HistoryArchive archive = archive(2);
+
+        archive.append(TENANT_ID, List.of(row(1, 1, 0), row(2, 1, 1)));
+        archive.append(TENANT_ID, List.of(row(2, 1, 1), row(3, 1, 2)));
+
+        assertEquals(List.of(3L, 2L, 1L),
+            archive.history(TENANT_ID, 1L).stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    void testReopensSegmentsFromDisk() throws Exception {
+        archive(2).append(TENANT_ID, List.of(row(1, 1, 0), row(2, 1, 1)));
+        Files.writeString(directory.resolve(TENANT_ID).resolve("unfinished" + HistorySegment.DATA_SUFFIX), "x");
+
+        HistoryArchive reopened = archive(2);
+
+        assertEquals(2, reopened.history(TENANT_ID, 1L).size());
+        assertTrue(reopened.history("tenant-b", 1L).isEmpty());
+        try (Stream<Path> files = Files.list(directory.resolve(TENANT_ID))) {
+            assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    void testSeesSegmentsWrittenByAnotherInstance() {
+        HistoryArchive writer = archive(2);
+        HistoryArchive reader = archive(2);
+        writer.append(TENANT_ID, List.of(row(1, 1, 0), row(2, 1, 1)));
+        assertEquals(2, reader.history(TENANT_ID, 1L).size());
+
+        writer.append(TENANT_ID, List.of(row(3, 1, 2)));
+
+        assertEquals(List.of(3L, 2L, 1L),
+            reader.history(TENANT_ID, 1L).stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    void testMergesSmallSegmentsIntoOne() throws Exception {
+        HistoryArchive writer = new HistoryArchive(directory, 2, 4, true, objectMapper);
+        HistoryArchive reader = archive(2);
+        writer.append(TENANT_ID, List.of(row(1, 1, 0), row(2, 2, 0)));
+        assertEquals(1, reader.history(TENANT_ID, 1L).size());
+
+        writer.append(TENANT_ID, List.of(row(3, 1, 1)));
+        writer.append(TENANT_ID, List.of(row(4, 2, 1), row(3, 1, 1)));
+
+        try (Stream<Path> files = Files.list(directory.resolve(TENANT_ID))) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(HistorySegment.INDEX_SUFFIX)).count());
+        }
+        assertEquals(List.of(3L, 1L),
+            reader.history(TENANT_ID, 1L).stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(List.of(4L, 2L),
+            writer.history(TENANT_ID, 2L).stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    void testContainsAnswersFromTheProductIndex() {
+        HistoryArchive archive = archive(2);
+        archive.append(TENANT_ID, List.of(row(1, 1, 0), row(2, 3, 0)));
+
+        assertTrue(archive.contains(TENANT_ID, 1L));
+        assertFalse(archive.contains(TENANT_ID, 2L));
+        assertTrue(archive.contains(TENANT_ID, 3L));
+        assertFalse(archive.contains("tenant-b", 1L));
+    }
+
+    @Test
+    void testSkipsReadsWhenDisabled() {
+        archive(2).append(TENANT_ID, List.of(row(1, 1, 0)));
+
+        HistoryArchive disabled = new HistoryArchive(directory, 2, 0, false, objectMapper);
+
+        assertTrue(disabled.history(TENANT_ID, 1L).isEmpty());
+        assertFalse(disabled.contains(TENANT_ID, 1L));
+    }
+
+    private HistoryArchive archive(int blockSize) {
+        return new HistoryArchive(directory, blockSize, 0, true, objectMapper);
+    }
+
+    private static ProductResponseDTO row(long id, long productId, int change) {
+        return ProductResponseDTO.builder()
+            .id(id)
+            .originalProductId(productId)
+            .name("Product " + productId)
+            .price(1.0)
+            .stockQuantity(change)
+            .eventType("UPDATED")
+            .eventTime(BASE.plusHours(change))
+            .version(0L)
+            .build();
+    }
+}
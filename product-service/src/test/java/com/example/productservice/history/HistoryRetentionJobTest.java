@@ -0,0 +1,186 @@
+package com.example.productservice.history;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.kafka.ProductProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.JobLock;
+import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.security.TenantContext;
+import com.example.productservice.service.ProductService;
+import com.example.productservice.service.SyncWatermark;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.kafka.enabled=false",
+    "app.history.retention.enabled=true",
+    "app.history.retention.batch-size=2"
+})
+@ActiveProfiles("test")
+class HistoryRetentionJobTest {
+
+    // Archive segments outlive the in-memory database, so each run archives under a tenant of its own
+    private static final String TENANT_ID = "retention-" + Long.toString(System.currentTimeMillis(), 36);
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+    @Autowired
+    private HistoryRetentionJob historyRetentionJob;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ProductProducer productProducer;
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testArchivesAndCompactsOldHistory() {
+        Product product = apple();
+        product.setStockQuantity(0);
+        product.setEventTime(NOW.minusDays(400));
+        product.setTenantId(TENANT_ID);
+        Long id = productRepository.save(product).getId();
+
+        createHistoryEntry(id, 1, NOW.minusDays(380));
+        createHistoryEntry(id, 2, NOW.minusDays(370));
+        LocalDateTime day = NOW.minusDays(40).truncatedTo(ChronoUnit.DAYS);
+        createHistoryEntry(id, 3, day.plusHours(1));
+        createHistoryEntry(id, 4, day.plusHours(5));
+        createHistoryEntry(id, 5, day.plusHours(9));
+        createHistoryEntry(id, 6, NOW.minusDays(35));
+        createHistoryEntry(id, 7, NOW.minusDays(1));
+
+        historyRetentionJob.run(NOW);
+
+        assertEquals(List.of(7, 6, 3), productRepository
+            .findByOriginalProductIdAndTenantIdOrderByEventTimeDesc(id, TENANT_ID).stream()
+            .map(Product::getStockQuantity).toList());
+
+        TenantContext.setTenantId(TENANT_ID);
+        Slice<ProductResponseDTO> first = productService.getProductHistory(id, null, 4);
+        assertEquals(List.of(7, 6, 3, 2), stockQuantities(first));
+        assertTrue(first.hasNext());
+        ProductResponseDTO last = first.getContent().get(3);
+        String cursor = new SyncWatermark(last.getEventTime(), last.getId()).encode();
+        Slice<ProductResponseDTO> second = productService.getProductHistory(id, cursor, 4);
+        assertEquals(List.of(1), stockQuantities(second));
+        assertFalse(second.hasNext());
+
+        assertEquals(1, productService.getProductAsOf(id, NOW.minusDays(390)).getStockQuantity());
+        assertEquals(2, productService.getProductAsOf(id, NOW.minusDays(375)).getStockQuantity());
+        assertEquals(3, productService.getProductAsOf(id, day).getStockQuantity());
+        assertEquals(0, productService.getProductAsOf(id, NOW).getStockQuantity());
+    }
+
+    @Test
+    void testDeltaRowsKeepTheirFieldsWhenTheBaseIsArchived() {
+        Product product = apple();
+        product.setStockQuantity(0);
+        product.setEventTime(NOW.minusDays(500));
+        product.setTenantId(TENANT_ID);
+        Long id = productRepository.save(product).getId();
+        Long baseId = createHistoryEntry(id, 1, NOW.minusDays(400));
+        Product delta = new Product(null, 1.5);
+        delta.setOriginalProductId(id);
+        delta.setHistoryBaseId(baseId);
+        delta.setStockQuantity(2);
+        delta.setEventType("UPDATED");
+        delta.setEventTime(NOW.minusDays(10));
+        delta.setTenantId(TENANT_ID);
+        productRepository.save(delta);
+
+        historyRetentionJob.run(NOW);
+
+        TenantContext.setTenantId(TENANT_ID);
+        List<ProductResponseDTO> history = productService.getProductHistory(id, null, 10).getContent();
+        assertEquals(List.of(2, 1), history.stream().map(ProductResponseDTO::getStockQuantity).toList());
+        assertEquals("Apple", history.get(0).getName());
+        assertEquals("Fresh apple", history.get(0).getDescription());
+    }
+
+    @Test
+    void testKeepsBasesThatDeltasStillReference() {
+        Product product = apple();
+        product.setStockQuantity(0);
+        product.setEventTime(NOW.minusDays(3));
+        product.setTenantId(TENANT_ID);
+        Long id = productRepository.save(product).getId();
+        Long baseId = createHistoryEntry(id, 1, NOW.minusDays(2));
+        Product delta = new Product(null, 1.5);
+        delta.setOriginalProductId(id);
+        delta.setHistoryBaseId(baseId);
+        delta.setStockQuantity(2);
+        delta.setEventType("UPDATED");
+        delta.setEventTime(NOW.minusDays(1));
+        delta.setTenantId(TENANT_ID);
+        productRepository.save(delta);
+
+        assertEquals(0, productRepository.deleteUnreferencedHistory(List.of(baseId)));
+        assertTrue(productRepository.findById(baseId).isPresent());
+    }
+
+    @Test
+    void testRunsOnOneInstanceAtATime() {
+        Product product = apple();
+        product.setStockQuantity(0);
+        product.setEventTime(LocalDateTime.now().minusDays(500));
+        product.setTenantId(TENANT_ID);
+        Long id = productRepository.save(product).getId();
+        createHistoryEntry(id, 1, LocalDateTime.now().minusDays(400));
+        JobLock otherInstance = new JobLock(jdbcTemplate);
+        LocalDateTime started = LocalDateTime.now();
+        assertTrue(otherInstance.tryLock("history-retention", started, Duration.ofHours(1)));
+
+        historyRetentionJob.run();
+        assertEquals(1, productRepository.findByOriginalProductIdAndTenantIdOrderByEventTimeDesc(id, TENANT_ID).size());
+
+        otherInstance.unlock("history-retention", started, Duration.ZERO);
+        historyRetentionJob.run();
+        assertTrue(productRepository.findByOriginalProductIdAndTenantIdOrderByEventTimeDesc(id, TENANT_ID).isEmpty());
+        assertFalse(otherInstance.tryLock("history-retention", LocalDateTime.now(), Duration.ofHours(1)));
+    }
+
+    private Long createHistoryEntry(Long productId, int stockQuantity, LocalDateTime eventTime) {
+        Product history = apple();
+        history.setOriginalProductId(productId);
+        history.setStockQuantity(stockQuantity);
+        history.setEventType("UPDATED");
+        history.setEventTime(eventTime);
+        history.setTenantId(TENANT_ID);
+        return productRepository.save(history).getId();
+    }
+
+    private static Product apple() {
+        Product product = new Product("Apple", 1.5);
+        product.setDescription("Fresh apple");
+        product.setCategory("Fruit");
+        return product;
+    }
+
+    private static List<Integer> stockQuantities(Slice<ProductResponseDTO> slice) {
+        return slice.getContent().stream().map(ProductResponseDTO::getStockQuantity).toList();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.model.Product;
+import com.example.productservice.service.CatalogVersionTracker;
+import com.example.productservice.service.ProductService;
+import com.example.productservice.stream.ProductStreamRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "app.kafka.catalog-version.enabled=true")
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 2, topics = AppConstants.Kafka.TOPIC_PRODUCTS,
+               bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class CatalogVersionListenerTest {
+
+    private static final String TENANT_ID = "catalog-tenant";
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ProductEventCodec productEventCodec;
+
+    @Autowired
+    private CatalogVersionTracker catalogVersionTracker;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductProducer productProducer;
+
+    @MockBean
+    private ProductStreamRegistry productStreamRegistry;
+
+    @Test
+    void testEveryPodReadsAllPartitionsWithoutOwnGroup() throws Exception {
+        MessageListenerContainer container = listenerRegistry.getListenerContainers().stream()
+            .filter(candidate -> AppConstants.Kafka.GROUP_ID_CATALOG_VERSION.equals(candidate.getGroupId()))
+            .findFirst().orElseThrow();
+        assertEquals(Set.of(new TopicPartition(AppConstants.Kafka.TOPIC_PRODUCTS, 0),
+            new TopicPartition(AppConstants.Kafka.TOPIC_PRODUCTS, 1)), Set.copyOf(assigned(container)));
+
+        // Manual assignment is reported before the consumer has sought to the end, so wait until it reads
+        sendToEveryPartition("warm-up-tenant");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (catalogVersionTracker.currentVersion("warm-up-tenant") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            sendToEveryPartition("warm-up-tenant");
+        }
+
+        sendToEveryPartition(TENANT_ID);
+        deadline = System.currentTimeMillis() + 10_000;
+        while (catalogVersionTracker.currentVersion(TENANT_ID) < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(2, catalogVersionTracker.currentVersion(TENANT_ID));
+        verify(productStreamRegistry, atLeast(2)).publish(eq(TENANT_ID), any());
+
+        try (AdminClient admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                broker.getBrokersAsString()))) {
+            Set<String> groups = admin.listConsumerGroups().all().get().stream()
+                .map(ConsumerGroupListing::groupId).collect(Collectors.toSet());
+            assertTrue(groups.stream().noneMatch(group ->
+                group.startsWith(AppConstants.Kafka.GROUP_ID_CATALOG_VERSION + "-")), groups.toString());
+        }
+    }
+
+    private void sendToEveryPartition(String tenantId) throws Exception {
+        Product product = new Product("Apple", 1.0);
+        product.setTenantId(tenantId);
+        product.setEventType(AppConstants.Event.TYPE_CREATED);
+        for (int partition = 0; partition < 2; partition++) {
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(AppConstants.Kafka.TOPIC_PRODUCTS,
+                partition, null, productEventCodec.encode(product));
+            record.headers().add(AppConstants.Kafka.HEADER_SCHEMA,
+                productEventCodec.schemaId().getBytes(StandardCharsets.UTF_8));
+            record.headers().add(AppConstants.Kafka.HEADER_SOURCE,
+                AppConstants.Kafka.SOURCE_PRODUCT_SERVICE.getBytes(StandardCharsets.UTF_8));
+            kafkaTemplate.send(record).get();
+        }
+    }
+
+    private static Collection<TopicPartition> assigned(MessageListenerContainer container)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Collection<TopicPartition> partitions = container.getAssignedPartitions();
+            if (partitions != null && !partitions.isEmpty()) {
+                return partitions;
+            }
+            Thread.sleep(50);
+        }
+        return Set.of();
+    }
+}
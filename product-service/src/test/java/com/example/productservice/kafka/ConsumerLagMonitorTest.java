@@ -0,0 +1,84 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 2, topics = ConsumerLagMonitorTest.TOPIC)
+class ConsumerLagMonitorTest {
+
+    static final String TOPIC = "lag-monitor-test";
+    private static final String GROUP = "lag-monitor-group";
+
+    @Test
+    void testReportsLagPerPartitionAndInTotal(EmbeddedKafkaBroker broker) throws Exception {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        KafkaTemplate<String, byte[]> kafkaTemplate = new KafkaTemplate<>(
+            new DefaultKafkaProducerFactory<>(producerProps));
+        for (int i = 0; i < 5; i++) {
+            kafkaTemplate.send(TOPIC, 0, null, new byte[] {1}).get();
+        }
+        for (int i = 0; i < 3; i++) {
+            kafkaTemplate.send(TOPIC, 1, null, new byte[] {1}).get();
+        }
+        commit(broker, Map.of(new TopicPartition(TOPIC, 0), 2L, new TopicPartition(TOPIC, 1), 3L));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConsumerLagMonitor monitor = new ConsumerLagMonitor(
+            new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString())),
+            meterRegistry, List.of(GROUP), Duration.ofSeconds(10));
+        try {
+            monitor.refresh();
+
+            ConsumerLagMonitor.GroupLag lag = monitor.snapshot().get(GROUP);
+            assertEquals(3, lag.total());
+            assertEquals(Map.of(TOPIC + "-0", 3L, TOPIC + "-1", 0L), lag.partitions());
+            assertEquals(3.0, meterRegistry.get(AppConstants.Metrics.KAFKA_CONSUMER_LAG_TOTAL)
+                .tag(AppConstants.Metrics.TAG_GROUP, GROUP).gauge().value());
+            assertEquals(3.0, meterRegistry.get(AppConstants.Metrics.KAFKA_CONSUMER_LAG)
+                .tag(AppConstants.Metrics.TAG_PARTITION, "0").gauge().value());
+
+            commit(broker, Map.of(new TopicPartition(TOPIC, 0), 5L));
+            monitor.refresh();
+
+            assertEquals(0, monitor.snapshot().get(GROUP).total());
+            assertTrue(monitor.snapshot().get(GROUP).recordsPerSecond() > 0);
+        } finally {
+            monitor.close();
+        }
+    }
+
+    private static void commit(EmbeddedKafkaBroker broker, Map<TopicPartition, Long> offsets) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(GROUP, "false", broker);
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ByteArrayDeserializer()).createConsumer()) {
+            consumer.assign(offsets.keySet());
+            offsets.forEach((partition, offset) -> consumer.commitSync(
+                Map.of(partition, new OffsetAndMetadata(offset))));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 2, topics = {DeadLetterReplayerTest.TOPIC, DeadLetterReplayerTest.DLT})
+class DeadLetterReplayerTest {
+
+    static final String TOPIC = "dlt-replay-test";
+    static final String DLT = TOPIC + AppConstants.Kafka.DLT_SUFFIX;
+
+    @Test
+    void testReplayMovesNewDeadLettersBackToTheOriginalTopic(EmbeddedKafkaBroker broker) throws Exception {
+        KafkaTemplate<String, byte[]> kafkaTemplate = kafkaTemplate(broker);
+        DeadLetterReplayer replayer = new DeadLetterReplayer(consumerFactory(broker), kafkaTemplate,
+            Duration.ofMillis(200));
+        for (int i = 0; i < 3; i++) {
+            kafkaTemplate.send(deadLetter(String.valueOf(i))).get();
+        }
+
+        assertEquals(3, replayer.replay(DLT));
+        assertEquals(0, replayer.replay(DLT));
+
+        kafkaTemplate.send(deadLetter("3")).get();
+        assertEquals(1, replayer.replay(DLT));
+
+        List<ConsumerRecord<String, byte[]>> replayed = new ArrayList<>();
+        try (Consumer<String, byte[]> consumer = consumerFactory(broker).createConsumer("dlt-replay-check", null)) {
+            consumer.subscribe(List.of(TOPIC));
+            while (replayed.size() < 4) {
+                ConsumerRecords<String, byte[]> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10));
+                assertFalse(records.isEmpty());
+                records.forEach(replayed::add);
+            }
+        }
+        assertEquals(4, replayed.size());
+        for (ConsumerRecord<String, byte[]> record : replayed) {
+            assertEquals("event-" + record.key(), new String(record.value(), StandardCharsets.UTF_8));
+            assertNotNull(record.headers().lastHeader(AppConstants.Kafka.HEADER_EVENT_ID));
+            assertNull(record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC));
+            assertNull(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+            assertNull(record.headers().lastHeader(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS));
+        }
+    }
+
+    @Test
+    void testReplayRejectsTopicsThatAreNotDeadLetterTopics(EmbeddedKafkaBroker broker) {
+        DeadLetterReplayer replayer = new DeadLetterReplayer(consumerFactory(broker), kafkaTemplate(broker),
+            Duration.ofMillis(200));
+
+        assertThrows(IllegalArgumentException.class, () -> replayer.replay(TOPIC));
+    }
+
+    /**
+     * Shaped like a record that went through one retry topic before it was dead-lettered.
+     */
+    private static ProducerRecord<String, byte[]> deadLetter(String key) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(DLT, key,
+            ("event-" + key).getBytes(StandardCharsets.UTF_8));
+        record.headers()
+            .add(AppConstants.Kafka.HEADER_EVENT_ID, key.getBytes(StandardCharsets.UTF_8))
+            .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, TOPIC.getBytes(StandardCharsets.UTF_8))
+            .add(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS, new byte[] {0, 0, 0, 2})
+            .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, (TOPIC + "-retry-0").getBytes(StandardCharsets.UTF_8))
+            .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, "boom".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static KafkaTemplate<String, byte[]> kafkaTemplate(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    private static DefaultKafkaConsumerFactory<String, byte[]> consumerFactory(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dlt-replay-test", "false", broker);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+}
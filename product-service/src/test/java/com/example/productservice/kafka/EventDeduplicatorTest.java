@@ -0,0 +1,86 @@
+package com.example.productservice.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDeduplicatorTest {
+
+    private static final String TOPIC = "products-topic";
+
+    @Test
+    void testRedeliveredOffsetIsDuplicate() {
+        EventDeduplicator deduplicator = new EventDeduplicator(16, new SimpleMeterRegistry());
+        deduplicator.markApplied(TOPIC, 0, 41, null);
+
+        assertTrue(deduplicator.isDuplicate(TOPIC, 0, 40, null));
+        assertTrue(deduplicator.isDuplicate(TOPIC, 0, 41, null));
+        assertFalse(deduplicator.isDuplicate(TOPIC, 0, 42, null));
+        assertFalse(deduplicator.isDuplicate(TOPIC, 1, 41, null));
+        assertFalse(deduplicator.isDuplicate("products", 0, 41, null));
+    }
+
+    @Test
+    void testAssignedPartitionStartsWithoutWatermark() {
+        EventDeduplicator deduplicator = new EventDeduplicator(16, new SimpleMeterRegistry());
+        byte[] eventId = eventId();
+        deduplicator.markApplied(TOPIC, 0, 41, eventId);
+        deduplicator.markApplied(TOPIC, 1, 41, null);
+
+        deduplicator.forgetOffsets(List.of(new TopicPartition(TOPIC, 0)));
+
+        assertFalse(deduplicator.isDuplicate(TOPIC, 0, 40, eventId()));
+        assertTrue(deduplicator.isDuplicate(TOPIC, 0, 41, eventId));
+        assertTrue(deduplicator.isDuplicate(TOPIC, 1, 40, null));
+    }
+
+    @Test
+    void testSameEventIdAtNewOffsetIsDuplicate() {
+        EventDeduplicator deduplicator = new EventDeduplicator(16, new SimpleMeterRegistry());
+        byte[] eventId = eventId();
+        deduplicator.markApplied(TOPIC, 0, 1, eventId);
+
+        assertTrue(deduplicator.isDuplicate(TOPIC, 3, 100, eventId));
+        assertFalse(deduplicator.isDuplicate(TOPIC, 3, 100, eventId()));
+    }
+
+    @Test
+    void testOldestEventIdsAreEvicted() {
+        EventDeduplicator deduplicator = new EventDeduplicator(4, new SimpleMeterRegistry());
+        byte[][] eventIds = new byte[6][];
+        for (int i = 0; i < eventIds.length; i++) {
+            eventIds[i] = eventId();
+            deduplicator.markApplied(TOPIC, 0, i, eventIds[i]);
+        }
+
+        assertFalse(deduplicator.isDuplicate(TOPIC, 1, 0, eventIds[0]));
+        assertFalse(deduplicator.isDuplicate(TOPIC, 1, 0, eventIds[1]));
+        for (int i = 2; i < eventIds.length; i++) {
+            assertTrue(deduplicator.isDuplicate(TOPIC, 1, 0, eventIds[i]));
+        }
+    }
+
+    @Test
+    void testRecentEventIdsStayConsistentUnderChurn() {
+        RecentEventIds ids = new RecentEventIds(100);
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(ids.add(i * 31));
+            assertFalse(ids.add(i * 31));
+            assertEquals(Math.min(i, 100), ids.size());
+            if (i > 100) {
+                assertFalse(ids.contains((i - 100) * 31));
+                assertTrue(ids.contains((i - 99) * 31));
+            }
+        }
+    }
+
+    private static byte[] eventId() {
+        return UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductEventCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testSmileRoundTrip() throws Exception {
+        ProductEventCodec codec = new ProductEventCodec(objectMapper, AppConstants.Kafka.ENCODING_SMILE);
+        Product product = sampleProduct();
+
+        byte[] payload = codec.encode(product);
+        Product decoded = codec.decode(payload, codec.schemaId());
+
+        assertEquals(AppConstants.Kafka.SCHEMA_SMILE_V1, codec.schemaId());
+        assertEquals(product.getId(), decoded.getId());
+        assertEquals(product.getName(), decoded.getName());
+        assertEquals(product.getPrice(), decoded.getPrice());
+        assertEquals(product.getEventTime(), decoded.getEventTime());
+        assertEquals(product.getTenantId(), decoded.getTenantId());
+    }
+
+    @Test
+    void testSmileIsSmallerThanJson() throws Exception {
+        ProductEventCodec smile = new ProductEventCodec(objectMapper, AppConstants.Kafka.ENCODING_SMILE);
+        ProductEventCodec json = new ProductEventCodec(objectMapper, AppConstants.Kafka.ENCODING_JSON);
+        Product product = sampleProduct();
+
+        assertTrue(smile.encode(product).length < json.encode(product).length);
+    }
+
+    @Test
+    void testDecodesLegacyJsonWithoutSchemaHeader() throws Exception {
+        ProductEventCodec codec = new ProductEventCodec(objectMapper, AppConstants.Kafka.ENCODING_SMILE);
+        String legacy = "{\"id\":1,\"name\":\"Apple\",\"description\":\"Red Apple\",\"price\":1.5,\"eventType\":\"CREATED\"}";
+
+        Product decoded = codec.decode(legacy.getBytes(StandardCharsets.UTF_8), null);
+
+        assertEquals(1L, decoded.getId());
+        assertEquals("Apple", decoded.getName());
+        assertEquals("CREATED", decoded.getEventType());
+    }
+
+    @Test
+    void testDecodesSmileWithoutSchemaHeader() throws Exception {
+        ProductEventCodec codec = new ProductEventCodec(objectMapper, AppConstants.Kafka.ENCODING_SMILE);
+
+        Product decoded = codec.decode(codec.encode(sampleProduct()), null);
+
+        assertEquals("Laptop", decoded.getName());
+    }
+
+    @Test
+    void testRejectsUnknownSchema() {
+        ProductEventCodec codec = new ProductEventCodec(objectMapper, AppConstants.Kafka.ENCODING_JSON);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[]{'{', '}'}, "product.v9+avro"));
+    }
+
+    private Product sampleProduct() {
+        Product product = new Product();
+        product.setId(42L);
+        product.setName("Laptop");
+        product.setDescription("Gaming Laptop");
+        product.setCategory("Electronics");
+        product.setPrice(999.99);
+        product.setStockQuantity(10);
+        product.setEventType(AppConstants.Event.TYPE_CREATED);
+        product.setEventTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        product.setTenantId("tenant-a");
+        return product;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.productservice.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class TopicPartitionLookupTest {
+
+    private static final String TOPIC = "products-topic";
+
+    private Consumer<String, byte[]> consumer;
+    private TopicPartitionLookup lookup;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ConsumerFactory<String, byte[]> consumerFactory = mock(ConsumerFactory.class);
+        consumer = mock(Consumer.class);
+        when(consumerFactory.createConsumer(isNull(), eq("partition-lookup"))).thenReturn(consumer);
+        lookup = new TopicPartitionLookup(consumerFactory, Duration.ofMillis(10), 3, Duration.ZERO);
+    }
+
+    @Test
+    void testRetriesUntilThePartitionsAreKnown() {
+        when(consumer.partitionsFor(eq(TOPIC), any(Duration.class)))
+            .thenThrow(new TimeoutException("brokers not reachable"))
+            .thenReturn(List.of())
+            .thenReturn(List.of(new PartitionInfo(TOPIC, 0, null, null, null),
+                new PartitionInfo(TOPIC, 1, null, null, null)));
+
+        assertArrayEquals(new String[]{"0", "1"}, lookup.partitions(TOPIC));
+        verify(consumer, times(3)).partitionsFor(eq(TOPIC), any(Duration.class));
+    }
+
+    @Test
+    void testFailsWhenThePartitionsStayUnknown() {
+        when(consumer.partitionsFor(eq(TOPIC), any(Duration.class)))
+            .thenThrow(new TimeoutException("brokers not reachable"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> lookup.partitions(TOPIC));
+        assertTrue(e.getMessage().contains("brokers not reachable"));
+        verify(consumer, times(3)).partitionsFor(eq(TOPIC), any(Duration.class));
+    }
+}
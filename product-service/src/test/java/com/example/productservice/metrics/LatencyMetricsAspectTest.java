@@ -0,0 +1,41 @@
+package com.example.productservice.metrics;
+
+import com.example.productservice.constant.AppConstants;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyMetricsAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TenantTagResolver resolver = new TenantTagResolver(1, Duration.ofHours(1));
+
+    @Test
+    void testTimersOfTenantsThatDropOutAreRemoved() {
+        new LatencyMetricsAspect(meterRegistry, resolver);
+        timer("tenant-a");
+        timer(AppConstants.Metrics.TENANT_OTHER);
+        timer(AppConstants.Metrics.TENANT_NONE);
+
+        for (int i = 0; i < 10; i++) {
+            resolver.resolve("tenant-b");
+        }
+        resolver.refreshRanking();
+
+        assertNull(meterRegistry.find(AppConstants.Metrics.API_LATENCY)
+            .tag(AppConstants.Metrics.TAG_TENANT, "tenant-a").timer());
+        assertEquals(2, meterRegistry.find(AppConstants.Metrics.API_LATENCY).timers().size());
+    }
+
+    private void timer(String tenant) {
+        Timer.builder(AppConstants.Metrics.API_LATENCY)
+            .tag(AppConstants.Metrics.TAG_ENDPOINT, "getProductById")
+            .tag(AppConstants.Metrics.TAG_TENANT, tenant)
+            .register(meterRegistry)
+            .record(Duration.ofMillis(5));
+    }
+}
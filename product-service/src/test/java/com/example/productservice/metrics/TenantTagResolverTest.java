@@ -0,0 +1,73 @@
+package com.example.productservice.metrics;
+
+import com.example.productservice.constant.AppConstants;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantTagResolverTest {
+
+    private final TenantTagResolver resolver = new TenantTagResolver(2, Duration.ofHours(1));
+
+    @Test
+    void testMissingTenantIsTaggedNone() {
+        assertEquals(AppConstants.Metrics.TENANT_NONE, resolver.resolve(null));
+    }
+
+    @Test
+    void testTenantsAreAggregatedUntilRankingRefreshes() {
+        resolver.resolve("tenant-a");
+
+        assertEquals(AppConstants.Metrics.TENANT_OTHER, resolver.resolve("tenant-a"));
+    }
+
+    @Test
+    void testOnlyTopTenantsKeepTheirOwnTag() {
+        sendRequests("big-tenant", 50);
+        sendRequests("mid-tenant", 20);
+        sendRequests("small-tenant", 1);
+
+        resolver.refreshRanking();
+
+        assertEquals("big-tenant", resolver.resolve("big-tenant"));
+        assertEquals("mid-tenant", resolver.resolve("mid-tenant"));
+        assertEquals(AppConstants.Metrics.TENANT_OTHER, resolver.resolve("small-tenant"));
+    }
+
+    @Test
+    void testRankingFollowsRecentTraffic() {
+        sendRequests("old-tenant", 10);
+        resolver.refreshRanking();
+
+        sendRequests("new-tenant-1", 40);
+        sendRequests("new-tenant-2", 40);
+        resolver.refreshRanking();
+
+        assertEquals(AppConstants.Metrics.TENANT_OTHER, resolver.resolve("old-tenant"));
+        assertEquals("new-tenant-1", resolver.resolve("new-tenant-1"));
+    }
+
+    @Test
+    void testListenersSeeRankingChangesOnly() {
+        List<Set<String>> changes = new ArrayList<>();
+        resolver.onRankingChange(changes::add);
+
+        sendRequests("tenant-a", 10);
+        resolver.refreshRanking();
+        sendRequests("tenant-a", 10);
+        resolver.refreshRanking();
+
+        assertEquals(List.of(Set.of("tenant-a")), changes);
+    }
+
+    private void sendRequests(String tenantId, int count) {
+        for (int i = 0; i < count; i++) {
+            resolver.resolve(tenantId);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.productservice.metrics;
+
+import com.example.productservice.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.kafka.ConsumerLagMonitor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WorkPressureMeterTest {
+
+    private static final String TOPIC = "products-topic";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ConsumerLagMonitor lagMonitor = mock(ConsumerLagMonitor.class);
+    private final KafkaListenerEndpointRegistry listenerRegistry = mock(KafkaListenerEndpointRegistry.class);
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        Gauge.builder(AppConstants.Metrics.HIKARI_PENDING, pending, AtomicInteger::get)
+            .tag("pool", "primary").register(meterRegistry);
+        Gauge.builder(AppConstants.Metrics.HIKARI_MAX, () -> 10).tag("pool", "primary").register(meterRegistry);
+        limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 1.5, Duration.ofSeconds(60), meterRegistry);
+    }
+
+    @Test
+    void testPressureIsHighestComponent() {
+        List<TopicPartition> owned = List.of(new TopicPartition(TOPIC, 0), new TopicPartition(TOPIC, 1));
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.getGroupId()).thenReturn(AppConstants.Kafka.GROUP_ID_COMBINED);
+        when(container.getAssignedPartitions()).thenReturn(owned);
+        when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        when(lagMonitor.lagOf(AppConstants.Kafka.GROUP_ID_COMBINED, owned)).thenReturn(500L);
+        WorkPressureMeter meter = meter(provider(lagMonitor));
+
+        pending.set(2);
+        for (int i = 0; i < 7; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        assertEquals(0.5, component(AppConstants.Metrics.SOURCE_KAFKA_LAG), 1e-9);
+        assertEquals(0.4, component(AppConstants.Metrics.SOURCE_DB_POOL), 1e-9);
+        assertEquals(0.5, component(AppConstants.Metrics.SOURCE_REQUESTS), 1e-9);
+        assertEquals(0.5, meter.pressure(), 1e-9);
+
+        pending.set(5);
+        assertEquals(1.0, meterRegistry.get(AppConstants.Metrics.WORK_PRESSURE).gauge().value(), 1e-9);
+
+        when(lagMonitor.lagOf(AppConstants.Kafka.GROUP_ID_COMBINED, owned)).thenReturn(2500L);
+        assertEquals(2.5, meter.pressure(), 1e-9);
+    }
+
+    @Test
+    void testLagCountsOnlyWhenKafkaIsAvailable() {
+        WorkPressureMeter meter = meter(provider(null));
+
+        assertEquals(0, meter.lagPressure());
+        assertEquals(0, meter.pressure());
+    }
+
+    private WorkPressureMeter meter(ObjectProvider<ConsumerLagMonitor> lagMonitorProvider) {
+        return new WorkPressureMeter(meterRegistry, limiter, lagMonitorProvider, provider(listenerRegistry),
+            1000, 0.5, 0.7);
+    }
+
+    private double component(String source) {
+        return meterRegistry.get(AppConstants.Metrics.WORK_PRESSURE_COMPONENT)
+            .tag(AppConstants.Metrics.TAG_SOURCE, source).gauge().value();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.productservice.replay;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.kafka.ProductEventCodec;
+import com.example.productservice.kafka.ProductProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 3, topics = {ReplayEngineTest.TOPIC, ReplayEngineTest.UNKEYED_TOPIC},
+               bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class ReplayEngineTest {
+
+    static final String TOPIC = "products-replay-test";
+    static final String UNKEYED_TOPIC = "products-replay-unkeyed-test";
+    private static final String TENANT_ID = "replay-tenant";
+    private static final int PRODUCTS = 30;
+
+    @Autowired
+    private ReplayEngine replayEngine;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ProductEventCodec productEventCodec;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ProductProducer productProducer;
+
+    @Test
+    void testReplayRebuildsCurrentProducts() throws Exception {
+        productRepository.deleteAll();
+        Product stale = product(null, "Stale", 1);
+        stale.setEventTime(LocalDateTime.now());
+        productRepository.save(stale);
+        jdbcTemplate.update("INSERT INTO product (id, name, description, category, price, stock_quantity, "
+            + "event_type, event_time, tenant_id, version) VALUES (1001, 'Old', 'Old', 'Old', 1.0, 1, 'CREATED', "
+            + "CURRENT_TIMESTAMP, ?, 3)", TENANT_ID);
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            send(product(1000L + i, "P" + i, 10), AppConstants.Event.TYPE_CREATED);
+        }
+        for (int i = 0; i < PRODUCTS; i += 2) {
+            send(product(1000L + i, "P" + i, 20), AppConstants.Event.TYPE_UPDATED);
+        }
+        Product deleted = product(9999L, "P3", 10);
+        deleted.setOriginalProductId(1003L);
+        send(deleted, AppConstants.Event.TYPE_DELETED);
+        kafkaTemplate.flush();
+
+        ReplayReport report = replayEngine.replay(TOPIC, null);
+
+        assertEquals(3, report.partitions());
+        assertEquals(PRODUCTS + PRODUCTS / 2 + 1, report.events());
+        assertEquals(0, report.skipped());
+
+        ProductStagingTable.PromoteResult result = replayEngine.promote(true);
+
+        assertEquals(1, result.updated());
+        assertEquals(PRODUCTS - 2, result.inserted());
+        assertEquals(1, result.deleted());
+        Map<Long, Product> products = productRepository.findCurrentProductsByTenant(TENANT_ID).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        assertEquals(PRODUCTS - 1, products.size());
+        assertFalse(products.containsKey(1003L));
+        assertEquals("P1", products.get(1001L).getName());
+        assertEquals(4L, products.get(1001L).getVersion());
+        assertEquals(20, products.get(1002L).getStockQuantity());
+        assertEquals(10, products.get(1005L).getStockQuantity());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_staging", Integer.class));
+
+        Product created = productRepository.save(product(null, "New", 1));
+        assertTrue(created.getId() >= 1000L + PRODUCTS);
+        verify(productProducer, times(PRODUCTS - 1)).sendMessage(argThat(event ->
+            AppConstants.Event.TYPE_UPDATED.equals(event.getEventType())));
+        verify(productProducer).sendMessage(argThat(event ->
+            AppConstants.Event.TYPE_DELETED.equals(event.getEventType()) && "Stale".equals(event.getName())));
+    }
+
+    @Test
+    void testReplayKeepsNewestVersionAndLiveWrites() throws Exception {
+        jdbcTemplate.update("INSERT INTO product (id, name, description, category, price, stock_quantity, "
+            + "event_type, event_time, tenant_id, version) VALUES (2002, 'Live', 'Live', 'Live', 1.0, 1, 'CREATED', "
+            + "CURRENT_TIMESTAMP, ?, 5)", TENANT_ID);
+        jdbcTemplate.update("INSERT INTO product (name, description, category, price, stock_quantity, "
+            + "original_product_id, event_type, event_time, tenant_id) VALUES ('Gone', 'Gone', 'Gone', 1.0, 1, 2003, "
+            + "'DELETED', CURRENT_TIMESTAMP, ?)", TENANT_ID);
+
+        sendUnkeyed(0, versioned(product(2001L, "Newer", 1), 2), AppConstants.Event.TYPE_UPDATED);
+        sendUnkeyed(1, versioned(product(2001L, "Older", 1), 1), AppConstants.Event.TYPE_UPDATED);
+        sendUnkeyed(2, versioned(product(2002L, "Replayed", 1), 3), AppConstants.Event.TYPE_UPDATED);
+        sendUnkeyed(2, product(2003L, "Resurrected", 1), AppConstants.Event.TYPE_CREATED);
+        kafkaTemplate.flush();
+
+        replayEngine.replay(UNKEYED_TOPIC, null);
+        ProductStagingTable.PromoteResult result = replayEngine.promote(false);
+
+        assertEquals(0, result.updated());
+        assertEquals(1, result.inserted());
+        assertEquals("Newer", productRepository.findById(2001L).orElseThrow().getName());
+        assertEquals("Live", productRepository.findById(2002L).orElseThrow().getName());
+        assertTrue(productRepository.findById(2003L).isEmpty());
+    }
+
+    @Test
+    void testRefusesReplaceAllOnTopicThatExpiresRecords() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> replayEngine.requireCompleteTopic(TOPIC));
+        assertTrue(e.getMessage().contains("retention.ms=604800000"));
+    }
+
+    private void sendUnkeyed(int partition, Product event, String eventType) throws Exception {
+        event.setEventType(eventType);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(UNKEYED_TOPIC, partition, null,
+            productEventCodec.encode(event));
+        record.headers().add(AppConstants.Kafka.HEADER_SCHEMA,
+            productEventCodec.schemaId().getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(record);
+    }
+
+    private static Product versioned(Product product, long version) {
+        product.setVersion(version);
+        return product;
+    }
+
+    private void send(Product event, String eventType) throws Exception {
+        event.setEventType(eventType);
+        Long key = event.getOriginalProductId() != null ? event.getOriginalProductId() : event.getId();
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC, key.toString(),
+            productEventCodec.encode(event));
+        record.headers().add(AppConstants.Kafka.HEADER_SCHEMA,
+            productEventCodec.schemaId().getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(record);
+    }
+
+    private static Product product(Long id, String name, int stockQuantity) {
+        Product product = new Product(name, 1.0);
+        product.setId(id);
+        product.setDescription(name + " description");
+        product.setCategory("Replay");
+        product.setStockQuantity(stockQuantity);
+        product.setTenantId(TENANT_ID);
+        return product;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.dto.ProductResponseDTO;
+import com.example.productservice.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.cache.l2.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCacheTest {
+
+    private static final String TENANT_ID = "test-tenant";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testProductLoadedFromSecondLevelCache() {
+        Product product = productRepository.save(newProduct("Apple"));
+
+        productRepository.findById(product.getId());
+        productRepository.findById(product.getId());
+
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    void testCurrentProductsQueryCachedAndInvalidatedOnSave() {
+        productRepository.save(newProduct("Apple"));
+
+        productRepository.findCurrentProductResponsesByTenant(TENANT_ID);
+        List<ProductResponseDTO> cached = productRepository.findCurrentProductResponsesByTenant(TENANT_ID);
+        assertEquals(1, cached.size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        productRepository.save(newProduct("Banana"));
+
+        assertEquals(2, productRepository.findCurrentProductResponsesByTenant(TENANT_ID).size());
+    }
+
+    @Test
+    void testCurrentProductsQueryInvalidatedOnDelete() {
+        Product product = productRepository.save(newProduct("Apple"));
+        assertEquals(1, productRepository.findCurrentProductResponsesByTenant(TENANT_ID).size());
+
+        productRepository.deleteById(product.getId());
+
+        assertTrue(productRepository.findCurrentProductResponsesByTenant(TENANT_ID).isEmpty());
+    }
+
+    @Test
+    void testStockUpdateEvictsOnlyThatProduct() {
+        Product apple = productRepository.save(newProduct("Apple"));
+        Product banana = productRepository.save(newProduct("Banana"));
+        productRepository.findById(apple.getId());
+        productRepository.findById(banana.getId());
+
+        productRepository.addStock(apple.getId(), TENANT_ID, 5);
+        productRepository.evictProduct(apple.getId());
+        statistics.clear();
+
+        productRepository.findById(banana.getId());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(15, productRepository.findById(apple.getId()).orElseThrow().getStockQuantity());
+    }
+
+    private Product newProduct(String name) {
+        Product product = new Product(name, 1.0);
+        product.setDescription(name + " description");
+        product.setCategory("Fruit");
+        product.setStockQuantity(10);
+        product.setTenantId(TENANT_ID);
+        return product;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductFilterDTO;
+import com.example.productservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the count estimator's WHERE clause as a plain COUNT next to the search specification, so the two
+ * renderings of {@link ProductSpecification#conditions} cannot drift apart.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductSearchPredicateTest {
+
+    private static final String TENANT_ID = "test-tenant";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        productRepository.save(newProduct("Red Apple", "Fruit", 1.5, 10, TENANT_ID));
+        productRepository.save(newProduct("Banana", "Fruit", 0.5, 200, TENANT_ID));
+        productRepository.save(newProduct("Apple Juice", "Drinks", 3.0, 50, TENANT_ID));
+        productRepository.save(newProduct("Apple Pie", "Bakery", 6.0, 0, "other-tenant"));
+
+        Product echo = newProduct("Green Apple", "Fruit", 1.0, 10, TENANT_ID);
+        echo.setEventType(AppConstants.Event.TYPE_UPDATED);
+        productRepository.save(echo);
+
+        Product history = newProduct("Apple", "Fruit", 1.0, 10, TENANT_ID);
+        history.setOriginalProductId(1L);
+        history.setEventType(AppConstants.Event.TYPE_CREATED);
+        productRepository.save(history);
+    }
+
+    @Test
+    void testEstimatorWhereClauseMatchesSpecification() {
+        List<ProductFilterDTO> filters = List.of(
+            new ProductFilterDTO(),
+            filter(f -> f.setSearch("APPLE")),
+            filter(f -> f.setSearch("description")),
+            filter(f -> f.setCategory("Fruit")),
+            filter(f -> {
+                f.setMinPrice(1.0);
+                f.setMaxPrice(3.0);
+            }),
+            filter(f -> {
+                f.setMinStock(10);
+                f.setMaxStock(50);
+            }),
+            filter(f -> {
+                f.setSearch("apple");
+                f.setCategory("Drinks");
+                f.setMinPrice(2.0);
+                f.setMaxStock(100);
+            }));
+
+        for (ProductFilterDTO filter : filters) {
+            long expected = productRepository.count(ProductSpecification.buildSearchSpecification(filter, TENANT_ID));
+            List<Object> args = new ArrayList<>();
+            String where = ProductCountEstimator.buildWhereClause(filter, TENANT_ID, args);
+            Long actual = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product p WHERE " + where,
+                Long.class, args.toArray());
+            assertEquals(expected, actual, where);
+        }
+    }
+
+    @Test
+    void testOnlyCurrentProductsOfTenantMatch() {
+        assertEquals(3, productRepository.count(
+            ProductSpecification.buildSearchSpecification(new ProductFilterDTO(), TENANT_ID)));
+    }
+
+    private static ProductFilterDTO filter(Consumer<ProductFilterDTO> settings) {
+        ProductFilterDTO filter = new ProductFilterDTO();
+        settings.accept(filter);
+        return filter;
+    }
+
+    private Product newProduct(String name, String category, double price, int stock, String tenantId) {
+        Product product = new Product(name, price);
+        product.setDescription(name + " description");
+        product.setCategory(category);
+        product.setStockQuantity(stock);
+        product.setTenantId(tenantId);
+        return product;
+    }
+}
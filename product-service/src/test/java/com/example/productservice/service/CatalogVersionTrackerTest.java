@@ -0,0 +1,43 @@
+package com.example.productservice.service;
+
+import com.example.productservice.dto.ProductChangeDTO;
+import com.example.productservice.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogVersionTrackerTest {
+
+    private final CatalogVersionTracker tracker = new CatalogVersionTracker();
+
+    @Test
+    void testVersionStableUntilTenantChanges() {
+        assertEquals(0, tracker.currentVersion("tenant-a"));
+
+        tracker.onProductChanged(new ProductChangedEvent("tenant-a", new ProductChangeDTO()));
+
+        assertEquals(1, tracker.currentVersion("tenant-a"));
+    }
+
+    @Test
+    void testVersionsAreIsolatedPerTenant() {
+        tracker.bump("tenant-a");
+        tracker.bump(null);
+
+        assertEquals(1, tracker.currentVersion("tenant-a"));
+        assertEquals(0, tracker.currentVersion("tenant-b"));
+    }
+
+    @Test
+    void testEtagChangesWithTenantVersion() {
+        String etag = tracker.etag("tenant-a");
+
+        assertEquals(etag, tracker.etag("tenant-a"));
+        assertNotEquals(etag, tracker.etag("tenant-b"));
+
+        tracker.bump("tenant-a");
+
+        assertNotEquals(etag, tracker.etag("tenant-a"));
+        assertNotEquals(etag, new CatalogVersionTracker().etag("tenant-a"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.productservice.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockLedgerTest {
+
+    @Test
+    void testTryTakeNeverExceedsAllowance() throws Exception {
+        StockLedger ledger = new StockLedger(8);
+        ledger.addLease(1_000);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(16);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int t = 0; t < 16; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (ledger.tryTake(1)) {
+                        taken.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        pool.shutdown();
+
+        assertEquals(1_000, taken.get());
+        StockLedger.Lease lease = ledger.drain();
+        assertEquals(1_000, lease.leased());
+        assertEquals(0, lease.unspent());
+    }
+
+    @Test
+    void testDrainSplitsLeaseIntoSpentAndUnspent() {
+        StockLedger ledger = new StockLedger(4);
+        ledger.addLease(20);
+        assertTrue(ledger.tryTake(5));
+
+        StockLedger.Lease lease = ledger.drain();
+        assertEquals(20, lease.leased());
+        assertEquals(15, lease.unspent());
+        assertEquals(5, lease.spent());
+        assertTrue(ledger.drain().isEmpty());
+        assertFalse(ledger.tryTake(1));
+    }
+
+    @Test
+    void testTakenUnitsKeepLedgerBusyUntilDrained() {
+        StockLedger ledger = new StockLedger(2);
+        ledger.take(3);
+        ledger.take(2);
+        assertFalse(ledger.isIdle());
+
+        assertEquals(new StockLedger.Lease(0, 0, 0, 5), ledger.drain());
+        assertTrue(ledger.isIdle());
+        assertTrue(ledger.drain().isEmpty());
+    }
+
+    @Test
+    void testRestoredLeaseIsSpendableAndKeepsLedgerBusy() {
+        StockLedger ledger = new StockLedger(2);
+        assertTrue(ledger.isIdle());
+        ledger.addLease(10);
+        assertTrue(ledger.tryTake(4));
+
+        ledger.restore(ledger.drain());
+        assertFalse(ledger.isIdle());
+        assertTrue(ledger.tryTake(6));
+        assertEquals(new StockLedger.Lease(10, 0, 0, 0), ledger.drain());
+        assertTrue(ledger.isIdle());
+    }
+
+    @Test
+    void testIncrementsAccumulateUntilDrained() {
+        StockLedger ledger = new StockLedger(4);
+        ledger.add(3);
+        ledger.add(7);
+        assertFalse(ledger.tryTake(1));
+
+        StockLedger.Lease lease = ledger.drain();
+        assertEquals(10, lease.added());
+        assertFalse(lease.isEmpty());
+        ledger.restore(lease);
+        assertEquals(new StockLedger.Lease(0, 0, 10, 0), ledger.drain());
+        assertTrue(ledger.drain().isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.productservice.stream;
+
+import com.example.productservice.constant.AppConstants;
+import com.example.productservice.dto.ProductChangeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductStreamSubscriberTest {
+
+    @Test
+    void testOverflowDropsBacklogAndSendsResync() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        ProductStreamSubscriber subscriber = new ProductStreamSubscriber(emitter, 2, 10_000);
+
+        assertTrue(subscriber.offer(change(1L)));
+        assertTrue(subscriber.offer(change(2L)));
+        assertFalse(subscriber.offer(change(3L)));
+
+        Thread sender = Thread.ofVirtual().start(subscriber);
+        awaitEvents(emitter, 2);
+        assertTrue(subscriber.offer(change(4L)));
+        awaitEvents(emitter, 3);
+        subscriber.close();
+        sender.join(1000);
+
+        List<String> events = emitter.events;
+        assertTrue(events.get(0).contains(":" + AppConstants.Stream.COMMENT_CONNECTED));
+        assertTrue(events.get(1).contains("event:" + AppConstants.Stream.EVENT_RESYNC));
+        assertTrue(events.get(2).contains("productId=4"));
+        assertTrue(events.stream().noneMatch(event -> event.contains("productId=1,")));
+    }
+
+    @Test
+    void testEventsFanOutOnlyToSubscribersOfTheTenant() {
+        ProductStreamRegistry registry = new ProductStreamRegistry(16, Duration.ofSeconds(15), Duration.ofMinutes(1),
+            true, new SimpleMeterRegistry());
+        registry.subscribe("tenant-a");
+        registry.subscribe("tenant-a");
+        registry.subscribe("tenant-b");
+
+        assertEquals(2, registry.subscriberCount("tenant-a"));
+        assertEquals(1, registry.subscriberCount("tenant-b"));
+        assertEquals(0, registry.subscriberCount("tenant-c"));
+        assertDoesNotThrow(() -> registry.publish("tenant-c", change(1L)));
+    }
+
+    private static ProductChangeDTO change(Long productId) {
+        return ProductChangeDTO.builder()
+            .productId(productId)
+            .changeType(AppConstants.Event.TYPE_UPDATED)
+            .build();
+    }
+
+    private static void awaitEvents(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(emitter.events.size() >= count);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream()
+                .map(data -> String.valueOf(data.getData()))
+                .collect(Collectors.joining()));
+        }
+    }
+}
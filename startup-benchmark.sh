@@ -0,0 +1,85 @@
+#!/bin/bash
+# Time-to-ready of the product-service and integration-service images built from the current tree.
+# Each service is recreated RUNS times per variant against the same db and kafka, one at a time, and the
+# seconds from "docker compose up" until /actuator/health answers UP are reported:
+#   baseline  java -jar on the Spring Boot fat JAR, built from the Dockerfile's baseline stage
+#   appcds    the image entrypoint, with the application class data archive built in the Dockerfile
+#   lazy      appcds plus the lazy profile
+#
+# Usage: ./startup-benchmark.sh [runs]
+
+set -e
+
+RUNS=${1:-3}
+SERVICES="product-service integration-service"
+VARIANTS="baseline appcds lazy"
+OVERRIDE=$(mktemp --suffix=.yml)
+RESULTS=$(mktemp)
+trap 'rm -f "$OVERRIDE" "$RESULTS"' EXIT
+
+port() {
+    case $1 in
+        product-service) echo "${PRODUCT_MANAGEMENT_PORT:-9080}" ;;
+        integration-service) echo "${INTEGRATION_MANAGEMENT_PORT:-9081}" ;;
+    esac
+}
+
+write_override() {
+    echo "services:" > "$OVERRIDE"
+    for service in $SERVICES; do
+        echo "  $service:" >> "$OVERRIDE"
+        echo "    restart: \"no\"" >> "$OVERRIDE"
+        case $1 in
+            baseline) echo "    image: $service:startup-baseline" >> "$OVERRIDE" ;;
+            lazy) printf '    environment:\n      SPRING_PROFILES_ACTIVE: lazy\n' >> "$OVERRIDE" ;;
+        esac
+    done
+}
+
+# Recreates the service and prints the seconds until it reports UP, or "timeout" after 5 minutes
+time_to_ready() {
+    local url="http://localhost:$(port "$1")/actuator/health"
+    local started
+    started=$(date +%s%N)
+    docker compose -f docker-compose.yml -f "$OVERRIDE" up -d --no-deps --force-recreate "$1" > /dev/null 2>&1
+    until curl -sf "$url" 2>/dev/null | grep -q '"status":"UP"'; do
+        if [ $(( ($(date +%s%N) - started) / 1000000000 )) -ge 300 ]; then
+            echo "timeout"
+            return
+        fi
+        sleep 0.1
+    done
+    awk -v ns=$(( $(date +%s%N) - started )) 'BEGIN { printf "%.2f", ns / 1e9 }'
+}
+
+echo "Building images..."
+docker compose build $SERVICES
+for service in $SERVICES; do
+    docker build -q -f "$service/Dockerfile" --target baseline -t "$service:startup-baseline" . > /dev/null
+done
+
+echo ""
+echo "Starting db and kafka..."
+docker compose up -d --wait db zookeeper kafka
+
+for variant in $VARIANTS; do
+    write_override "$variant"
+    for service in $SERVICES; do
+        for run in $(seq 1 "$RUNS"); do
+            seconds=$(time_to_ready "$service")
+            spring=$(docker logs "$service" 2>&1 | grep -o 'Started [A-Za-z]* in [0-9.]* seconds' | tail -1)
+            echo "$variant $service run $run: ${seconds}s (${spring:-no startup line})"
+            echo "$variant $service $seconds" >> "$RESULTS"
+        done
+        docker compose -f docker-compose.yml -f "$OVERRIDE" stop "$service" > /dev/null 2>&1
+    done
+done
+
+echo ""
+echo "Average time-to-ready (seconds):"
+awk '$3 != "timeout" { sum[$1 " " $2] += $3; n[$1 " " $2]++ }
+     END { for (k in sum) printf "  %-36s %6.2f\n", k, sum[k] / n[k] }' "$RESULTS" | sort
+
+echo ""
+echo "Restoring the regular containers..."
+docker compose up -d --no-deps --force-recreate $SERVICES > /dev/null 2>&1